@@ -0,0 +1,87 @@
+package com.example.newcost.awscontext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the credentials and region a scan runs against.
+ * Unlike {@link AwsRequestContext} it is not tied to the servlet request, so it
+ * can be handed to background work and used as part of a cache key.
+ */
+public final class AwsAccount {
+
+    private final String accountName;
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+    private final String fingerprint;
+
+    public AwsAccount(String accountName, String accessKey, String secretKey, String region) {
+        this.accountName = accountName;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+        this.fingerprint = fingerprint(accessKey, secretKey);
+    }
+
+    public AwsAccount withRegion(String otherRegion) {
+        return new AwsAccount(accountName, accessKey, secretKey, otherRegion);
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public String getAccessKey() {
+        return accessKey;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Short, non-reversible identifier of the key pair. Safe to log and to use in
+     * map keys without keeping the secret itself around.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    private static String fingerprint(String accessKey, String secretKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(accessKey).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(String.valueOf(secretKey).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AwsAccount)) return false;
+        AwsAccount that = (AwsAccount) o;
+        return fingerprint.equals(that.fingerprint) && Objects.equals(region, that.region);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fingerprint, region);
+    }
+
+    @Override
+    public String toString() {
+        return "AwsAccount[" + (accountName != null ? accountName : fingerprint) + "@" + region + "]";
+    }
+}
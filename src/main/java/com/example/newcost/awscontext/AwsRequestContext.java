@@ -35,4 +35,8 @@ public class AwsRequestContext {
     public String getAccountId() {
         return accountName;
     }
+
+    public AwsAccount toAccount() {
+        return new AwsAccount(accountName, accessKey, secretKey, region);
+    }
 }
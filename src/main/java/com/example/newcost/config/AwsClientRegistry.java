@@ -0,0 +1,441 @@
+package com.example.newcost.config;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.costexplorer.AWSCostExplorer;
+import com.amazonaws.services.costexplorer.AWSCostExplorerClientBuilder;
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.model.ClientPoolStatsDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsAsyncClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsSyncClientBuilder;
+import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.bedrockagentruntime.BedrockAgentRuntimeClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.computeoptimizer.ComputeOptimizerAsyncClient;
+import software.amazon.awssdk.services.computeoptimizer.ComputeOptimizerClient;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
+import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.pricing.PricingAsyncClient;
+import software.amazon.awssdk.services.pricing.PricingClient;
+import software.amazon.awssdk.services.rds.RdsAsyncClient;
+import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps SDK clients alive across requests, keyed by (credential fingerprint, region, service).
+ * Building a client allocates its own connection pool and thread pools, so reusing them
+ * avoids a fresh TLS handshake on every dashboard call. The pool is bounded and entries
+ * that have not been used for a while are evicted by a periodic sweep. All v2 clients
+ * share the transport from {@link AwsHttpClientConfig}; async clients use its Netty pool.
+ * <p>
+ * Callers hold on to the clients they are handed (request-scoped beans, async fan-outs,
+ * in-flight futures), so an evicted client is not closed straight away: it is retired, and a
+ * sweep closes it once {@code aws.client-pool.close-grace-minutes} have passed and no
+ * {@link Lease} on it is open. Short calls through the plain accessors are covered by the grace
+ * period; work that can run longer (bucket listings, inventory downloads) leases its client, and
+ * a leased client is neither swept as idle nor closed until the lease is released.
+ */
+@Component
+public class AwsClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AwsClientRegistry.class);
+
+    // The Pricing API is only served from a handful of regions
+    static final String PRICING_REGION = "ap-south-1";
+
+    private final Map<ClientKey, PooledClient> clients = new ConcurrentHashMap<>();
+    // Evicted clients in eviction order, closed once the grace period has passed and they are unleased
+    private final Queue<RetiredClient> retired = new ConcurrentLinkedQueue<>();
+    private final SdkHttpClient httpClient;
+    private final SdkAsyncHttpClient asyncHttpClient;
+    private final Executor scanExecutor;
+    private final HttpPoolMetricsPublisher metricsPublisher;
+    private final ClientConfiguration costExplorerClientConfiguration;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long closeGraceNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AwsClientRegistry(SdkHttpClient httpClient,
+                             SdkAsyncHttpClient asyncHttpClient,
+                             @Qualifier("scanExecutor") Executor scanExecutor,
+                             HttpPoolMetricsPublisher metricsPublisher,
+                             ClientConfiguration costExplorerClientConfiguration,
+                             @Value("${aws.client-pool.max-size:256}") int maxSize,
+                             @Value("${aws.client-pool.idle-timeout-minutes:30}") long idleTimeoutMinutes,
+                             @Value("${aws.client-pool.close-grace-minutes:10}") long closeGraceMinutes) {
+        this.httpClient = httpClient;
+        this.asyncHttpClient = asyncHttpClient;
+        this.scanExecutor = scanExecutor;
+        this.metricsPublisher = metricsPublisher;
+        this.costExplorerClientConfiguration = costExplorerClientConfiguration;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = TimeUnit.MINUTES.toNanos(idleTimeoutMinutes);
+        this.closeGraceNanos = TimeUnit.MINUTES.toNanos(closeGraceMinutes);
+    }
+
+    public Ec2Client ec2Client(AwsAccount account) {
+        return acquire(account, "ec2",
+                () -> syncBuilder(Ec2Client.builder(), account).build(),
+                Ec2Client::close);
+    }
+
+    public S3Client s3Client(AwsAccount account) {
+        return acquire(account, "s3",
+                () -> syncBuilder(S3Client.builder(), account).build(),
+                S3Client::close);
+    }
+
+    public ComputeOptimizerClient computeOptimizerClient(AwsAccount account) {
+        return acquire(account, "compute-optimizer",
+                () -> syncBuilder(ComputeOptimizerClient.builder(), account).build(),
+                ComputeOptimizerClient::close);
+    }
+
+    public CloudWatchClient cloudWatchClient(AwsAccount account) {
+        return acquire(account, "cloudwatch",
+                () -> syncBuilder(CloudWatchClient.builder(), account).build(),
+                CloudWatchClient::close);
+    }
+
+    public PricingClient pricingClient(AwsAccount account) {
+        AwsAccount pricingAccount = account.withRegion(PRICING_REGION);
+        return acquire(pricingAccount, "pricing",
+                () -> syncBuilder(PricingClient.builder(), pricingAccount).build(),
+                PricingClient::close);
+    }
+
+    public RdsClient rdsClient(AwsAccount account) {
+        return acquire(account, "rds",
+                () -> syncBuilder(RdsClient.builder(), account).build(),
+                RdsClient::close);
+    }
+
+    public AWSCostExplorer costExplorer(AwsAccount account) {
+        return acquire(account, "cost-explorer", () -> AWSCostExplorerClientBuilder.standard()
+                .withRegion(account.getRegion())
+                .withCredentials(new AWSStaticCredentialsProvider(
+                        new BasicAWSCredentials(account.getAccessKey(), account.getSecretKey())))
+                .withClientConfiguration(costExplorerClientConfiguration)
+                .build(), AWSCostExplorer::shutdown);
+    }
+
+    public BedrockAgentRuntimeClient bedrockAgentRuntimeClient(AwsAccount account) {
+        return acquire(account, "bedrock-agent-runtime",
+                () -> syncBuilder(BedrockAgentRuntimeClient.builder(), account).build(),
+                BedrockAgentRuntimeClient::close);
+    }
+
+    public Ec2AsyncClient ec2AsyncClient(AwsAccount account) {
+        return acquire(account, "ec2-async",
+                () -> asyncBuilder(Ec2AsyncClient.builder(), account).build(),
+                Ec2AsyncClient::close);
+    }
+
+    public S3AsyncClient s3AsyncClient(AwsAccount account) {
+        return acquire(account, "s3-async",
+                () -> asyncBuilder(S3AsyncClient.builder(), account).build(),
+                S3AsyncClient::close);
+    }
+
+    public CloudWatchAsyncClient cloudWatchAsyncClient(AwsAccount account) {
+        return acquire(account, "cloudwatch-async",
+                () -> asyncBuilder(CloudWatchAsyncClient.builder(), account).build(),
+                CloudWatchAsyncClient::close);
+    }
+
+    public RdsAsyncClient rdsAsyncClient(AwsAccount account) {
+        return acquire(account, "rds-async",
+                () -> asyncBuilder(RdsAsyncClient.builder(), account).build(),
+                RdsAsyncClient::close);
+    }
+
+    /**
+     * Runs {@code work} against the same client as {@link #s3AsyncClient}, leased until the
+     * future it returns completes, for listings and downloads that can outlast the grace period.
+     */
+    public <R> CompletableFuture<R> withS3AsyncClient(AwsAccount account, Function<S3AsyncClient, CompletableFuture<R>> work) {
+        Lease<S3AsyncClient> lease = lease(account, "s3-async",
+                () -> asyncBuilder(S3AsyncClient.builder(), account).build(),
+                S3AsyncClient::close);
+        CompletableFuture<R> result;
+        try {
+            result = work.apply(lease.client());
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+        return result.whenComplete((value, error) -> lease.close());
+    }
+
+    public ComputeOptimizerAsyncClient computeOptimizerAsyncClient(AwsAccount account) {
+        return acquire(account, "compute-optimizer-async",
+                () -> asyncBuilder(ComputeOptimizerAsyncClient.builder(), account).build(),
+                ComputeOptimizerAsyncClient::close);
+    }
+
+    public PricingAsyncClient pricingAsyncClient(AwsAccount account) {
+        AwsAccount pricingAccount = account.withRegion(PRICING_REGION);
+        return acquire(pricingAccount, "pricing-async",
+                () -> asyncBuilder(PricingAsyncClient.builder(), pricingAccount).build(),
+                PricingAsyncClient::close);
+    }
+
+    public ClientPoolStatsDTO getStats() {
+        return new ClientPoolStatsDTO(clients.size(), maxSize, hits.sum(), misses.sum(), evictions.sum(), retired.size());
+    }
+
+    @Scheduled(fixedDelayString = "${aws.client-pool.sweep-interval-ms:60000}")
+    public void evictIdleClients() {
+        evictIdleClients(System.nanoTime());
+    }
+
+    void evictIdleClients(long now) {
+        clients.forEach((key, pooled) -> {
+            if (!pooled.isLeased() && now - pooled.lastAccessNanos > idleTimeoutNanos) {
+                evict(key, pooled, "idle");
+            }
+        });
+        closeRetiredClients(now);
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        clients.forEach((key, pooled) -> {
+            if (clients.remove(key, pooled)) {
+                pooled.close(key);
+            }
+        });
+        RetiredClient retiredClient;
+        while ((retiredClient = retired.poll()) != null) {
+            retiredClient.pooled().close(retiredClient.key());
+        }
+    }
+
+    // The queue is in eviction order, so the scan stops at the first client still in its grace period
+    private void closeRetiredClients(long now) {
+        for (Iterator<RetiredClient> it = retired.iterator(); it.hasNext(); ) {
+            RetiredClient candidate = it.next();
+            if (now - candidate.retiredAtNanos() <= closeGraceNanos) {
+                return;
+            }
+            if (candidate.pooled().closeIfUnleased(candidate.key())) {
+                it.remove();
+            }
+        }
+    }
+
+    private <B extends AwsSyncClientBuilder<B, ?> & AwsClientBuilder<B, ?>> B syncBuilder(B builder, AwsAccount account) {
+        return builder.region(Region.of(account.getRegion()))
+                .credentialsProvider(credentials(account))
+                .httpClient(httpClient)
+                .overrideConfiguration(o -> o.addMetricPublisher(metricsPublisher));
+    }
+
+    private <B extends AwsAsyncClientBuilder<B, ?> & AwsClientBuilder<B, ?>> B asyncBuilder(B builder, AwsAccount account) {
+        return builder.region(Region.of(account.getRegion()))
+                .credentialsProvider(credentials(account))
+                .httpClient(asyncHttpClient)
+                .asyncConfiguration(c -> c.advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR, scanExecutor))
+                .overrideConfiguration(o -> o.addMetricPublisher(metricsPublisher));
+    }
+
+    private static StaticCredentialsProvider credentials(AwsAccount account) {
+        return StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(account.getAccessKey(), account.getSecretKey()));
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T acquire(AwsAccount account, String service, Supplier<T> factory, Consumer<T> closer) {
+        return (T) pooled(account, service, factory, closer).client;
+    }
+
+    // A client closed between the lookup and the lease is already out of the map, so the retry gets a new one
+    @SuppressWarnings("unchecked")
+    <T> Lease<T> lease(AwsAccount account, String service, Supplier<T> factory, Consumer<T> closer) {
+        while (true) {
+            PooledClient pooled = pooled(account, service, factory, closer);
+            if (pooled.tryLease()) {
+                return new Lease<>((T) pooled.client, pooled);
+            }
+        }
+    }
+
+    private <T> PooledClient pooled(AwsAccount account, String service, Supplier<T> factory, Consumer<T> closer) {
+        ClientKey key = new ClientKey(account.getFingerprint(), account.getRegion(), service);
+
+        PooledClient pooled = clients.get(key);
+        if (pooled != null) {
+            hits.increment();
+        } else {
+            boolean[] created = {false};
+            pooled = clients.computeIfAbsent(key, k -> {
+                created[0] = true;
+                T client = factory.get();
+                return new PooledClient(client, () -> closer.accept(client));
+            });
+            if (created[0]) {
+                misses.increment();
+                logger.debug("Created {} client for {}", service, account);
+                evictOverflow();
+            } else {
+                hits.increment();
+            }
+        }
+        pooled.lastAccessNanos = System.nanoTime();
+        return pooled;
+    }
+
+    // Least-recently-used eviction; the pool is small so a linear scan is cheap
+    private synchronized void evictOverflow() {
+        while (clients.size() > maxSize) {
+            Map.Entry<ClientKey, PooledClient> oldest = null;
+            for (Map.Entry<ClientKey, PooledClient> entry : clients.entrySet()) {
+                if (oldest == null || entry.getValue().lastAccessNanos < oldest.getValue().lastAccessNanos) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            evict(oldest.getKey(), oldest.getValue(), "size");
+        }
+    }
+
+    private void evict(ClientKey key, PooledClient pooled, String cause) {
+        if (clients.remove(key, pooled)) {
+            evictions.increment();
+            logger.debug("Evicting {} client for {}@{} ({})", key.service(), key.fingerprint(), key.region(), cause);
+            retired.add(new RetiredClient(key, pooled, System.nanoTime()));
+        }
+    }
+
+    /**
+     * A pooled client that stays open until {@link #close()}, even if the pool evicts it
+     * meanwhile. Closing the lease releases the client, not the client itself.
+     */
+    static final class Lease<T> implements AutoCloseable {
+        private final T client;
+        private final PooledClient pooled;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(T client, PooledClient pooled) {
+            this.client = client;
+            this.pooled = pooled;
+        }
+
+        T client() {
+            return client;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                pooled.release();
+            }
+        }
+    }
+
+    private record ClientKey(String fingerprint, String region, String service) {
+    }
+
+    private record RetiredClient(ClientKey key, PooledClient pooled, long retiredAtNanos) {
+    }
+
+    private static final class PooledClient {
+        private final Object client;
+        private final Runnable closer;
+        private volatile long lastAccessNanos = System.nanoTime();
+        // Guarded by this
+        private int leases;
+        private boolean closed;
+
+        private PooledClient(Object client, Runnable closer) {
+            this.client = client;
+            this.closer = closer;
+        }
+
+        private synchronized boolean tryLease() {
+            if (closed) {
+                return false;
+            }
+            leases++;
+            return true;
+        }
+
+        private synchronized void release() {
+            leases--;
+            lastAccessNanos = System.nanoTime();
+        }
+
+        private synchronized boolean isLeased() {
+            return leases > 0;
+        }
+
+        // The lease check and the closed flag change together, so a lease cannot slip in before the close
+        private boolean closeIfUnleased(ClientKey key) {
+            synchronized (this) {
+                if (leases > 0) {
+                    return false;
+                }
+                if (closed) {
+                    return true;
+                }
+                closed = true;
+            }
+            runCloser(key);
+            return true;
+        }
+
+        private void close(ClientKey key) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            runCloser(key);
+        }
+
+        private void runCloser(ClientKey key) {
+            try {
+                closer.run();
+            } catch (Exception e) {
+                logger.warn("Failed to close {} client for {}: {}", key.service(), key.fingerprint(), e.getMessage());
+            }
+        }
+    }
+}
@@ -5,7 +5,6 @@ import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.regions.AwsRegionProvider;
 import com.amazonaws.services.costexplorer.AWSCostExplorer;
-import com.amazonaws.services.costexplorer.AWSCostExplorerClientBuilder;
 import com.example.newcost.awscontext.AwsRequestContext;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -18,7 +17,6 @@ import org.springframework.web.context.annotation.RequestScope;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 import software.amazon.awssdk.services.computeoptimizer.ComputeOptimizerClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
@@ -67,77 +65,46 @@ public class AwsConfig {
         );
     }
 
-    @Bean
+    // Clients come from the shared registry, so they must not be closed when the request ends
+    @Bean(destroyMethod = "")
     @RequestScope
-    public Ec2Client ec2Client(AwsRequestContext context) {
-        return Ec2Client.builder()
-                .region(Region.of(context.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(context.getAccessKey(), context.getSecretKey())
-                ))
-                .build();
+    public Ec2Client ec2Client(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.ec2Client(context.toAccount());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     @RequestScope
-    public S3Client s3Client(AwsRequestContext context) {
-        return S3Client.builder()
-                .region(Region.of(context.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(context.getAccessKey(), context.getSecretKey())
-                ))
-                .build();
+    public S3Client s3Client(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.s3Client(context.toAccount());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     @Scope(value = WebApplicationContext.SCOPE_REQUEST, proxyMode = ScopedProxyMode.TARGET_CLASS)
-    public ComputeOptimizerClient computeOptimizerClient(AwsRequestContext context) {
-        AwsBasicCredentials awsCreds = AwsBasicCredentials.create(context.getAccessKey(), context.getSecretKey());
-
-        return ComputeOptimizerClient.builder()
-                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                .region(Region.of(context.getRegion()))
-                .build();
+    public ComputeOptimizerClient computeOptimizerClient(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.computeOptimizerClient(context.toAccount());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     @RequestScope
-    public CloudWatchClient cloudWatchClient(AwsRequestContext context) {
-        return CloudWatchClient.builder()
-                .region(Region.of(context.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(context.getAccessKey(), context.getSecretKey())
-                ))
-                .build();
+    public CloudWatchClient cloudWatchClient(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.cloudWatchClient(context.toAccount());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     @RequestScope
-    public PricingClient pricingClient(AwsCredentialsProvider credentialsProvider) {
-        return PricingClient.builder()
-                .credentialsProvider(credentialsProvider)
-                .region(Region.AP_SOUTH_1)
-                .build();
+    public PricingClient pricingClient(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.pricingClient(context.toAccount());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     @RequestScope
-    public AWSCostExplorer awsCostExplorer(AwsRequestContext context) {
-        return AWSCostExplorerClientBuilder.standard()
-                .withRegion(context.getRegion())
-                .withCredentials(new AWSStaticCredentialsProvider(
-                        new BasicAWSCredentials(context.getAccessKey(), context.getSecretKey())))
-                .build();
+    public AWSCostExplorer awsCostExplorer(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.costExplorer(context.toAccount());
     }
 
-    @Bean
+    @Bean(destroyMethod = "")
     @RequestScope
-    public RdsClient rdsClient(AwsRequestContext context) {
-        return RdsClient.builder()
-                .region(Region.of(context.getRegion()))
-                .credentialsProvider(StaticCredentialsProvider.create(
-                        AwsBasicCredentials.create(context.getAccessKey(), context.getSecretKey())
-                ))
-                .build();
+    public RdsClient rdsClient(AwsRequestContext context, AwsClientRegistry clientRegistry) {
+        return clientRegistry.rdsClient(context.toAccount());
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.newcost.config;
+
+import com.amazonaws.ClientConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+
+import java.time.Duration;
+
+/**
+ * One HTTP transport shared by every SDK client. Clients built with an explicit
+ * httpClient do not close it themselves, so the pool outlives any single client
+ * and is shut down together with the application context.
+ */
+@Configuration
+public class AwsHttpClientConfig {
+
+    @Value("${aws.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${aws.http.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Value("${aws.http.connection-max-idle-seconds:60}")
+    private long connectionMaxIdleSeconds;
+
+    @Value("${aws.http.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    @Value("${aws.http.connection-timeout-ms:2000}")
+    private long connectionTimeoutMs;
+
+    @Value("${aws.http.socket-timeout-ms:30000}")
+    private long socketTimeoutMs;
+
+    @Value("${aws.http.connection-acquisition-timeout-ms:10000}")
+    private long connectionAcquisitionTimeoutMs;
+
+    @Value("${aws.http.async.max-concurrency:500}")
+    private int asyncMaxConcurrency;
+
+    @Value("${aws.http.async.max-pending-acquires:10000}")
+    private int asyncMaxPendingAcquires;
+
+    @Bean
+    public HttpPoolMetricsPublisher httpPoolMetricsPublisher() {
+        return new HttpPoolMetricsPublisher();
+    }
+
+    @Bean
+    public SdkHttpClient sdkHttpClient() {
+        return ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionTimeToLive(Duration.ofSeconds(connectionTtlSeconds))
+                .connectionMaxIdleTime(Duration.ofSeconds(connectionMaxIdleSeconds))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(tcpKeepAlive)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    public SdkAsyncHttpClient sdkAsyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(asyncMaxConcurrency)
+                .maxPendingConnectionAcquires(asyncMaxPendingAcquires)
+                .connectionTimeToLive(Duration.ofSeconds(connectionTtlSeconds))
+                .connectionMaxIdleTime(Duration.ofSeconds(connectionMaxIdleSeconds))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(tcpKeepAlive)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .readTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .build();
+    }
+
+    // SDK v1 (Cost Explorer) cannot use the v2 transport, so it gets the same tuning instead
+    @Bean
+    public ClientConfiguration costExplorerClientConfiguration() {
+        return new ClientConfiguration()
+                .withMaxConnections(maxConnections)
+                .withConnectionTTL(Duration.ofSeconds(connectionTtlSeconds).toMillis())
+                .withConnectionMaxIdleMillis(Duration.ofSeconds(connectionMaxIdleSeconds).toMillis())
+                .withTcpKeepAlive(tcpKeepAlive)
+                .withConnectionTimeout((int) connectionTimeoutMs)
+                .withSocketTimeout((int) socketTimeoutMs);
+    }
+}
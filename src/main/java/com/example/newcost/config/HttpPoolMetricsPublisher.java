@@ -0,0 +1,95 @@
+package com.example.newcost.config;
+
+import com.example.newcost.model.HttpPoolStatsDTO;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the connection-pool metrics the SDK reports for every API call attempt
+ * (leased/available/pending connections) and keeps a running view per HTTP client.
+ */
+public class HttpPoolMetricsPublisher implements MetricPublisher {
+
+    private final Map<String, PoolGauge> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        record(metricCollection);
+    }
+
+    private void record(MetricCollection collection) {
+        List<String> clientNames = collection.metricValues(HttpMetric.HTTP_CLIENT_NAME);
+        if (!clientNames.isEmpty()) {
+            PoolGauge gauge = pools.computeIfAbsent(clientNames.get(0), name -> new PoolGauge());
+            gauge.update(
+                    first(collection.metricValues(HttpMetric.MAX_CONCURRENCY)),
+                    first(collection.metricValues(HttpMetric.LEASED_CONCURRENCY)),
+                    first(collection.metricValues(HttpMetric.AVAILABLE_CONCURRENCY)),
+                    first(collection.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES)),
+                    collection.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION));
+        }
+        for (MetricCollection child : collection.children()) {
+            record(child);
+        }
+    }
+
+    private static int first(List<Integer> values) {
+        return values.isEmpty() ? 0 : values.get(0);
+    }
+
+    public Map<String, HttpPoolStatsDTO> getStats() {
+        return pools.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().snapshot(e.getKey())));
+    }
+
+    @Override
+    public void close() {
+        pools.clear();
+    }
+
+    private static final class PoolGauge {
+        private volatile int maxConcurrency;
+        private volatile int leased;
+        private volatile int available;
+        private volatile int pending;
+        private final LongAccumulator peakLeased = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator peakPending = new LongAccumulator(Math::max, 0);
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder saturatedAcquisitions = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+
+        private void update(int max, int leased, int available, int pending, List<Duration> acquireDurations) {
+            this.maxConcurrency = max;
+            this.leased = leased;
+            this.available = available;
+            this.pending = pending;
+            peakLeased.accumulate(leased);
+            peakPending.accumulate(pending);
+            acquisitions.increment();
+            // A call had to queue for a connection: the pool is the bottleneck
+            if (pending > 0 || (max > 0 && leased >= max)) {
+                saturatedAcquisitions.increment();
+            }
+            for (Duration duration : acquireDurations) {
+                acquireNanos.add(duration.toNanos());
+            }
+        }
+
+        private HttpPoolStatsDTO snapshot(String name) {
+            long count = acquisitions.sum();
+            double averageAcquireMillis = count == 0 ? 0.0 : acquireNanos.sum() / 1_000_000.0 / count;
+            return new HttpPoolStatsDTO(name, maxConcurrency, leased, available, pending,
+                    (int) peakLeased.get(), (int) peakPending.get(),
+                    count, saturatedAcquisitions.sum(), averageAcquireMillis);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.newcost.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for per-resource fan-out work inside the scan services (one task per bucket,
+ * snapshot, DB instance...). It also completes the futures returned by the async SDK
+ * clients, so continuations never run on the Netty event loop.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} on Java 21 every task gets its own
+ * virtual thread, matching Tomcat's request threads in that mode; otherwise a bounded
+ * platform pool is used.
+ */
+@Configuration
+public class ScanExecutorConfig {
+
+    @Bean(name = "scanExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualScanExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("scan-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    @Bean(name = "scanExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformScanExecutor(@Value("${aws.scan.platform-threads:64}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("scan-");
+        return executor;
+    }
+}
@@ -1,17 +1,25 @@
 package com.example.newcost.controller;
 
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.awscontext.AwsRequestContext;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.config.HttpPoolMetricsPublisher;
 import com.example.newcost.model.*;
 import com.example.newcost.service.*;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.bedrockagentruntime.BedrockAgentRuntimeClient;
 import software.amazon.awssdk.services.bedrockagentruntime.model.*;
@@ -21,6 +29,7 @@ import software.amazon.awssdk.services.computeoptimizer.model.InstanceRecommenda
 import software.amazon.awssdk.services.computeoptimizer.model.InstanceRecommendationOption;
 import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.Volume;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.core.SdkBytes;
@@ -32,11 +41,18 @@ import software.amazon.awssdk.services.bedrockagentruntime.model.RetrieveAndGene
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @CrossOrigin(origins = "http://localhost:4200")
 @RestController
@@ -48,214 +64,540 @@ public class AwsController {
     @Autowired
     private AwsCredentialService service;
 
+    @Autowired
+    private AwsClientRegistry clientRegistry;
+
+    @Autowired
+    private HttpPoolMetricsPublisher httpPoolMetricsPublisher;
+
+    @Autowired
+    private AwsRequestContext requestContext;
+
+    @Autowired
+    private CostChartService costChartService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RegionScanService regionScanService;
+
+    @Autowired
+    private AccountScanOrchestrator accountScanOrchestrator;
+
     private static final Logger logger = LoggerFactory.getLogger(AwsController.class);
 
+    // Bounds the heaps kept while listing a bucket for /buckets/{bucket}/top-objects
+    private static final int MAX_TOP_OBJECTS = 1000;
+    // Caps the prefix lists of /buckets/inventory and /buckets/{bucket}/prefixes
+    private static final int MAX_TOP_PREFIXES = 1000;
+
     private final AwsCostService awsCostService;
     private final Ec2Service ec2Service;
     private final S3Service s3Service;
     private final ComputeOptimizerService computeOptimizerService;
-    private final Ec2Client ec2Client;
     private final RdsService rdsService;
     private final BedrockRuntimeClient bedrockRuntimeClient;
     private final BedrockAgentRuntimeClient bedrockAgentRuntimeClient;
+    private final SdkHttpClient sdkHttpClient;
 
     @Autowired
     public AwsController(Ec2Service ec2Service,
                          S3Service s3Service,
                          ComputeOptimizerService computeOptimizerService,
-                         Ec2Client ec2Client,
                          AwsCostService awsCostService,
-                         RdsService rdsService) {
+                         RdsService rdsService,
+                         SdkHttpClient sdkHttpClient) {
         this.ec2Service = ec2Service;
         this.s3Service = s3Service;
         this.computeOptimizerService = computeOptimizerService;
-        this.ec2Client = ec2Client;
         this.awsCostService = awsCostService;
         this.rdsService = rdsService;
+        this.sdkHttpClient = sdkHttpClient;
         this.bedrockRuntimeClient = BedrockRuntimeClient.builder()
                 .region(Region.US_EAST_1)
+                .httpClient(sdkHttpClient)
                 .build();
         this.bedrockAgentRuntimeClient = BedrockAgentRuntimeClient.builder()
                 .region(Region.US_EAST_1)
+                .httpClient(sdkHttpClient)
                 .build();
     }
 
+    // AWS-backed endpoints complete asynchronously so a slow call does not hold a servlet thread.
+    // The request context is only readable on the request thread, so the account is captured first.
     @GetMapping("/cost-data")
-    public ResponseEntity<CostDataDTO> getCostData(
+    public CompletableFuture<ResponseEntity<CostDataDTO>> getCostData(
             @RequestParam(required = false) Integer month,
             @RequestParam(required = false) Integer year,
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey) {
+        LocalDate today = LocalDate.now();
+        int selectedMonth = month != null ? month : today.getMonthValue();
+        int selectedYear = year != null ? year : today.getYear();
+
+        return awsCostService.getCostData(requestContext.toAccount(), selectedMonth, selectedYear)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error fetching cost data: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
+    // Streams one NDJSON line per month; every Cost Explorer page is followed
+    @GetMapping(value = "/cost-range", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> getCostRange(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "SERVICE") String groupBy,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey) {
+        AwsAccount account = requestContext.toAccount();
+        YearMonth startMonth;
+        YearMonth endMonth;
         try {
-            LocalDate today = LocalDate.now();
-            int selectedMonth = month != null ? month : today.getMonthValue();
-            int selectedYear = year != null ? year : today.getYear();
-            CostDataDTO costData = awsCostService.getCostData(selectedMonth, selectedYear);
-            return ResponseEntity.ok(costData);
+            startMonth = YearMonth.parse(start);
+            endMonth = YearMonth.parse(end);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String dimension = groupBy.toUpperCase();
+        if (startMonth.isAfter(endMonth) || !awsCostService.supportsGroupBy(dimension)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                awsCostService.writeCostRange(account, startMonth, endMonth, dimension, out);
+            } catch (RuntimeException e) {
+                logger.error("Error streaming cost range: {}", e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // Served from the local daily cost store, so no AWS call is made on the request path.
+    // 202 while the account's first ingest is still running.
+    @GetMapping("/cost-trend")
+    public ResponseEntity<ChartDataDTO> getCostTrend(
+            @RequestParam(defaultValue = "12") int months,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String region,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey) {
+        if (months < 1 || months > awsCostService.getMaxTrendMonths()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return awsCostService.getDailyCostTrend(requestContext.toAccount(), months, service, region)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.accepted().build());
         } catch (Exception e) {
-            logger.error("Error fetching cost data: {}", e.getMessage());
+            logger.error("Error fetching cost trend: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+
+    // Chart-ready cost series, downsampled server-side to the requested number of points
+    @GetMapping("/cost-chart")
+    public ResponseEntity<ChartDataDTO> getCostChart(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String region,
+            @RequestParam(defaultValue = "500") int points,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey) {
+        LocalDate toDate;
+        LocalDate fromDate;
+        try {
+            toDate = to != null ? LocalDate.parse(to) : LocalDate.now(ZoneOffset.UTC).plusDays(1);
+            fromDate = from != null ? LocalDate.parse(from) : toDate.minusMonths(12);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!fromDate.isBefore(toDate) || points < 3) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(costChartService.getCostChart(
+                    requestContext.toAccount(), service, region, fromDate, toDate, points));
+        } catch (Exception e) {
+            logger.error("Error building cost chart: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
     @GetMapping("/instance")
-    public ResponseEntity<List<InstanceRecommendationDTO>> getEc2InstanceRecommendations(
+    public CompletableFuture<ResponseEntity<List<InstanceRecommendationDTO>>> getEc2InstanceRecommendations(
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey,
             @RequestHeader("X-AWS-Region") String regionHeader) {
-        try {
-            Map<String, Double> priceCache = new HashMap<>();
-            priceCache.put("t2.medium", 0.0464);
-            priceCache.put("t4g.medium", 0.0336);
-            priceCache.put("m5.large", 0.096);
-            priceCache.put("c5.xlarge", 0.17);
-
-            List<InstanceRecommendation> recommendations = computeOptimizerService.getEc2InstanceRecommendations();
-            List<Instance> ec2Instances = ec2Service.listInstances();
-
-            List<InstanceRecommendationDTO> result = recommendations.stream().map(rec -> {
-                String instanceArn = rec.instanceArn();
-                String instanceId = instanceArn.substring(instanceArn.lastIndexOf("/") + 1);
-
-                Instance matchedInstance = ec2Instances.stream()
-                        .filter(i -> i.instanceId().equals(instanceId))
-                        .findFirst()
-                        .orElse(null);
-
-                String instanceName = "";
-                String currentInstanceType = "";
-                String currentState = "";
-                String region = regionHeader;
-
-                if (matchedInstance != null) {
-                    currentInstanceType = matchedInstance.instanceTypeAsString();
-                    currentState = matchedInstance.state().nameAsString();
-                    instanceName = matchedInstance.tags().stream()
-                            .filter(tag -> tag.key().equalsIgnoreCase("Name"))
-                            .map(tag -> tag.value())
-                            .findFirst()
-                            .orElse("Unnamed");
-                }
+        AwsAccount account = requestContext.toAccount();
+
+        return computeOptimizerService.getEc2InstanceRecommendations(account)
+                .thenCombine(ec2Service.getInventory(account), (recommendations, inventory) ->
+                        recommendations.stream()
+                                .map(rec -> toInstanceRecommendation(account, rec, inventory, regionHeader))
+                                .collect(Collectors.toList()))
+                .thenCompose(Futures::allOf)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error fetching EC2 recommendations: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
 
-                double currentPrice = computeOptimizerService.getOnDemandPrice(currentInstanceType, region);
-                if (currentPrice == 0.0 && priceCache.containsKey(currentInstanceType)) {
-                    currentPrice = priceCache.get(currentInstanceType);
-                }
+    private CompletableFuture<InstanceRecommendationDTO> toInstanceRecommendation(AwsAccount account,
+                                                                                  InstanceRecommendation rec,
+                                                                                  ResourceInventory inventory,
+                                                                                  String region) {
+        String instanceArn = rec.instanceArn();
+        String instanceId = instanceArn.substring(instanceArn.lastIndexOf("/") + 1);
 
-                String recommendedType = "No recommendation";
-                double recommendedPrice = 0.0;
-                double monthlySavings = 0.0;
+        Instance matchedInstance = inventory.findInstance(instanceId);
 
-                if (rec.recommendationOptions() != null && !rec.recommendationOptions().isEmpty()) {
-                    InstanceRecommendationOption bestOption = rec.recommendationOptions().stream()
-                            .min(Comparator.comparingDouble(InstanceRecommendationOption::performanceRisk))
-                            .orElse(rec.recommendationOptions().get(0));
+        String instanceName = "";
+        String currentInstanceType = "";
+        String currentState = "";
 
-                    recommendedType = bestOption.instanceType();
-                    recommendedPrice = computeOptimizerService.getOnDemandPrice(recommendedType, region);
-                    if (recommendedPrice == 0.0 && priceCache.containsKey(recommendedType)) {
-                        recommendedPrice = priceCache.get(recommendedType);
-                    }
+        if (matchedInstance != null) {
+            currentInstanceType = matchedInstance.instanceTypeAsString();
+            currentState = matchedInstance.state().nameAsString();
+            String tagName = inventory.getName(instanceId);
+            instanceName = tagName != null ? tagName : "Unnamed";
+        }
 
-                    monthlySavings = (currentPrice - recommendedPrice) * 730;
-                }
+        CompletableFuture<Double> currentPrice = computeOptimizerService.getOnDemandPrice(account, currentInstanceType, region);
+
+        String recommendedType = "No recommendation";
+        CompletableFuture<Double> recommendedPrice = null;
+
+        if (rec.recommendationOptions() != null && !rec.recommendationOptions().isEmpty()) {
+            InstanceRecommendationOption bestOption = rec.recommendationOptions().stream()
+                    .min(Comparator.comparingDouble(InstanceRecommendationOption::performanceRisk))
+                    .orElse(rec.recommendationOptions().get(0));
+
+            recommendedType = bestOption.instanceType();
+            recommendedPrice = computeOptimizerService.getOnDemandPrice(account, recommendedType, region);
+        }
 
-                return new InstanceRecommendationDTO(
+        String name = instanceName;
+        String type = currentInstanceType;
+        String state = currentState;
+        String recommended = recommendedType;
+        boolean hasRecommendation = recommendedPrice != null;
+
+        return currentPrice.thenCombine(
+                hasRecommendation ? recommendedPrice : CompletableFuture.completedFuture(0.0),
+                (current, target) -> new InstanceRecommendationDTO(
                         instanceId,
-                        instanceName,
+                        name,
                         rec.findingAsString(),
-                        currentState,
-                        currentInstanceType,
-                        currentPrice,
-                        recommendedType,
-                        recommendedPrice,
-                        monthlySavings,
+                        state,
+                        type,
+                        current,
+                        recommended,
+                        target,
+                        hasRecommendation ? (current - target) * 730 : 0.0,
                         region
-                );
-            }).collect(Collectors.toList());
-
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            logger.error("Error fetching EC2 recommendations: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+                ));
     }
 
     @GetMapping("/volumes")
-    public ResponseEntity<List<VolumeDTO>> getEbsVolumes(
+    public CompletableFuture<ResponseEntity<List<VolumeDTO>>> getEbsVolumes(
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey,
             @RequestHeader("X-AWS-Region") String regionHeader) {
-        try {
-            List<VolumeDTO> volumes = ec2Service.listEbsVolumes().stream()
-                    .map(volume -> new VolumeDTO(
-                            volume.volumeId(),
-                            String.valueOf(volume.size()),
-                            volume.state().toString(),
-                            volume.attachments().isEmpty() ? "Detached" : volume.attachments().get(0).state().toString(),
-                            volume.volumeTypeAsString()
-                    ))
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(volumes);
-        } catch (Exception e) {
-            logger.error("Error fetching EBS volumes: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        return ec2Service.listEbsVolumes(requestContext.toAccount())
+                .thenApply(volumes -> volumes.stream()
+                        .map(this::toVolumeDTO)
+                        .collect(Collectors.toList()))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error fetching EBS volumes: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
+    private VolumeDTO toVolumeDTO(Volume volume) {
+        return new VolumeDTO(
+                volume.volumeId(),
+                String.valueOf(volume.size()),
+                volume.state().toString(),
+                volume.attachments().isEmpty() ? "Detached" : volume.attachments().get(0).state().toString(),
+                volume.volumeTypeAsString()
+        );
+    }
+
+    // NDJSON inventory for large accounts: resources are written as pages arrive, so the
+    // full listing is never held in memory. type is one of volumes, snapshots, instances, addresses.
+    @GetMapping(value = "/inventory/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamInventory(
+            @RequestParam String type,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey,
+            @RequestHeader("X-AWS-Region") String regionHeader) {
+        AwsAccount account = requestContext.toAccount();
+        Function<AwsAccount, Stream<?>> source = switch (type) {
+            case "volumes" -> a -> ec2Service.streamEbsVolumes(a).map(this::toVolumeDTO);
+            case "snapshots" -> a -> ec2Service.streamEbsSnapshots(a)
+                    .map(snapshot -> ec2Service.toSnapshotDetails(snapshot, -1.0));
+            case "instances" -> a -> ec2Service.streamInstances(a)
+                    .map(instance -> toInstanceSummary(instance, nameTag(instance)));
+            case "addresses" -> a -> ec2Service.streamElasticIps(a).map(ElasticIpDTO::new);
+            default -> null;
+        };
+        if (source == null) {
+            return ResponseEntity.badRequest().build();
         }
+
+        StreamingResponseBody body = out -> {
+            try (Stream<?> resources = source.apply(account);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                Iterator<?> iterator = resources.iterator();
+                while (iterator.hasNext()) {
+                    objectMapper.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error streaming {} inventory: {}", type, e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private Map<String, Object> toInstanceSummary(Instance instance, String name) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("InstanceId", instance.instanceId());
+        summary.put("InstanceType", instance.instanceTypeAsString());
+        summary.put("State", instance.state() != null ? instance.state().nameAsString() : null);
+        summary.put("Name", name != null ? name : "");
+        return summary;
+    }
+
+    // Streamed instances have no ResourceInventory to look the name up in
+    private static String nameTag(Instance instance) {
+        return instance.tags().stream()
+                .filter(tag -> tag.key().equalsIgnoreCase("Name"))
+                .map(tag -> tag.value())
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Server-side "all regions" mode: the same listing run in every enabled region of the account,
+    // merged into one response with per-region latency and errors. type is one of volumes,
+    // snapshots, instances, addresses, rds. The region header is optional here.
+    @GetMapping("/regions/scan")
+    public CompletableFuture<ResponseEntity<MultiRegionScanDTO<Object>>> scanAllRegions(
+            @RequestParam String type,
+            @RequestParam(defaultValue = "false") boolean includeStorageUsage,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey) {
+        AwsAccount account = requestContext.toAccount();
+        Function<AwsAccount, CompletableFuture<List<Object>>> scan = switch (type) {
+            case "volumes" -> a -> ec2Service.listEbsVolumes(a)
+                    .thenApply(volumes -> volumes.stream().map(this::toVolumeDTO).collect(Collectors.toList()));
+            case "snapshots" -> a -> ec2Service.listEbsSnapshotsDetailed(a, includeStorageUsage)
+                    .thenApply(List::copyOf);
+            case "instances" -> a -> ec2Service.getInventory(a)
+                    .thenApply(inventory -> inventory.getInstances().stream()
+                            .map(instance -> toInstanceSummary(instance, inventory.getName(instance.instanceId())))
+                            .collect(Collectors.toList()));
+            case "addresses" -> a -> ec2Service.listElasticIps(a)
+                    .thenApply(addresses -> addresses.stream().map(ElasticIpDTO::new).collect(Collectors.toList()));
+            case "rds" -> a -> rdsService.getRdsRecommendations(a).thenApply(List::copyOf);
+            default -> null;
+        };
+        if (scan == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+
+        return regionScanService.scanAllRegions(account, type, scan)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error scanning {} across regions: {}", type, Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
     }
 
     @GetMapping("/snapshots")
-    public ResponseEntity<List<Map<String, Object>>> getEbsSnapshots(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getEbsSnapshots(
+            @RequestParam(defaultValue = "true") boolean includeStorageUsage,
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey,
             @RequestHeader("X-AWS-Region") String regionHeader) {
-        try {
-            List<Map<String, Object>> snapshots = ec2Service.listEbsSnapshotsDetailed();
-            return ResponseEntity.ok(snapshots);
-        } catch (Exception e) {
-            logger.error("Error fetching EBS snapshots: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+        return ec2Service.listEbsSnapshotsDetailed(requestContext.toAccount(), includeStorageUsage)
+                .thenApply(this::jsonArray)
+                .exceptionally(e -> {
+                    logger.error("Error fetching EBS snapshots: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
+    // Large typed lists are written element by element through the generator, so the response is
+    // never rendered into one buffer and no per-element maps or formatted strings are built
+    private ResponseEntity<StreamingResponseBody> jsonArray(List<? extends JsonWritable> items) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (JsonWritable item : items) {
+                    item.writeJson(generator);
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/elastic-ips")
-    public ResponseEntity<List<ElasticIpDTO>> getElasticIps(
+    public CompletableFuture<ResponseEntity<List<ElasticIpDTO>>> getElasticIps(
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey,
             @RequestHeader("X-AWS-Region") String regionHeader) {
-        try {
-            List<ElasticIpDTO> elasticIps = ec2Client.describeAddresses().addresses().stream()
-                    .map(ElasticIpDTO::new)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(elasticIps);
-        } catch (Exception e) {
-            logger.error("Error fetching Elastic IPs: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+        return ec2Service.listElasticIps(requestContext.toAccount())
+                .thenApply(addresses -> addresses.stream()
+                        .map(ElasticIpDTO::new)
+                        .collect(Collectors.toList()))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error fetching Elastic IPs: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
     }
 
     @GetMapping("/buckets")
-    public ResponseEntity<List<S3BucketDTO>> getS3Buckets(
+    public CompletableFuture<ResponseEntity<List<S3BucketDTO>>> getS3Buckets(
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey,
+            @RequestHeader("X-AWS-Region") String region,
+            @RequestParam(defaultValue = "metrics") String sizing) {
+        // "exact" lists every object; the default reads the daily CloudWatch storage metrics
+        return s3Service.listBuckets(requestContext.toAccount(), "exact".equalsIgnoreCase(sizing))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = Futures.unwrap(e);
+                    logger.error("Error retrieving S3 buckets: {}", cause.getMessage(), cause);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
+    // NDJSON variant of /buckets: each bucket is written as soon as its analysis finishes
+    @GetMapping(value = "/buckets/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamS3Buckets(
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey,
+            @RequestHeader("X-AWS-Region") String region,
+            @RequestParam(defaultValue = "metrics") String sizing) {
+        AwsAccount account = requestContext.toAccount();
+        boolean exact = "exact".equalsIgnoreCase(sizing);
+        StreamingResponseBody body = out -> {
+            try {
+                s3Service.writeBuckets(account, exact, out);
+            } catch (RuntimeException e) {
+                logger.error("Error streaming S3 buckets: {}", e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    // manifest is s3://bucket/.../manifest.json, or a path under aws.s3-inventory.dir
+    @GetMapping("/buckets/inventory")
+    public CompletableFuture<ResponseEntity<S3InventoryReportDTO>> getS3Inventory(
+            @RequestParam String manifest,
+            @RequestParam(defaultValue = "20") int prefixes,
+            @RequestParam(defaultValue = "size") String sort,
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey,
             @RequestHeader("X-AWS-Region") String region) {
-        try {
-            List<S3BucketDTO> buckets = s3Service.listBuckets(accessKey, secretKey, region);
-            return ResponseEntity.ok(buckets);
-        } catch (Exception e) {
-            logger.error("Error retrieving S3 buckets: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        if (prefixes < 0 || prefixes > MAX_TOP_PREFIXES || !"size".equals(sort) && !"cold".equals(sort)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
+        return s3Service.analyzeInventory(requestContext.toAccount(), manifest, prefixes, "cold".equals(sort))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = Futures.unwrap(e);
+                    if (cause instanceof IllegalArgumentException) {
+                        return ResponseEntity.badRequest().build();
+                    }
+                    logger.error("Error analyzing S3 inventory {}: {}", manifest, cause.getMessage(), cause);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
     }
 
+    // Top-N prefixes of one bucket by size or by share of data not modified for 90 days (sort=size|cold)
+    @GetMapping("/buckets/{bucket}/prefixes")
+    public CompletableFuture<ResponseEntity<S3PrefixHeatMapDTO>> getS3PrefixHeatMap(
+            @PathVariable String bucket,
+            @RequestParam(defaultValue = "20") int top,
+            @RequestParam(defaultValue = "size") String sort,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey,
+            @RequestHeader("X-AWS-Region") String region) {
+        if (top < 1 || top > MAX_TOP_PREFIXES || !"size".equals(sort) && !"cold".equals(sort)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return s3Service.getPrefixHeatMap(requestContext.toAccount(), bucket, top, "cold".equals(sort))
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = Futures.unwrap(e);
+                    logger.error("Error building prefix heat map for {}: {}", bucket, cause.getMessage(), cause);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
+    // The k largest and k oldest objects of one bucket, for targeting cleanup without exporting the listing
+    @GetMapping("/buckets/{bucket}/top-objects")
+    public CompletableFuture<ResponseEntity<S3TopObjectsDTO>> getS3TopObjects(
+            @PathVariable String bucket,
+            @RequestParam(defaultValue = "20") int k,
+            @RequestHeader("X-AWS-AccessKey") String accessKey,
+            @RequestHeader("X-AWS-SecretKey") String secretKey,
+            @RequestHeader("X-AWS-Region") String region) {
+        if (k < 1 || k > MAX_TOP_OBJECTS) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return s3Service.getTopObjects(requestContext.toAccount(), bucket, k)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    Throwable cause = Futures.unwrap(e);
+                    logger.error("Error finding top objects for {}: {}", bucket, cause.getMessage(), cause);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
+    @GetMapping("/client-pool/stats")
+    public ResponseEntity<ClientPoolStatsDTO> getClientPoolStats() {
+        return ResponseEntity.ok(clientRegistry.getStats());
+    }
+
+    @GetMapping("/http-pool/stats")
+    public ResponseEntity<Map<String, HttpPoolStatsDTO>> getHttpPoolStats() {
+        return ResponseEntity.ok(httpPoolMetricsPublisher.getStats());
+    }
 
     @PostMapping("/validate")
     public ResponseEntity<?> validateCredentials(@RequestBody AwsCredentialsRequest request) {
-        try {
-            Ec2Client ec2Client = Ec2Client.builder()
-                    .credentialsProvider(StaticCredentialsProvider.create(
-                            AwsBasicCredentials.create(request.getAccessKey(), request.getSecretKey())))
-                    .region(Region.of(request.getRegion()))
-                    .build();
+        // Unverified keys are not pooled; the throwaway client still rides on the shared transport
+        try (Ec2Client ec2Client = Ec2Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(request.getAccessKey(), request.getSecretKey())))
+                .region(Region.of(request.getRegion()))
+                .httpClient(sdkHttpClient)
+                .build()) {
             ec2Client.describeRegions();
             return ResponseEntity.ok().build();
         } catch (Exception e) {
@@ -266,40 +608,48 @@ public class AwsController {
     }
 
     @GetMapping("/saveebs")
-    public ResponseEntity<List<Map<String, Object>>> getVolumeSavings() {
-        try {
-            List<Map<String, Object>> savings = ec2Service.getVolumeSavingsSuggestions();
-            return ResponseEntity.ok(savings);
-        } catch (Exception e) {
-            logger.error("Error retrieving volume savings: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getVolumeSavings() {
+        return ec2Service.getVolumeSavingsSuggestions(requestContext.toAccount())
+                .thenApply(this::jsonArray)
+                .exceptionally(e -> {
+                    logger.error("Error retrieving volume savings: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
     }
 
     @GetMapping("/elastic-ip-savings")
-    public ResponseEntity<List<Map<String, Object>>> getElasticIpSavings() {
-        try {
-            List<Map<String, Object>> savings = ec2Service.getElasticIpSavingsSuggestions();
-            return ResponseEntity.ok(savings);
-        } catch (Exception e) {
-            logger.error("Error retrieving Elastic IP savings: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getElasticIpSavings() {
+        return ec2Service.getElasticIpSavingsSuggestions(requestContext.toAccount())
+                .thenApply(this::jsonArray)
+                .exceptionally(e -> {
+                    logger.error("Error retrieving Elastic IP savings: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
     }
 
 
+    // Consolidated savings over every saved account; credentials come from the store, not headers
+    @GetMapping("/accounts/savings-report")
+    public CompletableFuture<ResponseEntity<SavingsReportDTO>> getSavingsReport() {
+        return accountScanOrchestrator.getSavingsReport()
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error building savings report: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
+    }
+
     @GetMapping("/rds-recommendations")
-    public ResponseEntity<List<RdsRecommendationDTO>> getRdsRecommendations(
+    public CompletableFuture<ResponseEntity<List<RdsRecommendationDTO>>> getRdsRecommendations(
             @RequestHeader("X-AWS-AccessKey") String accessKey,
             @RequestHeader("X-AWS-SecretKey") String secretKey,
             @RequestHeader("X-AWS-Region") String regionHeader) {
-        try {
-            List<RdsRecommendationDTO> recommendations = rdsService.getRdsRecommendations();
-            return ResponseEntity.ok(recommendations);
-        } catch (Exception e) {
-            logger.error("Error retrieving RDS recommendations: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+        return rdsService.getRdsRecommendations(requestContext.toAccount())
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> {
+                    logger.error("Error retrieving RDS recommendations: {}", Futures.unwrap(e).getMessage());
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+                });
     }
 
     @GetMapping("/help-desk")
@@ -312,11 +662,8 @@ public class AwsController {
         String knowledgeBaseId = "KWG4S1N8IX"; // Replace with your actual KB ID
 
         try {
-            BedrockAgentRuntimeClient agentClient = BedrockAgentRuntimeClient.builder()
-                    .credentialsProvider(StaticCredentialsProvider.create(
-                            AwsBasicCredentials.create(accessKey, secretKey)))
-                    .region(Region.AP_SOUTH_1)
-                    .build();
+            BedrockAgentRuntimeClient agentClient = clientRegistry.bedrockAgentRuntimeClient(
+                    new AwsAccount(null, accessKey, secretKey, Region.AP_SOUTH_1.id()));
 
             // Corrected request with required type field
             RetrieveAndGenerateRequest request = RetrieveAndGenerateRequest.builder()
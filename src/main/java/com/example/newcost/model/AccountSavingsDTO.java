@@ -0,0 +1,105 @@
+package com.example.newcost.model;
+
+import java.util.List;
+
+/**
+ * Savings found in one saved account by the multi-account scan. Amounts are USD per month;
+ * a section that failed contributes 0 and is named in {@code errors}.
+ */
+public class AccountSavingsDTO {
+    private String accountName;
+    private String region;
+    private long elapsedMs;
+    private double ebsMonthlySavings;
+    private double elasticIpMonthlySavings;
+    private double rdsMonthlySavings;
+    private double totalMonthlySavings;
+    private int opportunityCount;
+    private List<String> errors;
+
+    public AccountSavingsDTO(String accountName, String region, long elapsedMs,
+                             double ebsMonthlySavings, double elasticIpMonthlySavings, double rdsMonthlySavings,
+                             int opportunityCount, List<String> errors) {
+        this.accountName = accountName;
+        this.region = region;
+        this.elapsedMs = elapsedMs;
+        this.ebsMonthlySavings = ebsMonthlySavings;
+        this.elasticIpMonthlySavings = elasticIpMonthlySavings;
+        this.rdsMonthlySavings = rdsMonthlySavings;
+        this.totalMonthlySavings = ebsMonthlySavings + elasticIpMonthlySavings + rdsMonthlySavings;
+        this.opportunityCount = opportunityCount;
+        this.errors = errors;
+    }
+
+    public String getAccountName() {
+        return accountName;
+    }
+
+    public void setAccountName(String accountName) {
+        this.accountName = accountName;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getEbsMonthlySavings() {
+        return ebsMonthlySavings;
+    }
+
+    public void setEbsMonthlySavings(double ebsMonthlySavings) {
+        this.ebsMonthlySavings = ebsMonthlySavings;
+    }
+
+    public double getElasticIpMonthlySavings() {
+        return elasticIpMonthlySavings;
+    }
+
+    public void setElasticIpMonthlySavings(double elasticIpMonthlySavings) {
+        this.elasticIpMonthlySavings = elasticIpMonthlySavings;
+    }
+
+    public double getRdsMonthlySavings() {
+        return rdsMonthlySavings;
+    }
+
+    public void setRdsMonthlySavings(double rdsMonthlySavings) {
+        this.rdsMonthlySavings = rdsMonthlySavings;
+    }
+
+    public double getTotalMonthlySavings() {
+        return totalMonthlySavings;
+    }
+
+    public void setTotalMonthlySavings(double totalMonthlySavings) {
+        this.totalMonthlySavings = totalMonthlySavings;
+    }
+
+    public int getOpportunityCount() {
+        return opportunityCount;
+    }
+
+    public void setOpportunityCount(int opportunityCount) {
+        this.opportunityCount = opportunityCount;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.newcost.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class CostDataDTO {
     private String estimatedGrandTotal = "0.00";
     private String highestRegionSpend = "0.00";
     private String highestRegionName = "N/A";
     private String highestServiceSpend = "0.00";
     private String highestServiceName = "N/A";
+    private List<String> failedSections = new ArrayList<>(); // e.g. SERVICE, REGION, TOTAL
 
     // Getters and setters
     public String getEstimatedGrandTotal() {
@@ -47,4 +51,16 @@ public class CostDataDTO {
     public void setHighestServiceName(String highestServiceName) {
         this.highestServiceName = highestServiceName;
     }
+
+    public List<String> getFailedSections() {
+        return failedSections;
+    }
+
+    public void setFailedSections(List<String> failedSections) {
+        this.failedSections = failedSections;
+    }
+
+    public boolean isPartial() {
+        return !failedSections.isEmpty();
+    }
 }
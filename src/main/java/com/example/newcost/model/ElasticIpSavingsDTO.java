@@ -0,0 +1,24 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+// JSON names match the map-based /elastic-ip-savings response this replaced; savings in USD per month
+public record ElasticIpSavingsDTO(
+        @JsonProperty("PublicIp") String publicIp,
+        @JsonProperty("AssociationId") String associationId,  // "None" when unassociated
+        @JsonProperty("Reason") String reason,
+        @JsonProperty("PotentialSavingsUSD") double potentialSavings) implements JsonWritable {
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("PublicIp", publicIp);
+        generator.writeStringField("AssociationId", associationId);
+        generator.writeStringField("Reason", reason);
+        generator.writeNumberField("PotentialSavingsUSD", potentialSavings);
+        generator.writeEndObject();
+    }
+}
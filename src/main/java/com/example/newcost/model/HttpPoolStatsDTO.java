@@ -0,0 +1,115 @@
+package com.example.newcost.model;
+
+public class HttpPoolStatsDTO {
+    private String clientName;
+    private int maxConcurrency;
+    private int leasedConcurrency;
+    private int availableConcurrency;
+    private int pendingAcquires;
+    private int peakLeasedConcurrency;
+    private int peakPendingAcquires;
+    private long acquisitions;
+    private long saturatedAcquisitions;
+    private double averageAcquireMillis;
+
+    public HttpPoolStatsDTO(String clientName, int maxConcurrency, int leasedConcurrency,
+                            int availableConcurrency, int pendingAcquires,
+                            int peakLeasedConcurrency, int peakPendingAcquires,
+                            long acquisitions, long saturatedAcquisitions, double averageAcquireMillis) {
+        this.clientName = clientName;
+        this.maxConcurrency = maxConcurrency;
+        this.leasedConcurrency = leasedConcurrency;
+        this.availableConcurrency = availableConcurrency;
+        this.pendingAcquires = pendingAcquires;
+        this.peakLeasedConcurrency = peakLeasedConcurrency;
+        this.peakPendingAcquires = peakPendingAcquires;
+        this.acquisitions = acquisitions;
+        this.saturatedAcquisitions = saturatedAcquisitions;
+        this.averageAcquireMillis = averageAcquireMillis;
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public void setClientName(String clientName) {
+        this.clientName = clientName;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getLeasedConcurrency() {
+        return leasedConcurrency;
+    }
+
+    public void setLeasedConcurrency(int leasedConcurrency) {
+        this.leasedConcurrency = leasedConcurrency;
+    }
+
+    public int getAvailableConcurrency() {
+        return availableConcurrency;
+    }
+
+    public void setAvailableConcurrency(int availableConcurrency) {
+        this.availableConcurrency = availableConcurrency;
+    }
+
+    public int getPendingAcquires() {
+        return pendingAcquires;
+    }
+
+    public void setPendingAcquires(int pendingAcquires) {
+        this.pendingAcquires = pendingAcquires;
+    }
+
+    public int getPeakLeasedConcurrency() {
+        return peakLeasedConcurrency;
+    }
+
+    public void setPeakLeasedConcurrency(int peakLeasedConcurrency) {
+        this.peakLeasedConcurrency = peakLeasedConcurrency;
+    }
+
+    public int getPeakPendingAcquires() {
+        return peakPendingAcquires;
+    }
+
+    public void setPeakPendingAcquires(int peakPendingAcquires) {
+        this.peakPendingAcquires = peakPendingAcquires;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public void setAcquisitions(long acquisitions) {
+        this.acquisitions = acquisitions;
+    }
+
+    public long getSaturatedAcquisitions() {
+        return saturatedAcquisitions;
+    }
+
+    public void setSaturatedAcquisitions(long saturatedAcquisitions) {
+        this.saturatedAcquisitions = saturatedAcquisitions;
+    }
+
+    public double getAverageAcquireMillis() {
+        return averageAcquireMillis;
+    }
+
+    public void setAverageAcquireMillis(double averageAcquireMillis) {
+        this.averageAcquireMillis = averageAcquireMillis;
+    }
+
+    // Share of the pool in use at the last observed call
+    public double getSaturation() {
+        return maxConcurrency == 0 ? 0.0 : (double) leasedConcurrency / maxConcurrency;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * A response element that writes itself to a {@link JsonGenerator} field by field, so large
+ * lists can be streamed without reflection or an intermediate tree. The output must match what
+ * the ObjectMapper produces for the same object; add new implementations to JsonWritableTest.
+ */
+public interface JsonWritable {
+
+    void writeJson(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.example.newcost.model;
+
+import java.util.List;
+
+/**
+ * Merged result of scanning one resource type across every enabled region of an account.
+ * Regions that failed are listed with their error and contribute no items.
+ */
+public class MultiRegionScanDTO<T> {
+    private String resourceType;
+    private long elapsedMs;
+    private int totalCount;
+    private List<String> failedRegions;
+    private List<RegionScanDTO<T>> regions;
+
+    public MultiRegionScanDTO(String resourceType, long elapsedMs, List<RegionScanDTO<T>> regions) {
+        this.resourceType = resourceType;
+        this.elapsedMs = elapsedMs;
+        this.regions = regions;
+        this.totalCount = regions.stream().mapToInt(RegionScanDTO::getCount).sum();
+        this.failedRegions = regions.stream()
+                .filter(region -> region.getError() != null)
+                .map(RegionScanDTO::getRegion)
+                .toList();
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public List<String> getFailedRegions() {
+        return failedRegions;
+    }
+
+    public void setFailedRegions(List<String> failedRegions) {
+        this.failedRegions = failedRegions;
+    }
+
+    public List<RegionScanDTO<T>> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<RegionScanDTO<T>> regions) {
+        this.regions = regions;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.newcost.model;
+
+import java.util.List;
+
+/**
+ * Outcome of one region in an all-regions scan: its resources, or the error that stopped it.
+ */
+public class RegionScanDTO<T> {
+    private String region;
+    private long latencyMs;
+    private int count;
+    private String error;
+    private List<T> items;
+
+    public RegionScanDTO(String region, long latencyMs, List<T> items, String error) {
+        this.region = region;
+        this.latencyMs = latencyMs;
+        this.items = items;
+        this.count = items.size();
+        this.error = error;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public long getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+}
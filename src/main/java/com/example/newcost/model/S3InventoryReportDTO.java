@@ -0,0 +1,14 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+// A bucket analyzed from its S3 Inventory report instead of an object listing
+public record S3InventoryReportDTO(
+        @JsonProperty("manifest") String manifest,
+        @JsonProperty("rows") long rows,
+        @JsonProperty("elapsed_ms") long elapsedMs,
+        @JsonProperty("bucket") S3BucketDTO bucket,
+        @JsonProperty("top_prefixes") List<S3PrefixDTO> topPrefixes) {
+}
@@ -4,6 +4,8 @@ public class S3ObjectDTO {
     private String ObjectName;
     private String lastModified;
     private String eTag;
+    private long size;
+    private String storageClass;
 
     // Constructor
     public S3ObjectDTO(String ObjectName, String lastModified, String eTag) {
@@ -12,6 +14,12 @@ public class S3ObjectDTO {
         this.eTag = eTag;
     }
 
+    public S3ObjectDTO(String ObjectName, String lastModified, String eTag, long size, String storageClass) {
+        this(ObjectName, lastModified, eTag);
+        this.size = size;
+        this.storageClass = storageClass;
+    }
+
     public String getObjectName() {
         return ObjectName;
     }
@@ -45,5 +53,21 @@ public class S3ObjectDTO {
     public void setETag(String eTag) {
         this.eTag = eTag;
     }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getStorageClass() {
+        return storageClass;
+    }
+
+    public void setStorageClass(String storageClass) {
+        this.storageClass = storageClass;
+    }
 }
 
@@ -0,0 +1,15 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// One key prefix of a bucket, rolled up over everything below it; cold data has not been modified for 90 days or more
+public record S3PrefixDTO(
+        @JsonProperty("prefix") String prefix,
+        @JsonProperty("depth") int depth,  // Key segments, e.g. 2 for "logs/2024/"
+        @JsonProperty("size_bytes") long sizeBytes,
+        @JsonProperty("size") String size,
+        @JsonProperty("objects") long objects,
+        @JsonProperty("cold_bytes") long coldBytes,
+        @JsonProperty("cold_share") double coldShare,
+        @JsonProperty("avg_age_days") double averageAgeDays) {  // Byte-weighted; -1 when no age is known
+}
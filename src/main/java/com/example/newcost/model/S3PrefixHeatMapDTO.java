@@ -0,0 +1,20 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Top prefixes of one bucket by size or by cold-data share. Small subtrees are collapsed to
+ * bound memory, so prefix figures can fall short by up to {@code max_undercount_bytes}.
+ */
+public record S3PrefixHeatMapDTO(
+        @JsonProperty("bucket_name") String bucketName,
+        @JsonProperty("region") String region,
+        @JsonProperty("sort") String sort,
+        @JsonProperty("total_bytes") long totalBytes,
+        @JsonProperty("objects") long objects,
+        @JsonProperty("tracked_prefixes") int trackedPrefixes,
+        @JsonProperty("max_undercount_bytes") long maxUndercountBytes,
+        @JsonProperty("prefixes") List<S3PrefixDTO> prefixes) {
+}
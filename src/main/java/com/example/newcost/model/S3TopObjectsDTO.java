@@ -0,0 +1,18 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * The largest and the oldest (least recently modified) objects of one bucket, largest and
+ * oldest first, from a single listing pass over {@code objects} objects.
+ */
+public record S3TopObjectsDTO(
+        @JsonProperty("bucket_name") String bucketName,
+        @JsonProperty("region") String region,
+        @JsonProperty("objects") long objects,
+        @JsonProperty("total_bytes") long totalBytes,
+        @JsonProperty("largest") List<S3ObjectDTO> largest,
+        @JsonProperty("oldest") List<S3ObjectDTO> oldest) {
+}
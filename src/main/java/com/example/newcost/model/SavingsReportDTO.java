@@ -0,0 +1,105 @@
+package com.example.newcost.model;
+
+import java.util.List;
+
+/**
+ * Consolidated savings across every saved account, largest opportunity first.
+ */
+public class SavingsReportDTO {
+    private String generatedAt;
+    private long elapsedMs;
+    private int accountCount;
+    private double ebsMonthlySavings;
+    private double elasticIpMonthlySavings;
+    private double rdsMonthlySavings;
+    private double totalMonthlySavings;
+    private List<String> failedAccounts;
+    private List<AccountSavingsDTO> accounts;
+
+    public SavingsReportDTO(String generatedAt, long elapsedMs, List<AccountSavingsDTO> accounts) {
+        this.generatedAt = generatedAt;
+        this.elapsedMs = elapsedMs;
+        this.accounts = accounts;
+        this.accountCount = accounts.size();
+        this.ebsMonthlySavings = accounts.stream().mapToDouble(AccountSavingsDTO::getEbsMonthlySavings).sum();
+        this.elasticIpMonthlySavings = accounts.stream().mapToDouble(AccountSavingsDTO::getElasticIpMonthlySavings).sum();
+        this.rdsMonthlySavings = accounts.stream().mapToDouble(AccountSavingsDTO::getRdsMonthlySavings).sum();
+        this.totalMonthlySavings = ebsMonthlySavings + elasticIpMonthlySavings + rdsMonthlySavings;
+        this.failedAccounts = accounts.stream()
+                .filter(account -> !account.getErrors().isEmpty())
+                .map(AccountSavingsDTO::getAccountName)
+                .toList();
+    }
+
+    public String getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(String generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    public void setAccountCount(int accountCount) {
+        this.accountCount = accountCount;
+    }
+
+    public double getEbsMonthlySavings() {
+        return ebsMonthlySavings;
+    }
+
+    public void setEbsMonthlySavings(double ebsMonthlySavings) {
+        this.ebsMonthlySavings = ebsMonthlySavings;
+    }
+
+    public double getElasticIpMonthlySavings() {
+        return elasticIpMonthlySavings;
+    }
+
+    public void setElasticIpMonthlySavings(double elasticIpMonthlySavings) {
+        this.elasticIpMonthlySavings = elasticIpMonthlySavings;
+    }
+
+    public double getRdsMonthlySavings() {
+        return rdsMonthlySavings;
+    }
+
+    public void setRdsMonthlySavings(double rdsMonthlySavings) {
+        this.rdsMonthlySavings = rdsMonthlySavings;
+    }
+
+    public double getTotalMonthlySavings() {
+        return totalMonthlySavings;
+    }
+
+    public void setTotalMonthlySavings(double totalMonthlySavings) {
+        this.totalMonthlySavings = totalMonthlySavings;
+    }
+
+    public List<String> getFailedAccounts() {
+        return failedAccounts;
+    }
+
+    public void setFailedAccounts(List<String> failedAccounts) {
+        this.failedAccounts = failedAccounts;
+    }
+
+    public List<AccountSavingsDTO> getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(List<AccountSavingsDTO> accounts) {
+        this.accounts = accounts;
+    }
+}
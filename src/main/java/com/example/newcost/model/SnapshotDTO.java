@@ -0,0 +1,37 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Instant;
+
+// JSON names match the map-based /snapshots response this replaced
+public record SnapshotDTO(
+        @JsonProperty("Name") String name,
+        @JsonProperty("SnapshotId") String snapshotId,
+        @JsonProperty("VolumeSizeGB") Integer volumeSizeGb,  // Original volume size, not actual storage used
+        @JsonProperty("StorageTier") String storageTier,
+        @JsonProperty("Status") String status,
+        @JsonProperty("StartTime") Instant startTime,
+        @JsonProperty("StorageUsedGB") double storageUsedGb) implements JsonWritable {  // -1 when unavailable
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("Name", name);
+        generator.writeStringField("SnapshotId", snapshotId);
+        generator.writeFieldName("VolumeSizeGB");
+        if (volumeSizeGb != null) {
+            generator.writeNumber(volumeSizeGb);
+        } else {
+            generator.writeNull();
+        }
+        generator.writeStringField("StorageTier", storageTier);
+        generator.writeStringField("Status", status);
+        // ISO-8601, as the ObjectMapper writes Instants with WRITE_DATES_AS_TIMESTAMPS off
+        generator.writeStringField("StartTime", startTime != null ? startTime.toString() : null);
+        generator.writeNumberField("StorageUsedGB", storageUsedGb);
+        generator.writeEndObject();
+    }
+}
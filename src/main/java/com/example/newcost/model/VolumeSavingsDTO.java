@@ -1,42 +1,30 @@
 package com.example.newcost.model;
 
-public class VolumeSavingsDTO {
-
-    private String volumeId;
-    private String reason;
-
-    public String getVolumeId() {
-        return volumeId;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+// JSON names match the map-based /saveebs response this replaced; amounts are USD per month
+public record VolumeSavingsDTO(
+        @JsonProperty("VolumeId") String volumeId,
+        @JsonProperty("SizeGB") int sizeGb,
+        @JsonProperty("VolumeType") String volumeType,
+        @JsonProperty("Rule") String rule,  // Rule that produced the suggestion, e.g. "idle-attached"
+        @JsonProperty("Reason") String reason,
+        @JsonProperty("MonthlyCostUSD") double monthlyCost,
+        @JsonProperty("PotentialSavingsUSD") double potentialSavings) implements JsonWritable {
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("VolumeId", volumeId);
+        generator.writeNumberField("SizeGB", sizeGb);
+        generator.writeStringField("VolumeType", volumeType);
+        generator.writeStringField("Rule", rule);
+        generator.writeStringField("Reason", reason);
+        generator.writeNumberField("MonthlyCostUSD", monthlyCost);
+        generator.writeNumberField("PotentialSavingsUSD", potentialSavings);
+        generator.writeEndObject();
     }
-
-    public void setVolumeId(String volumeId) {
-        this.volumeId = volumeId;
-    }
-
-    public String getReason() {
-        return reason;
-    }
-
-    public void setReason(String reason) {
-        this.reason = reason;
-    }
-
-    public double getMonthlyCost() {
-        return monthlyCost;
-    }
-
-    public void setMonthlyCost(double monthlyCost) {
-        this.monthlyCost = monthlyCost;
-    }
-
-    public double getPotentialSavings() {
-        return potentialSavings;
-    }
-
-    public void setPotentialSavings(double potentialSavings) {
-        this.potentialSavings = potentialSavings;
-    }
-
-    private double monthlyCost;
-    private double potentialSavings;
 }
@@ -0,0 +1,224 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.model.AccountSavingsDTO;
+import com.example.newcost.model.AwsCredentialsRequest;
+import com.example.newcost.model.ElasticIpSavingsDTO;
+import com.example.newcost.model.RdsRecommendationDTO;
+import com.example.newcost.model.SavingsReportDTO;
+import com.example.newcost.model.VolumeSavingsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Scans every account saved in {@code acctrepo} (in its saved region) and consolidates the
+ * EBS, Elastic IP and RDS savings into one report.
+ * <p>
+ * Accounts are scanned in parallel, at most {@code aws.account-scan.max-concurrent-accounts}
+ * at a time. Each account is its own bulkhead: its AWS work (the EBS and Elastic IP lookups,
+ * the RDS listing and each per-instance RDS lookup) goes through a per-account permit queue of
+ * {@code aws.account-scan.per-account-concurrency}, and the whole account has one deadline of
+ * {@code aws.account-scan.account-timeout-seconds}, so a throttled or slow account only delays
+ * itself. Sections still running at the deadline are reported as timed out; the account keeps
+ * its slot until that work has actually finished. Failed sections are reported on the account
+ * instead of failing the report.
+ */
+@Service
+public class AccountScanOrchestrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountScanOrchestrator.class);
+
+    private static final double HOURS_PER_MONTH = 730;
+
+    private final AwsCredentialService credentialService;
+    private final Ec2Service ec2Service;
+    private final RdsService rdsService;
+    private final Executor scanExecutor;
+    private final AsyncPermits accountPermits;
+    private final KeyedPermits bulkheads;
+    private final long accountTimeoutSeconds;
+
+    public AccountScanOrchestrator(AwsCredentialService credentialService,
+                                   Ec2Service ec2Service,
+                                   RdsService rdsService,
+                                   @Qualifier("scanExecutor") Executor scanExecutor,
+                                   @Value("${aws.account-scan.max-concurrent-accounts:8}") int maxConcurrentAccounts,
+                                   @Value("${aws.account-scan.per-account-concurrency:2}") int perAccountConcurrency,
+                                   @Value("${aws.account-scan.account-timeout-seconds:120}") long accountTimeoutSeconds) {
+        this.credentialService = credentialService;
+        this.ec2Service = ec2Service;
+        this.rdsService = rdsService;
+        this.scanExecutor = scanExecutor;
+        this.accountPermits = new AsyncPermits(maxConcurrentAccounts);
+        this.bulkheads = new KeyedPermits(perAccountConcurrency);
+        this.accountTimeoutSeconds = accountTimeoutSeconds;
+    }
+
+    public CompletableFuture<SavingsReportDTO> getSavingsReport() {
+        long start = System.nanoTime();
+        // The repository call blocks, so it runs on the scan executor rather than the caller
+        return CompletableFuture.supplyAsync(credentialService::getAllAccounts, scanExecutor)
+                .thenCompose(saved -> Futures.allOf(saved.stream()
+                        .map(this::scanAccount)
+                        .collect(Collectors.toList())))
+                .thenApply(accounts -> {
+                    List<AccountSavingsDTO> sorted = accounts.stream()
+                            .sorted(Comparator.comparingDouble(AccountSavingsDTO::getTotalMonthlySavings).reversed())
+                            .collect(Collectors.toList());
+                    SavingsReportDTO report = new SavingsReportDTO(Instant.now().toString(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), sorted);
+                    logger.info("Savings report over {} accounts in {} ms: {} USD/month, failed: {}",
+                            report.getAccountCount(), report.getElapsedMs(),
+                            String.format("%.2f", report.getTotalMonthlySavings()), report.getFailedAccounts());
+                    return report;
+                });
+    }
+
+    // The account's slot is held until all of its AWS work has finished, even after its deadline
+    private CompletableFuture<AccountSavingsDTO> scanAccount(AwsCredentialsRequest credential) {
+        CompletableFuture<AccountSavingsDTO> result = new CompletableFuture<>();
+        accountPermits.submit(() -> {
+            AccountScan scan = startAccount(credential);
+            scan.result().whenComplete((savings, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(savings);
+                }
+            });
+            return scan.work();
+        }).whenComplete((ignored, error) -> {
+            // Only a synchronous failure starting the scan gets here; work() itself never fails
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    private AccountScan startAccount(AwsCredentialsRequest credential) {
+        long start = System.nanoTime();
+        AwsAccount account = new AwsAccount(credential.getAccountName(), credential.getAccessKey(),
+                credential.getSecretKey(), credential.getRegion());
+        String fingerprint = account.getFingerprint();
+        AsyncPermits bulkhead = bulkheads.acquire(fingerprint);
+        CompletableFuture<Void> deadline = new CompletableFuture<Void>()
+                .completeOnTimeout(null, accountTimeoutSeconds, TimeUnit.SECONDS);
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        int[] opportunities = new int[3];
+
+        CompletableFuture<Double> ebsWork = bulkhead.submit(() -> ec2Service.getVolumeSavingsSuggestions(account))
+                .thenApply(suggestions -> {
+                    opportunities[0] = (int) suggestions.stream().filter(suggestion -> suggestion.potentialSavings() > 0).count();
+                    return suggestions.stream().mapToDouble(VolumeSavingsDTO::potentialSavings).sum();
+                });
+        CompletableFuture<Double> elasticIpWork = bulkhead.submit(() -> ec2Service.getElasticIpSavingsSuggestions(account))
+                .thenApply(suggestions -> {
+                    opportunities[1] = (int) suggestions.stream().filter(suggestion -> suggestion.potentialSavings() > 0).count();
+                    return suggestions.stream().mapToDouble(ElasticIpSavingsDTO::potentialSavings).sum();
+                });
+        // Not itself under the bulkhead: its listing and per-instance lookups each take a permit
+        CompletableFuture<Double> rdsWork = Futures.defer(() -> rdsService.getRdsRecommendations(account, bulkhead))
+                .thenApply(recommendations -> {
+                    double savings = 0.0;
+                    for (RdsRecommendationDTO recommendation : recommendations) {
+                        double monthly = rdsMonthlySavings(recommendation);
+                        if (monthly > 0) {
+                            savings += monthly;
+                            opportunities[2]++;
+                        }
+                    }
+                    return savings;
+                });
+
+        CompletableFuture<Void> work = CompletableFuture.allOf(ebsWork, elasticIpWork, rdsWork)
+                .handle((ignored, error) -> {
+                    deadline.cancel(false);
+                    bulkheads.release(fingerprint);
+                    return null;
+                });
+
+        CompletableFuture<Double> ebs = section(account, "EBS", errors, ebsWork, deadline);
+        CompletableFuture<Double> elasticIps = section(account, "Elastic IP", errors, elasticIpWork, deadline);
+        CompletableFuture<Double> rds = section(account, "RDS", errors, rdsWork, deadline);
+        CompletableFuture<AccountSavingsDTO> result = CompletableFuture.allOf(ebs, elasticIps, rds)
+                .thenApply(ignored -> new AccountSavingsDTO(
+                        credential.getAccountName(),
+                        credential.getRegion(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        round(ebs.join()),
+                        round(elasticIps.join()),
+                        round(rds.join()),
+                        opportunities[0] + opportunities[1] + opportunities[2],
+                        List.copyOf(errors)));
+        return new AccountScan(result, work);
+    }
+
+    // One section of an account's scan; failures and sections cut off by the deadline become 0 plus an error entry
+    private CompletableFuture<Double> section(AwsAccount account, String name, Queue<String> errors,
+                                              CompletableFuture<Double> work, CompletableFuture<Void> deadline) {
+        CompletableFuture<Double> view = new CompletableFuture<>();
+        work.whenComplete((value, error) -> {
+            if (error != null) {
+                view.completeExceptionally(error);
+            } else {
+                view.complete(value);
+            }
+        });
+        deadline.thenRun(() -> view.completeExceptionally(
+                new TimeoutException("Account scan exceeded " + accountTimeoutSeconds + " s")));
+        return view.exceptionally(e -> {
+            String message = Futures.message(e);
+            logger.warn("{} savings scan failed for {}: {}", name, account, message);
+            errors.add(name + ": " + message);
+            return 0.0;
+        });
+    }
+
+    // Downsizing an underutilized instance; upsizing is a cost, not a saving
+    private double rdsMonthlySavings(RdsRecommendationDTO recommendation) {
+        double current = parseAmount(recommendation.getCurrentOndemandPrice());
+        double recommended = parseAmount(recommendation.getRecommendedOndemandPrice());
+        if (current <= 0 || recommended <= 0) {
+            return 0.0;
+        }
+        return Math.max(0.0, (current - recommended) * HOURS_PER_MONTH);
+    }
+
+    // RDS prices are String.format output, which follows the default locale
+    private double parseAmount(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value == null) {
+            return 0.0;
+        }
+        try {
+            return Double.parseDouble(value.toString().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    private double round(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    // result completes by the deadline; work completes when every AWS call of the account has finished
+    private record AccountScan(CompletableFuture<AccountSavingsDTO> result, CompletableFuture<Void> work) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.newcost.service;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Async counting semaphore used as a bulkhead around AWS calls: at most {@code limit} tasks
+ * are in flight, the rest wait in FIFO order and start as soon as a running one completes,
+ * without parking a thread.
+ * <p>
+ * Waiting tasks are started by a loop in whichever thread frees a permit. A task that completes
+ * while that loop is running only gives its permit back, so a queue of tasks whose futures are
+ * already complete (cached answers, files already on disk) is drained iteratively rather than
+ * one stack frame deeper per task.
+ */
+final class AsyncPermits {
+
+    private final int limit;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+    private boolean draining;
+
+    AsyncPermits(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            Futures.defer(task).whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        boolean runNow;
+        synchronized (this) {
+            // Queued tasks go first; a non-empty queue with a free permit is being drained right now
+            runNow = running < limit && waiting.isEmpty();
+            if (runNow) {
+                running++;
+            } else {
+                waiting.add(start);
+            }
+        }
+        if (runNow) {
+            start.run();
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #submit(Supplier)}, but the returned future fails with a TimeoutException once
+     * the task has run for {@code timeout}. The permit stays held until the task's own future
+     * completes, so work that outlives its deadline still counts against the limit.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task, long timeout, TimeUnit unit) {
+        CompletableFuture<T> deadline = new CompletableFuture<>();
+        submit(() -> {
+            deadline.orTimeout(timeout, unit);
+            return task.get();
+        }).whenComplete((value, error) -> {
+            if (error != null) {
+                deadline.completeExceptionally(error);
+            } else {
+                deadline.complete(value);
+            }
+        });
+        return deadline;
+    }
+
+    // Nothing running or waiting
+    synchronized boolean isIdle() {
+        return running == 0;
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (running >= limit || waiting.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                next = waiting.poll();
+                running++;
+            }
+            next.run();
+        }
+    }
+}
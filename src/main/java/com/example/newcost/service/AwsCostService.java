@@ -2,21 +2,43 @@ package com.example.newcost.service;
 
 import com.amazonaws.services.costexplorer.AWSCostExplorer;
 import com.amazonaws.services.costexplorer.model.*;
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.ChartDataDTO;
 import com.example.newcost.model.CostDataDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.YearMonth;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 @Service
 public class AwsCostService {
-    private final AWSCostExplorer costExplorer;
+    private final AwsClientRegistry clientRegistry;
+    private final CostDataCache costDataCache;
+    private final CostTimeSeriesStore costTimeSeriesStore;
+    private final DailyCostIngester dailyCostIngester;
+    private final Executor scanExecutor;
+    private final long callTimeoutMs;
+    private final ObjectMapper objectMapper;
     private static final Logger logger = LoggerFactory.getLogger(AwsCostService.class);
 
     private static final Set<String> EC2_SERVICES = Set.of(
@@ -27,99 +49,264 @@ public class AwsCostService {
             "Amazon EC2 Systems Manager"
     );
 
+    private static final Set<String> GROUP_BY_DIMENSIONS = Set.of(
+            "SERVICE", "REGION", "USAGE_TYPE", "LINKED_ACCOUNT", "INSTANCE_TYPE", "OPERATION", "PURCHASE_TYPE"
+    );
+
     @Autowired
-    public AwsCostService(AWSCostExplorer costExplorer) {
-        this.costExplorer = costExplorer;
+    public AwsCostService(AwsClientRegistry clientRegistry,
+                          CostDataCache costDataCache,
+                          CostTimeSeriesStore costTimeSeriesStore,
+                          DailyCostIngester dailyCostIngester,
+                          @Qualifier("scanExecutor") Executor scanExecutor,
+                          @Value("${aws.cost-explorer.call-timeout-ms:10000}") long callTimeoutMs,
+                          ObjectMapper objectMapper) {
+        this.clientRegistry = clientRegistry;
+        this.costDataCache = costDataCache;
+        this.costTimeSeriesStore = costTimeSeriesStore;
+        this.dailyCostIngester = dailyCostIngester;
+        this.scanExecutor = scanExecutor;
+        this.callTimeoutMs = callTimeoutMs;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Cost summary for one month, served from {@link CostDataCache} when possible.
+     */
+    public CompletableFuture<CostDataDTO> getCostData(AwsAccount account, int month, int year) {
+        return costDataCache.get(account, year, month, () -> fetchCostData(account, month, year));
+    }
+
+    /**
+     * Longest trend the store can answer, since the first ingest only backfills this far.
+     */
+    public int getMaxTrendMonths() {
+        return dailyCostIngester.getBackfillMonths();
     }
 
-    public CostDataDTO getCostData(int month, int year) {
+    /**
+     * Daily cost for the last {@code months} months, answered from the local time-series store.
+     * An account without stored data gets an ingest started and an empty result until it lands.
+     */
+    public Optional<ChartDataDTO> getDailyCostTrend(AwsAccount account, int months, String service, String region) {
+        if (months < 1 || months > getMaxTrendMonths()) {
+            throw new IllegalArgumentException("months must be between 1 and " + getMaxTrendMonths());
+        }
+        dailyCostIngester.ingestIfMissing(account);
+        if (dailyCostIngester.isAwaitingFirstIngest(account)) {
+            return Optional.empty();
+        }
+
+        LocalDate to = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        LocalDate from = to.minusMonths(months);
+        double[] totals = costTimeSeriesStore.dailyTotals(account, from, to, service, region);
+
+        List<String> labels = new ArrayList<>(totals.length);
+        List<Double> values = new ArrayList<>(totals.length);
+        for (int day = 0; day < totals.length; day++) {
+            labels.add(from.plusDays(day).toString());
+            values.add(round(totals[day]));
+        }
+        return Optional.of(new ChartDataDTO(labels, values));
+    }
+
+    /**
+     * Runs the SERVICE and REGION breakdowns concurrently, each following every page. The grand
+     * total is the sum of the SERVICE groups, so the separate total query is only sent when that
+     * breakdown fails. Sections that fail or time out are listed in
+     * {@link CostDataDTO#getFailedSections()}.
+     */
+    private CompletableFuture<CostDataDTO> fetchCostData(AwsAccount account, int month, int year) {
         CostDataDTO costData = new CostDataDTO();
+        Queue<String> failedSections = new ConcurrentLinkedQueue<>();
 
-        try {
-            // Use UTC for date calculations to match AWS console
-            YearMonth yearMonth = YearMonth.of(year, month);
-            LocalDate firstDayOfMonth = yearMonth.atDay(1);
-            LocalDate lastDayOfMonth = yearMonth.atEndOfMonth().plusDays(1);;
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-            // 1. Get total cost using AmortizedCost to match AWS UI
-            GetCostAndUsageRequest totalRequest = new GetCostAndUsageRequest()
-                    .withTimePeriod(new DateInterval()
-                            .withStart(firstDayOfMonth.format(formatter))
-                            .withEnd(lastDayOfMonth.format(formatter)))
-                    .withGranularity("MONTHLY")
-                    .withMetrics("AmortizedCost"); // Changed to match AWS UI
-
-            GetCostAndUsageResult totalResponse = costExplorer.getCostAndUsage(totalRequest);
-            if (!totalResponse.getResultsByTime().isEmpty()) {
-                ResultByTime result = totalResponse.getResultsByTime().get(0);
-                if (result.getTotal() != null && result.getTotal().get("AmortizedCost") != null) {
-                    costData.setEstimatedGrandTotal(formatAmount(result.getTotal().get("AmortizedCost").getAmount()));
+        // Use UTC for date calculations to match AWS console
+        YearMonth yearMonth = YearMonth.of(year, month);
+        DateInterval period = toInterval(yearMonth, yearMonth);
+
+        // The request-scoped proxy is not usable from worker threads, so resolve the client here
+        AWSCostExplorer costExplorer = clientRegistry.costExplorer(account);
+
+        // 1. Costs grouped by service, which also yields the grand total
+        CompletableFuture<Void> serviceSection = query(costExplorer, period, "SERVICE", this::normalizeServiceName)
+                .thenAccept(services -> {
+                    costData.setEstimatedGrandTotal(formatAmount(String.valueOf(services.total(0))));
+                    int highest = services.max(0);
+                    if (highest >= 0) {
+                        costData.setHighestServiceSpend(formatAmount(String.valueOf(services.amount(highest, 0))));
+                        costData.setHighestServiceName(services.key(highest));
+                    }
+                })
+                .exceptionally(e -> {
+                    failedSections.add("SERVICE");
+                    logger.error("Error fetching service costs for {}-{}: {}", month, year, Futures.unwrap(e).getMessage());
+                    return null;
+                })
+                .thenCompose(ignored -> failedSections.contains("SERVICE")
+                        ? fetchTotal(costExplorer, period, costData, failedSections)
+                        : CompletableFuture.completedFuture(null));
+
+        // 2. Region costs, concurrently with the service breakdown
+        CompletableFuture<Void> regionSection = query(costExplorer, period, "REGION", key -> key)
+                .thenAccept(regions -> {
+                    int highest = regions.max(0);
+                    if (highest >= 0) {
+                        costData.setHighestRegionSpend(formatAmount(String.valueOf(regions.amount(highest, 0))));
+                        costData.setHighestRegionName(
+                                regions.key(highest).equals("ap-south-1") ?
+                                        "AP South (Mumbai)" : regions.key(highest));
+                    }
+                })
+                .exceptionally(e -> {
+                    failedSections.add("REGION");
+                    logger.error("Error fetching region costs for {}-{}: {}", month, year, Futures.unwrap(e).getMessage());
+                    return null;
+                });
+
+        return CompletableFuture.allOf(serviceSection, regionSection)
+                .thenApply(ignored -> {
+                    costData.setFailedSections(new ArrayList<>(failedSections));
+                    return costData;
+                });
+    }
+
+    public boolean supportsGroupBy(String groupBy) {
+        return GROUP_BY_DIMENSIONS.contains(groupBy);
+    }
+
+    /**
+     * Writes monthly cost from {@code start} to {@code end} (inclusive) grouped by
+     * {@code groupBy} as NDJSON, one line per month with its groups sorted by amount. Every
+     * result page is folded into primitive accumulators and dropped before the next is fetched.
+     */
+    public void writeCostRange(AwsAccount account, YearMonth start, YearMonth end, String groupBy,
+                               OutputStream out) throws IOException {
+        if (!GROUP_BY_DIMENSIONS.contains(groupBy)) {
+            throw new IllegalArgumentException("Unsupported group-by dimension: " + groupBy);
+        }
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("start must not be after end");
+        }
+        int months = (int) ChronoUnit.MONTHS.between(start, end) + 1;
+        CostAccumulator accumulator = new CostAccumulator(months);
+        forEachPage(clientRegistry.costExplorer(account), monthlyRequest(toInterval(start, end), groupBy),
+                page -> accumulate(accumulator, page, start));
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            Integer[] order = new Integer[accumulator.size()];
+            for (int period = 0; period < months; period++) {
+                int month = period;
+                for (int index = 0; index < order.length; index++) {
+                    order[index] = index;
                 }
-            }
+                Arrays.sort(order, (a, b) -> Double.compare(accumulator.amount(b, month), accumulator.amount(a, month)));
 
-            // 2. Get costs grouped by service with AmortizedCost
-            GetCostAndUsageRequest serviceRequest = new GetCostAndUsageRequest()
-                    .withTimePeriod(new DateInterval()
-                            .withStart(firstDayOfMonth.format(formatter))
-                            .withEnd(lastDayOfMonth.format(formatter)))
-                    .withGranularity("MONTHLY")
-                    .withMetrics("AmortizedCost") // Changed to match AWS UI
-                    .withGroupBy(new GroupDefinition()
-                            .withType("DIMENSION")
-                            .withKey("SERVICE"));
-
-            GetCostAndUsageResult serviceResponse = costExplorer.getCostAndUsage(serviceRequest);
-            if (!serviceResponse.getResultsByTime().isEmpty()) {
-                ResultByTime result = serviceResponse.getResultsByTime().get(0);
-
-                // Group all EC2-related costs exactly like AWS UI
-                Map<String, Double> serviceCosts = result.getGroups().stream()
-                        .collect(Collectors.groupingBy(
-                                g -> normalizeServiceName(g.getKeys().get(0)),
-                                Collectors.summingDouble(g -> Double.parseDouble(g.getMetrics().get("AmortizedCost").getAmount()))
-                        ));
-
-                Map.Entry<String, Double> maxEntry = serviceCosts.entrySet().stream()
-                        .max(Map.Entry.comparingByValue())
-                        .orElse(null);
-
-                if (maxEntry != null) {
-                    costData.setHighestServiceSpend(formatAmount(String.valueOf(maxEntry.getValue())));
-                    costData.setHighestServiceName(maxEntry.getKey());
+                generator.writeStartObject();
+                generator.writeStringField("month", start.plusMonths(period).toString());
+                generator.writeNumberField("total", round(accumulator.total(period)));
+                generator.writeArrayFieldStart("groups");
+                for (int index : order) {
+                    double amount = accumulator.amount(index, period);
+                    if (amount == 0.0) {
+                        continue;
+                    }
+                    generator.writeStartObject();
+                    generator.writeStringField("key", accumulator.key(index));
+                    generator.writeNumberField("amount", round(amount));
+                    generator.writeEndObject();
                 }
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                generator.flush();
             }
+        }
+    }
 
-            // 3. Get region costs with AmortizedCost
-            GetCostAndUsageRequest regionRequest = new GetCostAndUsageRequest()
-                    .withTimePeriod(new DateInterval()
-                            .withStart(firstDayOfMonth.format(formatter))
-                            .withEnd(lastDayOfMonth.format(formatter)))
-                    .withGranularity("MONTHLY")
-                    .withMetrics("AmortizedCost") // Changed to match AWS UI
-                    .withGroupBy(new GroupDefinition()
-                            .withType("DIMENSION")
-                            .withKey("REGION"));
-
-            GetCostAndUsageResult regionResponse = costExplorer.getCostAndUsage(regionRequest);
-            if (!regionResponse.getResultsByTime().isEmpty()) {
-                ResultByTime result = regionResponse.getResultsByTime().get(0);
-                result.getGroups().stream()
-                        .max(Comparator.comparingDouble(g ->
-                                Double.parseDouble(g.getMetrics().get("AmortizedCost").getAmount())))
-                        .ifPresent(g -> {
-                            costData.setHighestRegionSpend(formatAmount(g.getMetrics().get("AmortizedCost").getAmount()));
-                            costData.setHighestRegionName(
-                                    g.getKeys().get(0).equals("ap-south-1") ?
-                                            "AP South (Mumbai)" : g.getKeys().get(0));
-                        });
-            }
+    private DateInterval toInterval(YearMonth start, YearMonth end) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        return new DateInterval()
+                .withStart(start.atDay(1).format(formatter))
+                .withEnd(end.atEndOfMonth().plusDays(1).format(formatter));
+    }
+
+    private GetCostAndUsageRequest monthlyRequest(DateInterval period, String groupByDimension) {
+        GetCostAndUsageRequest request = new GetCostAndUsageRequest()
+                .withTimePeriod(period)
+                .withGranularity("MONTHLY")
+                .withMetrics("AmortizedCost"); // Changed to match AWS UI
+        if (groupByDimension != null) {
+            request.withGroupBy(new GroupDefinition()
+                    .withType("DIMENSION")
+                    .withKey(groupByDimension));
+        }
+        return request;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error fetching cost data for {}-{}: {}", month, year, e.getMessage(), e);
+    /**
+     * Sends {@code request} and every follow-up page, handing each page to {@code pageConsumer}.
+     */
+    private void forEachPage(AWSCostExplorer costExplorer, GetCostAndUsageRequest request,
+                             Consumer<GetCostAndUsageResult> pageConsumer) {
+        String nextPageToken = null;
+        do {
+            GetCostAndUsageResult page = costExplorer.getCostAndUsage(request.withNextPageToken(nextPageToken));
+            pageConsumer.accept(page);
+            nextPageToken = page.getNextPageToken();
+        } while (nextPageToken != null);
+    }
+
+    private void accumulate(CostAccumulator accumulator, GetCostAndUsageResult page, YearMonth start) {
+        for (ResultByTime result : page.getResultsByTime()) {
+            int period = (int) ChronoUnit.MONTHS.between(start, YearMonth.from(LocalDate.parse(result.getTimePeriod().getStart())));
+            for (Group group : result.getGroups()) {
+                accumulator.add(group.getKeys().get(0), period,
+                        Double.parseDouble(group.getMetrics().get("AmortizedCost").getAmount()));
+            }
         }
+    }
+
+    private CompletableFuture<CostAccumulator> query(AWSCostExplorer costExplorer, DateInterval period,
+                                                     String groupByDimension, UnaryOperator<String> keyMapper) {
+        GetCostAndUsageRequest request = monthlyRequest(period, groupByDimension);
+        return CompletableFuture.supplyAsync(() -> {
+                    CostAccumulator accumulator = new CostAccumulator(1);
+                    forEachPage(costExplorer, request, page -> {
+                        for (ResultByTime result : page.getResultsByTime()) {
+                            for (Group group : result.getGroups()) {
+                                accumulator.add(keyMapper.apply(group.getKeys().get(0)), 0,
+                                        Double.parseDouble(group.getMetrics().get("AmortizedCost").getAmount()));
+                            }
+                        }
+                    });
+                    return accumulator;
+                }, scanExecutor)
+                .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private CompletableFuture<Void> fetchTotal(AWSCostExplorer costExplorer, DateInterval period,
+                                               CostDataDTO costData, Queue<String> failedSections) {
+        GetCostAndUsageRequest request = monthlyRequest(period, null);
+        return CompletableFuture.supplyAsync(() -> costExplorer.getCostAndUsage(request), scanExecutor)
+                .orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS)
+                .thenAccept(totalResponse -> {
+                    if (!totalResponse.getResultsByTime().isEmpty()) {
+                        ResultByTime result = totalResponse.getResultsByTime().get(0);
+                        if (result.getTotal() != null && result.getTotal().get("AmortizedCost") != null) {
+                            costData.setEstimatedGrandTotal(formatAmount(result.getTotal().get("AmortizedCost").getAmount()));
+                        }
+                    }
+                })
+                .exceptionally(e -> {
+                    failedSections.add("TOTAL");
+                    logger.error("Error fetching total cost: {}", Futures.unwrap(e).getMessage());
+                    return null;
+                });
+    }
 
-        return costData;
+    private double round(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
     }
 
     private String normalizeServiceName(String awsServiceName) {
@@ -146,4 +333,4 @@ public class AwsCostService {
             return amount;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.example.newcost.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code k} greatest items of a stream under {@code order}, kept in a min-heap of at most
+ * {@code k} entries: each new item only has to beat the smallest one kept, so memory is O(k)
+ * however many items are offered and a full pass costs O(n log k).
+ */
+final class BoundedTopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    BoundedTopK(int k, Comparator<? super T> order) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(k, order);
+    }
+
+    void offer(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    // Greatest first
+    List<T> sorted() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.newcost.service;
+
+/**
+ * Storage histogram of one bucket: bytes and object counts per {@link S3StorageClass}, and,
+ * when filled from a listing, bytes per class and object age. Everything is kept in flat
+ * primitive arrays, so a listing of any size is folded in without allocating per object.
+ * <p>
+ * Ages are bucketed at {@link #AGE_LIMITS_DAYS}: under 30 days, 30-89, 90-179, 180-364 and
+ * 365 or more. CloudWatch storage metrics carry neither per-class counts nor ages, and an
+ * inventory row without a usable LastModifiedDate adds an object of unknown age.
+ */
+public final class BucketStorage {
+
+    public static final int[] AGE_LIMITS_DAYS = {30, 90, 180, 365};
+
+    private static final S3StorageClass[] CLASSES = S3StorageClass.values();
+    private static final int AGE_BUCKETS = AGE_LIMITS_DAYS.length + 1;
+
+    private final long[] bytes = new long[CLASSES.length];
+    private final long[] counts = new long[CLASSES.length];
+    // [class * AGE_BUCKETS + age bucket]
+    private final long[] ageBytes = new long[CLASSES.length * AGE_BUCKETS];
+    private long objectCount = -1;
+    private boolean aged;
+    private long unknownAgeObjects;
+
+    public void add(S3StorageClass storageClass, long size) {
+        bytes[storageClass.ordinal()] += size;
+    }
+
+    // One listed object; ageDays is whole days since it was last modified, or -1 when unknown
+    public void addObject(S3StorageClass storageClass, long size, long ageDays) {
+        int index = storageClass.ordinal();
+        bytes[index] += size;
+        counts[index]++;
+        objectCount = Math.max(objectCount, 0) + 1;
+        if (ageDays < 0) {
+            unknownAgeObjects++;
+            return;
+        }
+        ageBytes[index * AGE_BUCKETS + ageBucket(ageDays)] += size;
+        aged = true;
+    }
+
+    public long bytes(S3StorageClass storageClass) {
+        return bytes[storageClass.ordinal()];
+    }
+
+    // Objects of this class; 0 when only storage metrics were available
+    public long count(S3StorageClass storageClass) {
+        return counts[storageClass.ordinal()];
+    }
+
+    public long totalBytes() {
+        long total = 0;
+        for (long classBytes : bytes) {
+            total += classBytes;
+        }
+        return total;
+    }
+
+    public long objectCount() {
+        return objectCount;
+    }
+
+    public void setObjectCount(long objectCount) {
+        this.objectCount = objectCount;
+    }
+
+    // True only when every object's age is known; the age histogram is then complete
+    public boolean hasAges() {
+        return aged && unknownAgeObjects == 0;
+    }
+
+    public long unknownAgeObjects() {
+        return unknownAgeObjects;
+    }
+
+    /**
+     * Bytes of this class last modified at least {@code days} ago; {@code days} must be one of
+     * {@link #AGE_LIMITS_DAYS} (or 0 for all of them).
+     */
+    public long bytesOlderThan(S3StorageClass storageClass, int days) {
+        int from = days == 0 ? 0 : ageBucket(days);
+        long total = 0;
+        for (int bucket = from; bucket < AGE_BUCKETS; bucket++) {
+            total += ageBytes[storageClass.ordinal() * AGE_BUCKETS + bucket];
+        }
+        return total;
+    }
+
+    // The class holding the most bytes; STANDARD for an empty bucket
+    public S3StorageClass dominantClass() {
+        int dominant = 0;
+        for (int i = 1; i < bytes.length; i++) {
+            if (bytes[i] > bytes[dominant]) {
+                dominant = i;
+            }
+        }
+        return CLASSES[dominant];
+    }
+
+    private static int ageBucket(long ageDays) {
+        int bucket = 0;
+        while (bucket < AGE_LIMITS_DAYS.length && ageDays >= AGE_LIMITS_DAYS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+}
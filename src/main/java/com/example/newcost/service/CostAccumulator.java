@@ -0,0 +1,72 @@
+package com.example.newcost.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sums Cost Explorer group amounts per (key, period) into one flat double array, so pages can
+ * be folded in and dropped as they arrive instead of keeping every {@code Group} around.
+ * Not thread-safe; each query owns its accumulator.
+ */
+final class CostAccumulator {
+
+    private final int periods;
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    // Row-major: amounts[key * periods + period]
+    private double[] amounts;
+
+    CostAccumulator(int periods) {
+        this.periods = periods;
+        this.amounts = new double[periods * 16];
+    }
+
+    void add(String key, int period, double amount) {
+        Integer index = keyIndex.get(key);
+        if (index == null) {
+            index = keys.size();
+            keyIndex.put(key, index);
+            keys.add(key);
+            if ((index + 1) * periods > amounts.length) {
+                amounts = Arrays.copyOf(amounts, amounts.length * 2);
+            }
+        }
+        amounts[index * periods + period] += amount;
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    String key(int index) {
+        return keys.get(index);
+    }
+
+    double amount(int index, int period) {
+        return amounts[index * periods + period];
+    }
+
+    double total(int period) {
+        double total = 0.0;
+        for (int index = 0; index < keys.size(); index++) {
+            total += amounts[index * periods + period];
+        }
+        return total;
+    }
+
+    /**
+     * Index of the key with the highest amount in {@code period}, or -1 when empty.
+     */
+    int max(int period) {
+        int best = -1;
+        for (int index = 0; index < keys.size(); index++) {
+            if (best < 0 || amounts[index * periods + period] > amounts[best * periods + period]) {
+                best = index;
+            }
+        }
+        return best;
+    }
+}
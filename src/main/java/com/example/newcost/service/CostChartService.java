@@ -0,0 +1,76 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.model.ChartDataDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link ChartDataDTO} series from the local daily cost store, downsampled with
+ * {@link Lttb} to the point budget the chart can draw. Results are cached per
+ * (account, series, range, resolution) and rebuilt as soon as a newer ingest lands.
+ */
+@Service
+public class CostChartService {
+
+    private final CostTimeSeriesStore costTimeSeriesStore;
+    private final DailyCostIngester dailyCostIngester;
+    private final Map<ChartKey, CachedChart> cache;
+
+    public CostChartService(CostTimeSeriesStore costTimeSeriesStore,
+                            DailyCostIngester dailyCostIngester,
+                            @Value("${aws.cost-chart.cache-size:1024}") int cacheSize) {
+        this.costTimeSeriesStore = costTimeSeriesStore;
+        this.dailyCostIngester = dailyCostIngester;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ChartKey, CachedChart> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Daily cost over [from, to) for the series selected by {@code service}/{@code region}
+     * (null matches any), reduced to at most {@code points} points.
+     */
+    public ChartDataDTO getCostChart(AwsAccount account, String service, String region,
+                                     LocalDate from, LocalDate to, int points) {
+        dailyCostIngester.ingestIfMissing(account);
+
+        long version = costTimeSeriesStore.getVersion(account);
+        ChartKey key = new ChartKey(account.getFingerprint(), service, region, from, to, points);
+        CachedChart cached = cache.get(key);
+        if (cached != null && cached.version() == version) {
+            return cached.chart();
+        }
+
+        double[] daily = costTimeSeriesStore.dailyTotals(account, from, to, service, region);
+        int[] kept = Lttb.downsample(daily, points);
+
+        List<String> labels = new ArrayList<>(kept.length);
+        List<Double> values = new ArrayList<>(kept.length);
+        for (int index : kept) {
+            labels.add(from.plusDays(index).toString());
+            values.add(Math.round(daily[index] * 100.0) / 100.0);
+        }
+        ChartDataDTO chart = new ChartDataDTO(labels, values);
+
+        cache.put(key, new CachedChart(chart, version));
+        return chart;
+    }
+
+    private record ChartKey(String fingerprint, String service, String region,
+                            LocalDate from, LocalDate to, int points) {
+    }
+
+    private record CachedChart(ChartDataDTO chart, long version) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.model.CostDataDTO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for {@link CostDataDTO} keyed by (account fingerprint, year, month).
+ * <p>
+ * AWS keeps restating a month for a few days after it ends, so a month only counts as closed
+ * once {@code aws.cost-cache.finalization-days} have passed. Closed months are written to
+ * {@code aws.cost-cache.dir} so they survive restarts and are never fetched again. The memory
+ * tier holds the {@code aws.cost-cache.max-entries} most recently used months; a closed month
+ * dropped from it is read back from disk. The current (or not yet final) month is only held
+ * in memory for a short TTL. Partial results are never cached.
+ */
+@Component
+public class CostDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CostDataCache.class);
+
+    private final Map<CacheKey, CacheEntry> memory;
+    private final Map<CacheKey, CompletableFuture<CostDataDTO>> inFlight = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Duration openMonthTtl;
+    private final int finalizationDays;
+
+    public CostDataCache(ObjectMapper objectMapper,
+                         @Value("${aws.cost-cache.dir:${java.io.tmpdir}/newcost/cost-cache}") String directory,
+                         @Value("${aws.cost-cache.open-month-ttl-minutes:15}") long openMonthTtlMinutes,
+                         @Value("${aws.cost-cache.finalization-days:5}") int finalizationDays,
+                         @Value("${aws.cost-cache.max-entries:1024}") int maxEntries) {
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.openMonthTtl = Duration.ofMinutes(openMonthTtlMinutes);
+        this.finalizationDays = finalizationDays;
+    }
+
+    /**
+     * Returns the cached month, or runs {@code loader} once per key and caches its result.
+     * Concurrent requests for the same key share the same load.
+     */
+    public CompletableFuture<CostDataDTO> get(AwsAccount account, int year, int month,
+                                              Supplier<CompletableFuture<CostDataDTO>> loader) {
+        CacheKey key = new CacheKey(account.getFingerprint(), YearMonth.of(year, month));
+
+        CacheEntry cached = memory.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return CompletableFuture.completedFuture(cached.data());
+        }
+        if (isClosed(key.month())) {
+            CostDataDTO persisted = readFromDisk(key);
+            if (persisted != null) {
+                memory.put(key, new CacheEntry(persisted, Long.MAX_VALUE));
+                return CompletableFuture.completedFuture(persisted);
+            }
+        }
+
+        CompletableFuture<CostDataDTO> pending = new CompletableFuture<>();
+        CompletableFuture<CostDataDTO> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing;
+        }
+        Futures.defer(loader).whenComplete((data, error) -> {
+            if (error == null) {
+                store(key, data);
+                pending.complete(data);
+            } else {
+                pending.completeExceptionally(error);
+            }
+            inFlight.remove(key, pending);
+        });
+        return pending;
+    }
+
+    private void store(CacheKey key, CostDataDTO data) {
+        if (data.isPartial()) {
+            return;
+        }
+        if (isClosed(key.month())) {
+            memory.put(key, new CacheEntry(data, Long.MAX_VALUE));
+            writeToDisk(key, data);
+        } else {
+            memory.put(key, new CacheEntry(data, System.nanoTime() + openMonthTtl.toNanos()));
+        }
+    }
+
+    private boolean isClosed(YearMonth month) {
+        // Cost Explorer reports in UTC
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return month.atEndOfMonth().plusDays(finalizationDays).isBefore(today);
+    }
+
+    private Path fileFor(CacheKey key) {
+        return directory.resolve(key.fingerprint()).resolve(key.month() + ".json");
+    }
+
+    private CostDataDTO readFromDisk(CacheKey key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            // Derived getters such as isPartial() are written too, and older files may carry retired fields
+            return objectMapper.readerFor(CostDataDTO.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(file.toFile());
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cost cache file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(CacheKey key, CostDataDTO data) {
+        Path file = fileFor(key);
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a temp file first so a crash never leaves a truncated entry behind
+            Path temp = Files.createTempFile(file.getParent(), key.month().toString(), ".tmp");
+            objectMapper.writeValue(temp.toFile(), data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not persist cost data for {}: {}", key.month(), e.getMessage());
+        }
+    }
+
+    private record CacheKey(String fingerprint, YearMonth month) {
+    }
+
+    private record CacheEntry(CostDataDTO data, long expiresAtNanos) {
+        boolean isExpired() {
+            return expiresAtNanos != Long.MAX_VALUE && System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
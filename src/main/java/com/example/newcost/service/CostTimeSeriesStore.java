@@ -0,0 +1,279 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local store of daily amortized cost per account, one column per (service, region) series.
+ * <p>
+ * Each series is a memory-mapped file of doubles indexed by day since {@link #BASE_DAY}, so a
+ * 24-month trend is a sum over a few hundred contiguous slots per series with no remote call.
+ * Series are indexed by service and by region for filtered queries. Layout on disk, under
+ * {@code aws.cost-store.dir/<account fingerprint>/}: {@code series.tsv} (one "service\tregion"
+ * line per series id), {@code <id>.f64} (the column) and {@code ingested-through}
+ * (exclusive end date of the last successful ingest).
+ * <p>
+ * Columns start at {@code aws.cost-store.capacity-days} slots. A write past the end grows
+ * every column of the account, at least doubling it, and remaps it. Days never written read as 0.
+ */
+@Component
+public class CostTimeSeriesStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CostTimeSeriesStore.class);
+
+    static final LocalDate BASE_DAY = LocalDate.of(2020, 1, 1);
+
+    private final Map<String, AccountSeries> accounts = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final int capacityDays;
+
+    public CostTimeSeriesStore(@Value("${aws.cost-store.dir:${java.io.tmpdir}/newcost/cost-store}") String directory,
+                               @Value("${aws.cost-store.capacity-days:4096}") int capacityDays) {
+        this.directory = Paths.get(directory);
+        this.capacityDays = capacityDays;
+    }
+
+    /**
+     * Exclusive end date of the data ingested for this account, or null if nothing is stored yet.
+     */
+    public LocalDate getIngestedThrough(AwsAccount account) {
+        AccountSeries series = open(account);
+        synchronized (series) {
+            return series.ingestedThrough;
+        }
+    }
+
+    /**
+     * Counter bumped on every write for this account; lets derived views detect stale data.
+     */
+    public long getVersion(AwsAccount account) {
+        AccountSeries series = open(account);
+        synchronized (series) {
+            return series.version;
+        }
+    }
+
+    /**
+     * Replaces every series for the days in [start, end) with {@code amounts}, keyed by
+     * (service, region); each array holds one value per day of the window. Series missing from
+     * {@code amounts} are zeroed for the window, since Cost Explorer returns every group that
+     * had spend on a day.
+     */
+    public void replaceWindow(AwsAccount account, LocalDate start, LocalDate end,
+                              Map<SeriesKey, double[]> amounts) {
+        AccountSeries series = open(account);
+        int from = dayIndex(start);
+        int days = (int) ChronoUnit.DAYS.between(start, end);
+
+        synchronized (series) {
+            series.ensureCapacity(from + days);
+            for (DoubleBuffer column : series.columns) {
+                for (int day = 0; day < days; day++) {
+                    column.put(from + day, 0.0);
+                }
+            }
+            for (Map.Entry<SeriesKey, double[]> entry : amounts.entrySet()) {
+                DoubleBuffer column = series.columns.get(series.idFor(entry.getKey()));
+                double[] values = entry.getValue();
+                for (int day = 0; day < days; day++) {
+                    column.put(from + day, values[day]);
+                }
+            }
+            series.force();
+            series.setIngestedThrough(end);
+            series.version++;
+        }
+    }
+
+    /**
+     * Daily totals for [from, to), summed over the series matching the filters (null matches any).
+     */
+    public double[] dailyTotals(AwsAccount account, LocalDate from, LocalDate to, String service, String region) {
+        AccountSeries series = open(account);
+        int start = Math.max(0, dayIndex(from));
+        int offset = start - dayIndex(from);
+        double[] totals = new double[(int) ChronoUnit.DAYS.between(from, to)];
+
+        synchronized (series) {
+            int days = Math.min(totals.length - offset, series.days - start);
+            for (int id : series.matching(service, region)) {
+                DoubleBuffer column = series.columns.get(id);
+                for (int day = 0; day < days; day++) {
+                    totals[offset + day] += column.get(start + day);
+                }
+            }
+        }
+        return totals;
+    }
+
+    private static int dayIndex(LocalDate date) {
+        return Math.toIntExact(ChronoUnit.DAYS.between(BASE_DAY, date));
+    }
+
+    private AccountSeries open(AwsAccount account) {
+        return accounts.computeIfAbsent(account.getFingerprint(),
+                fingerprint -> new AccountSeries(directory.resolve(fingerprint)));
+    }
+
+    @PreDestroy
+    public void flush() {
+        accounts.values().forEach(series -> {
+            synchronized (series) {
+                series.force();
+            }
+        });
+    }
+
+    public record SeriesKey(String service, String region) {
+    }
+
+    private final class AccountSeries {
+        private final Path dir;
+        private final List<SeriesKey> keys = new ArrayList<>();
+        private final List<DoubleBuffer> columns = new ArrayList<>();
+        private final List<MappedByteBuffer> mappings = new ArrayList<>();
+        private final Map<SeriesKey, Integer> ids = new HashMap<>();
+        private final Map<String, List<Integer>> byService = new HashMap<>();
+        private final Map<String, List<Integer>> byRegion = new HashMap<>();
+        private LocalDate ingestedThrough;
+        private long version;
+        // Slots mapped in every column
+        private int days = capacityDays;
+
+        AccountSeries(Path dir) {
+            this.dir = dir;
+            try {
+                Files.createDirectories(dir);
+                Path index = dir.resolve("series.tsv");
+                if (Files.exists(index)) {
+                    List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+                    // Columns grown by an earlier run are mapped at their full length
+                    for (int id = 0; id < lines.size(); id++) {
+                        Path column = dir.resolve(id + ".f64");
+                        if (Files.exists(column)) {
+                            days = (int) Math.max(days, Files.size(column) / Double.BYTES);
+                        }
+                    }
+                    for (String line : lines) {
+                        String[] parts = line.split("\t", 2);
+                        register(new SeriesKey(parts[0], parts[1]));
+                    }
+                }
+                Path marker = dir.resolve("ingested-through");
+                if (Files.exists(marker)) {
+                    ingestedThrough = LocalDate.parse(Files.readString(marker).trim());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            logger.debug("Opened cost series for {} ({} series)", dir.getFileName(), keys.size());
+        }
+
+        int idFor(SeriesKey key) {
+            Integer id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            try {
+                Files.writeString(dir.resolve("series.tsv"), key.service() + "\t" + key.region() + "\n",
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return register(key);
+        }
+
+        private int register(SeriesKey key) {
+            int id = keys.size();
+            MappedByteBuffer mapping = map(id);
+            mappings.add(mapping);
+            columns.add(mapping.asDoubleBuffer());
+            keys.add(key);
+            ids.put(key, id);
+            byService.computeIfAbsent(key.service(), k -> new ArrayList<>()).add(id);
+            byRegion.computeIfAbsent(key.region(), k -> new ArrayList<>()).add(id);
+            return id;
+        }
+
+        /**
+         * Grows every column to hold at least {@code endDay} slots.
+         */
+        void ensureCapacity(int endDay) {
+            if (endDay <= days) {
+                return;
+            }
+            force();
+            days = Math.max(endDay, days * 2);
+            for (int id = 0; id < keys.size(); id++) {
+                MappedByteBuffer mapping = map(id);
+                mappings.set(id, mapping);
+                columns.set(id, mapping.asDoubleBuffer());
+            }
+            logger.info("Grew cost series for {} to {} days", dir.getFileName(), days);
+        }
+
+        // Mapping past the end of the file extends it with zeros
+        private MappedByteBuffer map(int id) {
+            try (FileChannel channel = FileChannel.open(dir.resolve(id + ".f64"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) days * Double.BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<Integer> matching(String service, String region) {
+            if (service != null && region != null) {
+                Integer id = ids.get(new SeriesKey(service, region));
+                return id == null ? List.of() : List.of(id);
+            }
+            if (service != null) {
+                return byService.getOrDefault(service, List.of());
+            }
+            if (region != null) {
+                return byRegion.getOrDefault(region, List.of());
+            }
+            List<Integer> all = new ArrayList<>(keys.size());
+            for (int id = 0; id < keys.size(); id++) {
+                all.add(id);
+            }
+            return all;
+        }
+
+        void setIngestedThrough(LocalDate end) {
+            try {
+                Files.writeString(dir.resolve("ingested-through"), end.toString(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ingestedThrough = end;
+        }
+
+        void force() {
+            mappings.forEach(MappedByteBuffer::force);
+        }
+    }
+}
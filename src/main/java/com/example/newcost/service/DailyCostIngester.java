@@ -0,0 +1,168 @@
+package com.example.newcost.service;
+
+import com.amazonaws.services.costexplorer.AWSCostExplorer;
+import com.amazonaws.services.costexplorer.model.*;
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.AwsCredentialsRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Pulls DAILY cost grouped by service and region into {@link CostTimeSeriesStore}.
+ * <p>
+ * Each run only asks Cost Explorer for the days after the last ingest, plus a restatement
+ * window because AWS keeps adjusting recent days. The first run for an account backfills
+ * {@code aws.cost-ingest.backfill-months}. Saved accounts are ingested on a schedule; an
+ * account seen only through request headers is ingested when its trend is first requested.
+ */
+@Component
+public class DailyCostIngester {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyCostIngester.class);
+
+    private final CostTimeSeriesStore store;
+    private final AwsClientRegistry clientRegistry;
+    private final AwsCredentialService credentialService;
+    private final Executor scanExecutor;
+    private final boolean enabled;
+    private final int backfillMonths;
+    private final int restatementDays;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public DailyCostIngester(CostTimeSeriesStore store,
+                             AwsClientRegistry clientRegistry,
+                             AwsCredentialService credentialService,
+                             @Qualifier("scanExecutor") Executor scanExecutor,
+                             @Value("${aws.cost-ingest.enabled:true}") boolean enabled,
+                             @Value("${aws.cost-ingest.backfill-months:12}") int backfillMonths,
+                             @Value("${aws.cost-ingest.restatement-days:3}") int restatementDays) {
+        this.store = store;
+        this.clientRegistry = clientRegistry;
+        this.credentialService = credentialService;
+        this.scanExecutor = scanExecutor;
+        this.enabled = enabled;
+        this.backfillMonths = backfillMonths;
+        this.restatementDays = restatementDays;
+    }
+
+    @Scheduled(initialDelayString = "${aws.cost-ingest.initial-delay-ms:60000}",
+            fixedDelayString = "${aws.cost-ingest.interval-ms:21600000}")
+    public void ingestSavedAccounts() {
+        if (!enabled) {
+            return;
+        }
+        for (AwsCredentialsRequest saved : credentialService.getAllAccounts()) {
+            AwsAccount account = new AwsAccount(saved.getAccountName(), saved.getAccessKey(),
+                    saved.getSecretKey(), saved.getRegion());
+            try {
+                ingest(account);
+            } catch (RuntimeException e) {
+                logger.error("Daily cost ingest failed for {}: {}", saved.getAccountName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts an ingest for an account that has no stored data yet; no-op otherwise.
+     */
+    public CompletableFuture<Void> ingestIfMissing(AwsAccount account) {
+        if (!enabled || store.getIngestedThrough(account) != null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> ingest(account), scanExecutor)
+                .exceptionally(e -> {
+                    logger.error("Daily cost ingest failed: {}", Futures.unwrap(e).getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * True while ingestion is enabled and nothing has been stored for the account yet, i.e. its
+     * first ingest is still running (or failed and will be retried on the next request).
+     */
+    public boolean isAwaitingFirstIngest(AwsAccount account) {
+        return enabled && store.getIngestedThrough(account) == null;
+    }
+
+    /**
+     * How many months the first ingest of an account goes back.
+     */
+    public int getBackfillMonths() {
+        return backfillMonths;
+    }
+
+    /**
+     * Fetches the missing days plus the restatement window and replaces them in the store.
+     * Runs on the calling thread; concurrent ingests of the same account are skipped.
+     */
+    public void ingest(AwsAccount account) {
+        if (!running.add(account.getFingerprint())) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            LocalDate earliest = today.minusMonths(backfillMonths).withDayOfMonth(1);
+            LocalDate ingestedThrough = store.getIngestedThrough(account);
+            LocalDate start = ingestedThrough == null ? earliest : ingestedThrough.minusDays(restatementDays);
+            if (start.isBefore(earliest)) {
+                start = earliest;
+            }
+            // Today is still accumulating; it falls inside the next run's restatement window
+            LocalDate end = today.plusDays(1);
+
+            Map<CostTimeSeriesStore.SeriesKey, double[]> amounts = fetchDaily(account, start, end);
+            store.replaceWindow(account, start, end, amounts);
+            logger.info("Ingested daily cost {} to {} ({} series)", start, end, amounts.size());
+        } finally {
+            running.remove(account.getFingerprint());
+        }
+    }
+
+    private Map<CostTimeSeriesStore.SeriesKey, double[]> fetchDaily(AwsAccount account, LocalDate start, LocalDate end) {
+        AWSCostExplorer costExplorer = clientRegistry.costExplorer(account);
+        int days = (int) ChronoUnit.DAYS.between(start, end);
+        Map<CostTimeSeriesStore.SeriesKey, double[]> amounts = new HashMap<>();
+
+        GetCostAndUsageRequest request = new GetCostAndUsageRequest()
+                .withTimePeriod(new DateInterval()
+                        .withStart(start.toString())
+                        .withEnd(end.toString()))
+                .withGranularity("DAILY")
+                .withMetrics("AmortizedCost")
+                .withGroupBy(
+                        new GroupDefinition().withType("DIMENSION").withKey("SERVICE"),
+                        new GroupDefinition().withType("DIMENSION").withKey("REGION"));
+
+        String nextPageToken = null;
+        do {
+            GetCostAndUsageResult response = costExplorer.getCostAndUsage(request.withNextPageToken(nextPageToken));
+            for (ResultByTime result : response.getResultsByTime()) {
+                int day = (int) ChronoUnit.DAYS.between(start, LocalDate.parse(result.getTimePeriod().getStart()));
+                for (Group group : result.getGroups()) {
+                    CostTimeSeriesStore.SeriesKey key =
+                            new CostTimeSeriesStore.SeriesKey(group.getKeys().get(0), group.getKeys().get(1));
+                    amounts.computeIfAbsent(key, k -> new double[days])[day] +=
+                            Double.parseDouble(group.getMetrics().get("AmortizedCost").getAmount());
+                }
+            }
+            nextPageToken = response.getNextPageToken();
+        } while (nextPageToken != null);
+
+        return amounts;
+    }
+}
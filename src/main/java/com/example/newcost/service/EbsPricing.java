@@ -0,0 +1,63 @@
+package com.example.newcost.service;
+
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.ec2.model.Volume;
+
+import java.util.Map;
+
+/**
+ * Monthly EBS prices for the savings rules. Storage per GB-month comes from the offline
+ * {@link PriceListIndex} when it has the region, otherwise from the us-east-1 list prices
+ * below; provisioned IOPS and gp3 throughput always use the us-east-1 list prices.
+ */
+@Component
+public class EbsPricing {
+
+    // gp3 includes this much performance in the storage price
+    static final int GP3_BASELINE_IOPS = 3000;
+    static final int GP3_BASELINE_THROUGHPUT_MIBS = 125;
+
+    private static final Map<String, Double> DEFAULT_STORAGE_PRICES = Map.of(
+            "gp2", 0.10,
+            "gp3", 0.08,
+            "io1", 0.125,
+            "io2", 0.125,
+            "sc1", 0.025,
+            "st1", 0.045,
+            "standard", 0.05
+    );
+    private static final double IO_IOPS_PRICE = 0.065;            // io1/io2, per provisioned IOPS-month
+    private static final double GP3_IOPS_PRICE = 0.005;           // per IOPS-month above the baseline
+    private static final double GP3_THROUGHPUT_PRICE = 0.04;      // per MiB/s-month above the baseline
+
+    private final PriceListIndex priceListIndex;
+
+    public EbsPricing(PriceListIndex priceListIndex) {
+        this.priceListIndex = priceListIndex;
+    }
+
+    public double storagePerGbMonth(String volumeType, String region) {
+        double indexed = priceListIndex.ebsPrice(volumeType, region);
+        return Double.isNaN(indexed) ? DEFAULT_STORAGE_PRICES.getOrDefault(volumeType, 0.10) : indexed;
+    }
+
+    // Provisioned-performance charge of a volume type at the given IOPS and throughput
+    public double performancePerMonth(String volumeType, int iops, int throughputMiBs) {
+        return switch (volumeType) {
+            case "io1", "io2" -> iops * IO_IOPS_PRICE;
+            case "gp3" -> Math.max(0, iops - GP3_BASELINE_IOPS) * GP3_IOPS_PRICE
+                    + Math.max(0, throughputMiBs - GP3_BASELINE_THROUGHPUT_MIBS) * GP3_THROUGHPUT_PRICE;
+            default -> 0.0;
+        };
+    }
+
+    public double monthlyCost(Volume volume, String region) {
+        String type = volume.volumeTypeAsString();
+        return storagePerGbMonth(type, region) * volume.size()
+                + performancePerMonth(type, valueOrZero(volume.iops()), valueOrZero(volume.throughput()));
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
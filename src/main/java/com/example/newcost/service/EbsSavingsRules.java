@@ -0,0 +1,190 @@
+package com.example.newcost.service;
+
+import com.example.newcost.model.VolumeSavingsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.ec2.model.Volume;
+
+/**
+ * Built-in {@link VolumeSavingsRule}s. Rightsizing rules size to the observed one-minute peak
+ * times {@code aws.ebs-savings.headroom}, and only fire when the volume used less than
+ * {@code aws.ebs-savings.max-utilization} of what it provisions.
+ */
+final class EbsSavingsRules {
+
+    private EbsSavingsRules() {
+    }
+
+    private static VolumeSavingsDTO suggestion(Volume volume, String rule, String reason,
+                                               double monthlyCost, double savings) {
+        return new VolumeSavingsDTO(volume.volumeId(), volume.size(), volume.volumeTypeAsString(), rule, reason,
+                round(monthlyCost), round(savings));
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    @Component
+    @Order(1)
+    static class Unattached implements VolumeSavingsRule {
+        @Override
+        public VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage, double monthlyCost) {
+            if (!volume.attachments().isEmpty()) {
+                return null;
+            }
+            return suggestion(volume, "unattached", "Unattached EBS volume — can be deleted or snapshot",
+                    monthlyCost, monthlyCost);
+        }
+    }
+
+    @Component
+    @Order(2)
+    static class IdleAttached implements VolumeSavingsRule {
+        private final double idleFraction;
+
+        IdleAttached(@Value("${aws.ebs-savings.idle-fraction:0.99}") double idleFraction) {
+            this.idleFraction = idleFraction;
+        }
+
+        @Override
+        public VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage, double monthlyCost) {
+            if (volume.attachments().isEmpty() || !usage.hasData()) {
+                return null;
+            }
+            boolean noIo = usage.readOps() + usage.writeOps() == 0;
+            if (!noIo && usage.idleFraction() < idleFraction) {
+                return null;
+            }
+            return suggestion(volume, "idle-attached",
+                    String.format("Attached but idle for the last %d days — snapshot and delete it", usage.days()),
+                    monthlyCost, monthlyCost);
+        }
+    }
+
+    @Component
+    @Order(3)
+    static class ProvisionedIopsRightsizing implements VolumeSavingsRule {
+        private static final int IO_MIN_IOPS = 100;
+        private static final int GP3_MAX_IOPS = 16000;
+
+        private final EbsPricing pricing;
+        private final double headroom;
+        private final double maxUtilization;
+
+        ProvisionedIopsRightsizing(EbsPricing pricing,
+                                   @Value("${aws.ebs-savings.headroom:1.2}") double headroom,
+                                   @Value("${aws.ebs-savings.max-utilization:0.5}") double maxUtilization) {
+            this.pricing = pricing;
+            this.headroom = headroom;
+            this.maxUtilization = maxUtilization;
+        }
+
+        @Override
+        public VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage, double monthlyCost) {
+            String type = volume.volumeTypeAsString();
+            int provisioned = valueOrZero(volume.iops());
+            if (!("io1".equals(type) || "io2".equals(type)) || !usage.hasData() || usage.peakIops() < 0
+                    || usage.peakIops() >= provisioned * maxUtilization) {
+                return null;
+            }
+            int target = Math.max(IO_MIN_IOPS, (int) Math.ceil(usage.peakIops() * headroom));
+            double storage = pricing.storagePerGbMonth(type, region) * volume.size();
+            double rightsized = storage + pricing.performancePerMonth(type, target, 0);
+
+            // gp3 covers the same peak for far less when it fits within gp3 limits
+            double asGp3 = Double.MAX_VALUE;
+            if (target <= GP3_MAX_IOPS) {
+                asGp3 = pricing.storagePerGbMonth("gp3", region) * volume.size()
+                        + pricing.performancePerMonth("gp3", Math.max(EbsPricing.GP3_BASELINE_IOPS, target),
+                        EbsPricing.GP3_BASELINE_THROUGHPUT_MIBS);
+            }
+            if (asGp3 < rightsized) {
+                return suggestion(volume, "io-to-gp3", String.format(
+                        "Peak %.0f of %d provisioned IOPS — migrate to gp3 at %d IOPS", usage.peakIops(), provisioned,
+                        Math.max(EbsPricing.GP3_BASELINE_IOPS, target)), monthlyCost, monthlyCost - asGp3);
+            }
+            return suggestion(volume, "io-iops-rightsizing", String.format(
+                    "Peak %.0f of %d provisioned IOPS — reduce to %d IOPS", usage.peakIops(), provisioned, target),
+                    monthlyCost, monthlyCost - rightsized);
+        }
+    }
+
+    @Component
+    @Order(4)
+    static class Gp3PerformanceRightsizing implements VolumeSavingsRule {
+        private final EbsPricing pricing;
+        private final double headroom;
+        private final double maxUtilization;
+
+        Gp3PerformanceRightsizing(EbsPricing pricing,
+                                  @Value("${aws.ebs-savings.headroom:1.2}") double headroom,
+                                  @Value("${aws.ebs-savings.max-utilization:0.5}") double maxUtilization) {
+            this.pricing = pricing;
+            this.headroom = headroom;
+            this.maxUtilization = maxUtilization;
+        }
+
+        @Override
+        public VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage, double monthlyCost) {
+            if (!"gp3".equals(volume.volumeTypeAsString()) || !usage.hasData() || usage.peakIops() < 0) {
+                return null;
+            }
+            int iops = valueOrZero(volume.iops());
+            int throughput = valueOrZero(volume.throughput());
+            int targetIops = iops;
+            int targetThroughput = throughput;
+            if (iops > EbsPricing.GP3_BASELINE_IOPS && usage.peakIops() < iops * maxUtilization) {
+                targetIops = Math.max(EbsPricing.GP3_BASELINE_IOPS, (int) Math.ceil(usage.peakIops() * headroom));
+            }
+            if (throughput > EbsPricing.GP3_BASELINE_THROUGHPUT_MIBS && usage.peakThroughputMiBs() >= 0
+                    && usage.peakThroughputMiBs() < throughput * maxUtilization) {
+                targetThroughput = Math.max(EbsPricing.GP3_BASELINE_THROUGHPUT_MIBS,
+                        (int) Math.ceil(usage.peakThroughputMiBs() * headroom));
+            }
+            double savings = pricing.performancePerMonth("gp3", iops, throughput)
+                    - pricing.performancePerMonth("gp3", targetIops, targetThroughput);
+            if (savings <= 0) {
+                return null;
+            }
+            return suggestion(volume, "gp3-rightsizing", String.format(
+                    "Provisioned %d IOPS / %d MiB/s, peak %.0f IOPS / %.0f MiB/s — reduce to %d IOPS / %d MiB/s",
+                    iops, throughput, usage.peakIops(), Math.max(0, usage.peakThroughputMiBs()),
+                    targetIops, targetThroughput), monthlyCost, savings);
+        }
+    }
+
+    @Component
+    @Order(5)
+    static class Gp2ToGp3 implements VolumeSavingsRule {
+        private static final int GP2_MIN_IOPS = 100;
+        private static final int GP2_MAX_IOPS = 16000;
+
+        private final EbsPricing pricing;
+
+        Gp2ToGp3(EbsPricing pricing) {
+            this.pricing = pricing;
+        }
+
+        @Override
+        public VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage, double monthlyCost) {
+            if (!"gp2".equals(volume.volumeTypeAsString())) {
+                return null;
+            }
+            // Keep the gp2 baseline (3 IOPS/GB); gp3 charges for anything above its own 3000
+            int baselineIops = Math.min(GP2_MAX_IOPS, Math.max(GP2_MIN_IOPS, volume.size() * 3));
+            double gp3Cost = pricing.storagePerGbMonth("gp3", region) * volume.size()
+                    + pricing.performancePerMonth("gp3", baselineIops, EbsPricing.GP3_BASELINE_THROUGHPUT_MIBS);
+            if (gp3Cost >= monthlyCost) {
+                return null;
+            }
+            return suggestion(volume, "gp2-to-gp3", "Consider migrating from gp2 to gp3",
+                    monthlyCost, monthlyCost - gp3Cost);
+        }
+    }
+}
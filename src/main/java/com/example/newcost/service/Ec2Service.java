@@ -1,21 +1,29 @@
 package com.example.newcost.service;
 
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.ElasticIpSavingsDTO;
+import com.example.newcost.model.SnapshotDTO;
+import com.example.newcost.model.VolumeSavingsDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.model.*;
-import software.amazon.awssdk.services.ec2.Ec2Client;
 import software.amazon.awssdk.services.ec2.model.*;
 import software.amazon.awssdk.services.ec2.model.Tag;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,191 +33,213 @@ public class Ec2Service {
 
     private static final Logger log = LoggerFactory.getLogger(Ec2Service.class);
 
-    @Autowired
-    private Ec2Client ec2Client;
-    private final CloudWatchClient cloudWatchClient;
+    private final AwsClientRegistry clientRegistry;
+    private final MetricDataBatcher metricDataBatcher;
+    private final VolumeSavingsEngine volumeSavingsEngine;
+    private final int streamBufferSize;
+    private final long inventoryTtlNanos;
+    private final Map<AwsAccount, CachedInventory> inventories = new ConcurrentHashMap<>();
 
     @Autowired
-    public Ec2Service(Ec2Client ec2Client, CloudWatchClient cloudWatchClient) {
-        this.ec2Client = ec2Client;
-        this.cloudWatchClient = cloudWatchClient;
+    public Ec2Service(AwsClientRegistry clientRegistry,
+                      MetricDataBatcher metricDataBatcher,
+                      VolumeSavingsEngine volumeSavingsEngine,
+                      @Value("${aws.inventory.stream-buffer-size:2000}") int streamBufferSize,
+                      @Value("${aws.inventory.ttl-seconds:60}") long inventoryTtlSeconds) {
+        this.clientRegistry = clientRegistry;
+        this.metricDataBatcher = metricDataBatcher;
+        this.volumeSavingsEngine = volumeSavingsEngine;
+        this.streamBufferSize = streamBufferSize;
+        this.inventoryTtlNanos = TimeUnit.SECONDS.toNanos(inventoryTtlSeconds);
     }
 
-    // List all EBS volumes in the AWS account
-    public List<Volume> listEbsVolumes() {
-        DescribeVolumesRequest request = DescribeVolumesRequest.builder().build();
-        DescribeVolumesResponse response = ec2Client.describeVolumes(request);
-        return response.volumes();
+    private record CachedInventory(CompletableFuture<ResourceInventory> inventory, long createdAtNanos) {
     }
 
-    // List all EBS snapshots
-    public List<Map<String, Object>> listEbsSnapshotsDetailed() {
-        DescribeSnapshotsRequest request = DescribeSnapshotsRequest.builder()
-                .ownerIds("self")
-                .build();
+    /**
+     * Instances, volumes and Elastic IPs of the account, indexed for lookups. Built once and
+     * reused for {@code aws.inventory.ttl-seconds}, so the endpoints of one dashboard load
+     * share a single describe pass.
+     */
+    public CompletableFuture<ResourceInventory> getInventory(AwsAccount account) {
+        long now = System.nanoTime();
+        CachedInventory cached = inventories.compute(account, (key, existing) -> {
+            if (existing != null && now - existing.createdAtNanos() < inventoryTtlNanos
+                    && !existing.inventory().isCompletedExceptionally()) {
+                return existing;
+            }
+            CompletableFuture<List<Instance>> instances = collect(instancePublisher(account));
+            CompletableFuture<List<Volume>> volumes = collect(volumePublisher(account));
+            CompletableFuture<List<Address>> addresses = listAddresses(account);
+            return new CachedInventory(CompletableFuture.allOf(instances, volumes, addresses)
+                    .thenApply(ignored -> new ResourceInventory(instances.join(), volumes.join(), addresses.join())), now);
+        });
+        inventories.values().removeIf(entry -> now - entry.createdAtNanos() >= inventoryTtlNanos);
+        return cached.inventory();
+    }
 
-        DescribeSnapshotsResponse response = ec2Client.describeSnapshots(request);
+    // List all EBS volumes in the AWS account, following every page
+    public CompletableFuture<List<Volume>> listEbsVolumes(AwsAccount account) {
+        return getInventory(account).thenApply(ResourceInventory::getVolumes);
+    }
 
-        return response.snapshots().stream().map(snapshot -> {
-            Map<String, Object> snapshotDetails = new HashMap<>();
+    // Streaming variants: pages are fetched ahead of the consumer and never held all at once.
+    // Close the returned stream to stop fetching early.
+    public Stream<Volume> streamEbsVolumes(AwsAccount account) {
+        return PublisherStreams.toStream(volumePublisher(account), streamBufferSize);
+    }
 
-            String name = snapshot.tags().stream()
-                    .filter(tag -> tag.key().equalsIgnoreCase("Name"))
-                    .map(Tag::value)
-                    .findFirst()
-                    .orElse("N/A");
+    public Stream<Snapshot> streamEbsSnapshots(AwsAccount account) {
+        return PublisherStreams.toStream(snapshotPublisher(account), streamBufferSize);
+    }
 
-            // Note: volumeSize is the original volume size, not actual storage used
-            snapshotDetails.put("Name", name);
-            snapshotDetails.put("SnapshotId", snapshot.snapshotId());
-            snapshotDetails.put("VolumeSizeGB", snapshot.volumeSize());
-            snapshotDetails.put("StorageTier", snapshot.storageTierAsString());
-            snapshotDetails.put("Status", snapshot.stateAsString());
-            snapshotDetails.put("StartTime", snapshot.startTime());
+    public Stream<Instance> streamInstances(AwsAccount account) {
+        return PublisherStreams.toStream(instancePublisher(account), streamBufferSize);
+    }
 
-            // Add a note that actual storage used isn't available from this API
-            double storageUsed = getSnapshotStorageUsage(snapshot.snapshotId());
-            snapshotDetails.put("StorageUsedGB", storageUsed);
+    // DescribeAddresses is not paginated; addresses are capped per region, so one call is enough
+    public Stream<Address> streamElasticIps(AwsAccount account) {
+        return listAddresses(account).join().stream();
+    }
 
-            return snapshotDetails;
-        }).collect(Collectors.toList());
+    private SdkPublisher<Volume> volumePublisher(AwsAccount account) {
+        return clientRegistry.ec2AsyncClient(account)
+                .describeVolumesPaginator(DescribeVolumesRequest.builder().build())
+                .volumes();
     }
 
-    private double getSnapshotStorageUsage(String snapshotId) {
-        try {
-            Instant now = Instant.now();
-            Instant startTime = now.minus(24, ChronoUnit.HOURS); // hour window
+    private SdkPublisher<Snapshot> snapshotPublisher(AwsAccount account) {
+        return clientRegistry.ec2AsyncClient(account)
+                .describeSnapshotsPaginator(DescribeSnapshotsRequest.builder()
+                        .ownerIds("self")
+                        .build())
+                .snapshots();
+    }
 
-            log.info("Attempting to get CloudWatch metrics for snapshot: {}", snapshotId);
-            log.debug("Time range: {} to {}", startTime, now);
+    private SdkPublisher<Instance> instancePublisher(AwsAccount account) {
+        return clientRegistry.ec2AsyncClient(account)
+                .describeInstancesPaginator(DescribeInstancesRequest.builder().build())
+                .reservations()
+                .flatMapIterable(Reservation::instances);
+    }
 
-            GetMetricStatisticsRequest request = GetMetricStatisticsRequest.builder()
-                    .namespace("AWS/EBS")
-                    .metricName("SnapshotStorageUsed")
-                    .dimensions(Dimension.builder()
-                            .name("SnapshotId")
-                            .value(snapshotId)
-                            .build())
-                    .startTime(startTime)
-                    .endTime(now)
-                    .period(3600) // 1 hour intervals
-                    .statistics(Statistic.AVERAGE)
-                    .build();
-
-            log.debug("CloudWatch request: {}", request);
-
-            GetMetricStatisticsResponse response = cloudWatchClient.getMetricStatistics(request);
-            log.debug("CloudWatch response received: {}", response);
-
-            if (!response.datapoints().isEmpty()) {
-                response.datapoints().forEach(dp ->
-                        log.debug("Datapoint: {} = {} bytes", dp.timestamp(), dp.average()));
-
-                double latestValue = response.datapoints().stream()
-                        .max(Comparator.comparing(Datapoint::timestamp))
-                        .map(dp -> dp.average() / (1024 * 1024 * 1024)) // Convert bytes to GB
-                        .orElse(-1.0);
-
-                log.info("Snapshot {} storage: {} GB", snapshotId, latestValue);
-                return latestValue;
-            } else {
-                log.warn("No CloudWatch datapoints found for snapshot {}", snapshotId);
-            }
-        } catch (Exception e) {
-            log.error("CloudWatch query failed for snapshot {}: {}", snapshotId, e.getMessage(), e);
-        }
-        return -1.0;
+    private <T> CompletableFuture<List<T>> collect(SdkPublisher<T> publisher) {
+        // Items are delivered one at a time, so a plain list is safe here
+        List<T> items = new ArrayList<>();
+        return publisher.subscribe(items::add).thenApply(ignored -> items);
     }
 
+    // List all EBS snapshots; storage usage comes from batched CloudWatch queries unless skipped
+    public CompletableFuture<List<SnapshotDTO>> listEbsSnapshotsDetailed(AwsAccount account,
+                                                                                boolean includeStorageUsage) {
+        CloudWatchAsyncClient cloudWatchClient = clientRegistry.cloudWatchAsyncClient(account);
+        return collect(snapshotPublisher(account))
+                .thenCompose(snapshots -> {
+                    if (!includeStorageUsage) {
+                        return CompletableFuture.completedFuture(snapshots.stream()
+                                .map(snapshot -> toSnapshotDetails(snapshot, -1.0))
+                                .collect(Collectors.toList()));
+                    }
+                    return getSnapshotStorageUsage(cloudWatchClient, snapshots)
+                            .thenApply(storageUsed -> {
+                                List<SnapshotDTO> details = new ArrayList<>(snapshots.size());
+                                for (int i = 0; i < snapshots.size(); i++) {
+                                    details.add(toSnapshotDetails(snapshots.get(i), storageUsed[i]));
+                                }
+                                return details;
+                            });
+                });
+    }
 
+    // storageUsed is -1 when CloudWatch has no datapoint or enrichment was skipped
+    public SnapshotDTO toSnapshotDetails(Snapshot snapshot, double storageUsed) {
+        String name = snapshot.tags().stream()
+                .filter(tag -> tag.key().equalsIgnoreCase("Name"))
+                .map(Tag::value)
+                .findFirst()
+                .orElse("N/A");
 
+        return new SnapshotDTO(name, snapshot.snapshotId(), snapshot.volumeSize(), snapshot.storageTierAsString(),
+                snapshot.stateAsString(), snapshot.startTime(), storageUsed);
+    }
+
+    // Latest SnapshotStorageUsed per snapshot in GB, in input order (-1 when unavailable)
+    private CompletableFuture<double[]> getSnapshotStorageUsage(CloudWatchAsyncClient cloudWatchClient,
+                                                                List<Snapshot> snapshots) {
+        Instant now = Instant.now();
+        Instant startTime = now.minus(24, ChronoUnit.HOURS); // hour window
+
+        List<MetricDataQuery> queries = new ArrayList<>(snapshots.size());
+        for (int i = 0; i < snapshots.size(); i++) {
+            queries.add(MetricDataQuery.builder()
+                    .id(MetricDataBatcher.queryId("s", i, ""))
+                    .metricStat(MetricStat.builder()
+                            .metric(Metric.builder()
+                                    .namespace("AWS/EBS")
+                                    .metricName("SnapshotStorageUsed")
+                                    .dimensions(Dimension.builder()
+                                            .name("SnapshotId")
+                                            .value(snapshots.get(i).snapshotId())
+                                            .build())
+                                    .build())
+                            .period(3600) // 1 hour intervals
+                            .stat("Average")
+                            .build())
+                    .returnData(true)
+                    .build());
+        }
+
+        log.info("Fetching CloudWatch storage usage for {} snapshots", snapshots.size());
+        return metricDataBatcher.fetch(cloudWatchClient, queries, startTime, now)
+                .thenApply(values -> {
+                    double[] storageUsed = new double[snapshots.size()];
+                    for (int i = 0; i < storageUsed.length; i++) {
+                        List<Double> datapoints = values.get(MetricDataBatcher.queryId("s", i, ""));
+                        // Values are newest first
+                        storageUsed[i] = datapoints == null || datapoints.isEmpty()
+                                ? -1.0
+                                : datapoints.get(0) / (1024 * 1024 * 1024); // Convert bytes to GB
+                    }
+                    return storageUsed;
+                });
+    }
 
     // List all Elastic IPs associated with the AWS account
-    public List<Address> listElasticIps() {
+    public CompletableFuture<List<Address>> listElasticIps(AwsAccount account) {
+        return getInventory(account).thenApply(ResourceInventory::getAddresses);
+    }
+
+    private CompletableFuture<List<Address>> listAddresses(AwsAccount account) {
         DescribeAddressesRequest request = DescribeAddressesRequest.builder().build();
-        DescribeAddressesResponse response = ec2Client.describeAddresses(request);
-        return response.addresses();
-    }
-
-    // List EC2 instances in the AWS account (add if needed)
-    public List<Instance> listInstances() {
-        DescribeInstancesRequest request = DescribeInstancesRequest.builder().build();
-        DescribeInstancesResponse response = ec2Client.describeInstances(request);
-        return response.reservations().stream()
-                .flatMap(reservation -> reservation.instances().stream())
-                .collect(Collectors.toList());
-    }
-
-    public List<Map<String, Object>> getVolumeSavingsSuggestions() {
-        List<Volume> volumes = listEbsVolumes();
-
-        Map<String, Double> pricing = Map.of(
-                "gp2", 0.10,
-                "gp3", 0.08,
-                "io1", 0.125,
-                "io2", 0.125,
-                "sc1", 0.025,
-                "st1", 0.045,
-                "standard", 0.05
-        );
-
-        return volumes.stream().map(volume -> {
-            Map<String, Object> suggestion = new HashMap<>();
-
-            String volumeId = volume.volumeId();
-            String type = volume.volumeTypeAsString();
-            int size = volume.size(); // in GB
-            boolean isAttached = !volume.attachments().isEmpty();
-
-            double cost = pricing.getOrDefault(type, 0.10) * size;
-
-            suggestion.put("VolumeId", volumeId);
-            suggestion.put("SizeGB", size);
-            suggestion.put("VolumeType", type);
-            suggestion.put("MonthlyCostUSD", String.format("%.2f", cost));
-
-            if (!isAttached) {
-                suggestion.put("Reason", "Unattached EBS volume — can be deleted or snapshot");
-                suggestion.put("PotentialSavingsUSD", String.format("%.2f", cost));
-            } else if (type.equals("gp2")) {
-                double gp3Cost = pricing.get("gp3") * size;
-                double savings = cost - gp3Cost;
-                suggestion.put("Reason", "Consider migrating from gp2 to gp3");
-                suggestion.put("PotentialSavingsUSD", String.format("%.2f", savings));
-            } else {
-                suggestion.put("Reason", "No major savings opportunity detected");
-                suggestion.put("PotentialSavingsUSD", "0.00");
-            }
+        return clientRegistry.ec2AsyncClient(account).describeAddresses(request)
+                .thenApply(DescribeAddressesResponse::addresses);
+    }
 
-            return suggestion;
-        }).collect(Collectors.toList());
+    // List EC2 instances in the AWS account, following every page
+    public CompletableFuture<List<Instance>> listInstances(AwsAccount account) {
+        return getInventory(account).thenApply(ResourceInventory::getInstances);
     }
 
-    public List<Map<String, Object>> getElasticIpSavingsSuggestions() {
-        List<Address> addresses = listElasticIps();
-        double monthlyIdleIpCost = 0.005 * 24 * 30; // Approx. 3.60 USD/month
+    // One suggestion per volume from the rule engine, backed by a single batched metrics pass
+    public CompletableFuture<List<VolumeSavingsDTO>> getVolumeSavingsSuggestions(AwsAccount account) {
+        return listEbsVolumes(account).thenCompose(volumes -> volumeSavingsEngine.evaluate(account, volumes));
+    }
 
-        return addresses.stream().map(address -> {
-            Map<String, Object> suggestion = new HashMap<>();
-            String ip = address.publicIp();
-            String assocId = address.associationId();
+    public CompletableFuture<List<ElasticIpSavingsDTO>> getElasticIpSavingsSuggestions(AwsAccount account) {
+        return listElasticIps(account).thenApply(this::toElasticIpSavingsSuggestions);
+    }
 
-            suggestion.put("PublicIp", ip);
-            suggestion.put("AssociationId", assocId != null ? assocId : "None");
+    private List<ElasticIpSavingsDTO> toElasticIpSavingsSuggestions(List<Address> addresses) {
+        double monthlyIdleIpCost = Math.round(0.005 * 24 * 30 * 100.0) / 100.0; // 3.60 USD/month
 
+        return addresses.stream().map(address -> {
+            String assocId = address.associationId();
             if (assocId == null || assocId.isEmpty()) {
-                suggestion.put("Reason", "Unassociated Elastic IP — you can release it to save costs");
-                suggestion.put("PotentialSavingsUSD", String.format("%.2f", monthlyIdleIpCost));
-            } else {
-                suggestion.put("Reason", "Elastic IP in use — no savings opportunity");
-                suggestion.put("PotentialSavingsUSD", "0.00");
+                return new ElasticIpSavingsDTO(address.publicIp(), "None",
+                        "Unassociated Elastic IP — you can release it to save costs", monthlyIdleIpCost);
             }
-
-            return suggestion;
+            return new ElasticIpSavingsDTO(address.publicIp(), assocId,
+                    "Elastic IP in use — no savings opportunity", 0.0);
         }).collect(Collectors.toList());
     }
-
-
-
-
 }
@@ -0,0 +1,81 @@
+package com.example.newcost.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Small helpers for composing the CompletableFutures returned by the async SDK clients.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Completes with every result, in input order, once all futures have completed.
+     */
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Runs {@code task} for every item as its own executor task and joins the results in
+     * input order. An item whose task fails, synchronously or through its future, is replaced
+     * by {@code recover.apply(item, cause)}, so one bad item does not fail the whole list.
+     */
+    public static <T, R> CompletableFuture<List<R>> fanOut(Collection<T> items,
+                                                           Function<T, CompletableFuture<R>> task,
+                                                           BiFunction<T, Throwable, R> recover,
+                                                           Executor executor) {
+        List<CompletableFuture<R>> children = items.stream()
+                .map(item -> CompletableFuture.supplyAsync(() -> task.apply(item), executor)
+                        .thenCompose(Function.identity())
+                        .exceptionally(e -> recover.apply(item, unwrap(e))))
+                .collect(Collectors.toList());
+        return allOf(children);
+    }
+
+    /**
+     * Calls {@code task}, turning an exception it throws (e.g. while building a client or a
+     * request) into a failed future, so callers only have one failure path to handle.
+     */
+    public static <T> CompletableFuture<T> defer(Supplier<CompletableFuture<T>> task) {
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Message of the unwrapped cause, or its class name when it has none, for error entries
+     * shown to users.
+     */
+    public static String message(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Strips the CompletionException/ExecutionException wrappers added by future composition.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable current = throwable;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.newcost.service;
+
+/**
+ * Folds S3 Inventory rows into fixed-size primitive state: a {@link BucketStorage} histogram
+ * for the whole bucket, and a {@link PrefixTrie} of its key prefixes, whose node budget bounds
+ * memory however many rows are added.
+ */
+final class InventoryAggregator {
+
+    private final String sourceBucket;
+    private final BucketStorage storage = new BucketStorage();
+    private final PrefixTrie prefixes;
+    private long rows;
+
+    InventoryAggregator(String sourceBucket, int maxPrefixNodes) {
+        this.sourceBucket = sourceBucket;
+        this.prefixes = new PrefixTrie(maxPrefixNodes, true);
+        storage.setObjectCount(0);
+    }
+
+    /**
+     * One inventory row; {@code key[from, to)} is the URL-encoded object key, and {@code ageDays}
+     * is -1 when the row has no usable LastModifiedDate.
+     */
+    void add(S3StorageClass storageClass, long size, long ageDays, byte[] key, int from, int to) {
+        rows++;
+        storage.addObject(storageClass, size, ageDays);
+        prefixes.add(key, from, to, size, ageDays);
+    }
+
+    String sourceBucket() {
+        return sourceBucket;
+    }
+
+    BucketStorage storage() {
+        return storage;
+    }
+
+    PrefixTrie prefixes() {
+        return prefixes;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * Days between 1970-01-01 and the date in an inventory LastModifiedDate value
+     * ({@code 2024-05-01T12:00:00.000Z}) at {@code from}, without parsing it into objects;
+     * -1 when it is malformed.
+     */
+    static long epochDay(byte[] value, int from, int to) {
+        if (to - from < 10 || value[from + 4] != '-' || value[from + 7] != '-') {
+            return -1;
+        }
+        int year = digits(value, from, 4);
+        int month = digits(value, from + 5, 2);
+        int day = digits(value, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return -1;
+        }
+        // Days from the civil calendar, counting years from March so leap days fall at the end
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int digits(byte[] value, int from, int count) {
+        int result = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.newcost.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Row-at-a-time reader for S3 Inventory CSV data files. Rows are scanned in place in one
+ * reusable byte buffer and fields are exposed as offsets into it, so reading a row allocates
+ * nothing; callers parse numbers and compare values straight from the bytes and only build a
+ * String for the few fields they keep.
+ * <p>
+ * Inventory CSV has no header and quotes every field; keys are URL-encoded, so fields never
+ * contain separators. Surrounding quotes are stripped; doubled quotes are left as they are.
+ */
+final class InventoryCsvReader implements Closeable {
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final int[] starts;
+    private final int[] ends;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int limit;
+    private int position;
+    // Field offsets are relative to rowStart, which moves when the buffer is compacted
+    private int rowStart;
+    private int fieldCount;
+
+    // Fields past maxFields are skipped
+    InventoryCsvReader(InputStream in, int maxFields) {
+        this.in = in;
+        this.starts = new int[maxFields];
+        this.ends = new int[maxFields];
+    }
+
+    /**
+     * Advances to the next row; false at the end of the input. Blank lines are skipped.
+     */
+    boolean next() throws IOException {
+        while (true) {
+            rowStart = position;
+            fieldCount = 0;
+            int offset = 0;
+            int fieldStart = 0;
+            boolean quoted = false;
+            while (true) {
+                if (rowStart + offset >= limit) {
+                    // Keep the partial row at the front of the buffer, growing it for very long rows
+                    if (rowStart > 0) {
+                        System.arraycopy(buffer, rowStart, buffer, 0, limit - rowStart);
+                        limit -= rowStart;
+                        rowStart = 0;
+                    }
+                    if (limit == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    int read = in.read(buffer, limit, buffer.length - limit);
+                    if (read < 0) {
+                        position = limit;
+                        if (offset == 0) {
+                            return false;
+                        }
+                        endField(fieldStart, offset);
+                        return true;
+                    }
+                    limit += read;
+                    continue;
+                }
+                byte b = buffer[rowStart + offset];
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && b == ',') {
+                    endField(fieldStart, offset);
+                    fieldStart = offset + 1;
+                } else if (!quoted && b == '\n') {
+                    position = rowStart + offset + 1;
+                    if (offset == 0 || offset == 1 && buffer[rowStart] == '\r') {
+                        break; // Blank line
+                    }
+                    endField(fieldStart, offset);
+                    return true;
+                }
+                offset++;
+            }
+        }
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    // Absolute offsets into buffer(), valid until the next call to next()
+    int start(int field) {
+        return rowStart + starts[field];
+    }
+
+    int end(int field) {
+        return rowStart + ends[field];
+    }
+
+    boolean isEmpty(int field) {
+        return field >= fieldCount || starts[field] == ends[field];
+    }
+
+    // Unsigned decimal; -1 when the field is empty or not a number
+    long parseLong(int field) {
+        if (isEmpty(field)) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start(field); i < end(field); i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    boolean equalsAscii(int field, String value) {
+        if (field >= fieldCount || ends[field] - starts[field] != value.length()) {
+            return false;
+        }
+        int from = start(field);
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[from + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String string(int field) {
+        return isEmpty(field) ? "" : new String(buffer, start(field), end(field) - start(field), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void endField(int from, int to) {
+        if (fieldCount == starts.length) {
+            return;
+        }
+        if (to > from && buffer[rowStart + to - 1] == '\r') {
+            to--;
+        }
+        if (to - from >= 2 && buffer[rowStart + from] == '"' && buffer[rowStart + to - 1] == '"') {
+            from++;
+            to--;
+        }
+        starts[fieldCount] = from;
+        ends[fieldCount] = to;
+        fieldCount++;
+    }
+}
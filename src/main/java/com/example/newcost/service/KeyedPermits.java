@@ -0,0 +1,56 @@
+package com.example.newcost.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link AsyncPermits} per key (an account fingerprint), shared by every caller working
+ * on that key at the same time. Callers hold a key between {@link #acquire} and
+ * {@link #release}; once no caller holds it and nothing is running or waiting, the entry is
+ * dropped, by {@link #release} or later by {@link #evictIdle}, so the map does not grow with
+ * every account ever seen.
+ */
+final class KeyedPermits {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int limit;
+
+    KeyedPermits(int limit) {
+        this.limit = limit;
+    }
+
+    AsyncPermits acquire(String key) {
+        // Holders are counted inside compute, so an entry is never evicted between lookup and use
+        return entries.compute(key, (k, current) -> {
+            Entry entry = current != null ? current : new Entry(new AsyncPermits(limit));
+            entry.holders++;
+            return entry;
+        }).permits;
+    }
+
+    void release(String key) {
+        entries.computeIfPresent(key, (k, entry) -> {
+            entry.holders--;
+            return entry.holders == 0 && entry.permits.isIdle() ? null : entry;
+        });
+    }
+
+    void evictIdle() {
+        entries.keySet().forEach(key -> entries.computeIfPresent(key,
+                (k, entry) -> entry.holders == 0 && entry.permits.isIdle() ? null : entry));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final AsyncPermits permits;
+        // Guarded by the map's per-key compute
+        private int holders;
+
+        private Entry(AsyncPermits permits) {
+            this.permits = permits;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.newcost.service;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling for evenly spaced series. Keeps the first and
+ * last points and, from each bucket in between, the point forming the largest triangle with
+ * the previously kept point and the average of the next bucket, so spikes survive.
+ */
+public final class Lttb {
+
+    private Lttb() {
+    }
+
+    /**
+     * Indices of the points to keep, in ascending order; at most {@code threshold} of them.
+     * Budgets below 3 cannot keep both end points plus a bucket, so the series is returned whole.
+     */
+    public static int[] downsample(double[] values, int threshold) {
+        int n = values.length;
+        if (threshold >= n || threshold < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] sampled = new int[threshold];
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled[0] = 0;
+
+        for (int i = 0; i < threshold - 2; i++) {
+            // Average of the next bucket
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += j;
+                avgY += values[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            // Point in the current bucket with the largest triangle
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1.0;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((a - avgX) * (values[j] - values[a]) - (a - j) * (avgY - values[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[i + 1] = next;
+            a = next;
+        }
+        sampled[threshold - 1] = n - 1;
+        return sampled;
+    }
+}
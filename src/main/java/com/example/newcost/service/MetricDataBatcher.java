@@ -0,0 +1,106 @@
+package com.example.newcost.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.model.ScanBy;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs many CloudWatch metric queries through GetMetricData instead of one
+ * GetMetricStatistics call per resource. Queries are split into calls of at most
+ * {@value #MAX_QUERIES_PER_CALL}; up to {@code aws.cloudwatch.max-concurrent-batches} calls are
+ * in flight at once, each lane sending its next call as soon as the previous one completes.
+ */
+@Component
+public class MetricDataBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricDataBatcher.class);
+
+    // GetMetricData hard limit
+    static final int MAX_QUERIES_PER_CALL = 500;
+
+    private final int maxConcurrentBatches;
+
+    public MetricDataBatcher(@Value("${aws.cloudwatch.max-concurrent-batches:8}") int maxConcurrentBatches) {
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    /**
+     * Query id for one series of the {@code index}-th resource in a lookup, e.g. {@code "v12pr"}.
+     * GetMetricData ids must start with a lower-case letter and hold only letters, digits and
+     * underscores, which resource ids and bucket names do not, so resources are addressed by their
+     * position in the caller's list. {@code prefix} names the kind of resource and {@code series}
+     * (empty, or starting with a letter) the metric.
+     */
+    static String queryId(String prefix, int index, String series) {
+        return prefix + index + series;
+    }
+
+    /**
+     * Values per query id, newest first. Ids whose metric has no datapoints map to an empty list;
+     * a failed call leaves its ids out of the result rather than failing the whole lookup.
+     */
+    public CompletableFuture<Map<String, List<Double>>> fetch(CloudWatchAsyncClient cloudWatchClient,
+                                                              List<MetricDataQuery> queries,
+                                                              Instant startTime, Instant endTime) {
+        Map<String, List<Double>> values = new ConcurrentHashMap<>();
+
+        List<List<MetricDataQuery>> batches = new ArrayList<>();
+        for (int from = 0; from < queries.size(); from += MAX_QUERIES_PER_CALL) {
+            batches.add(queries.subList(from, Math.min(from + MAX_QUERIES_PER_CALL, queries.size())));
+        }
+
+        int lanes = Math.min(maxConcurrentBatches, batches.size());
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int batch = lane; batch < batches.size(); batch += lanes) {
+                List<MetricDataQuery> slice = batches.get(batch);
+                chain = chain.thenCompose(ignored -> fetchBatch(cloudWatchClient, slice, startTime, endTime, values));
+            }
+            inFlight.add(chain);
+        }
+
+        return CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> values);
+    }
+
+    private CompletableFuture<Void> fetchBatch(CloudWatchAsyncClient cloudWatchClient, List<MetricDataQuery> slice,
+                                               Instant startTime, Instant endTime,
+                                               Map<String, List<Double>> values) {
+        GetMetricDataRequest request = GetMetricDataRequest.builder()
+                .metricDataQueries(slice)
+                .startTime(startTime)
+                .endTime(endTime)
+                .scanBy(ScanBy.TIMESTAMP_DESCENDING)
+                .build();
+
+        // A large result set comes back in pages and values for one id can span several of them,
+        // so the call's values are only published once every page has arrived
+        Map<String, List<Double>> callValues = new HashMap<>();
+        return cloudWatchClient.getMetricDataPaginator(request)
+                .subscribe(response -> {
+                    for (MetricDataResult result : response.metricDataResults()) {
+                        callValues.computeIfAbsent(result.id(), id -> new ArrayList<>()).addAll(result.values());
+                    }
+                })
+                .thenRun(() -> values.putAll(callValues))
+                .exceptionally(e -> {
+                    logger.error("GetMetricData call for {} queries failed: {}", slice.size(), Futures.unwrap(e).getMessage());
+                    return null;
+                });
+    }
+}
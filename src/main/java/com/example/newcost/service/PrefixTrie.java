@@ -0,0 +1,421 @@
+package com.example.newcost.service;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Radix trie of a bucket's key prefixes, with bytes, object counts, cold bytes (not modified
+ * for {@value #COLD_DAYS} days or more) and byte-weighted age rolled up at every node. Objects
+ * of unknown age count as not cold and are left out of the average age. Edges are
+ * whole key segments ("logs/", "2024/"), and chains of single-child prefixes share one node, so
+ * a bucket whose keys all sit under {@code data/v1/} starts with a single {@code data/v1/} node.
+ * <p>
+ * Nodes live in parallel primitive arrays; children are found through one open-addressing
+ * table keyed on (parent, first segment). Memory is bounded by {@code maxNodes}: when the trie
+ * fills up, subtrees holding less than a threshold of bytes (doubled until half the nodes are
+ * free) are dropped. Their bytes stay in every ancestor's rollup, so the remaining figures are
+ * exact, except that a dropped prefix that shows up again counts from then on. Each compaction
+ * can lose a prefix less than its threshold, and the same prefix can be dropped again by later
+ * compactions, so byte figures can be short by at most {@link #maxUndercountBytes()}, the sum
+ * of all thresholds so far.
+ */
+final class PrefixTrie {
+
+    static final int COLD_DAYS = 90;
+
+    private static final int ROOT = 0;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int maxNodes;
+    private final boolean urlEncoded;
+    private int nodeCount;
+    private long maxUndercountBytes;
+
+    private int[] parents;
+    private int[] depths;  // Segments from the bucket root
+    private int[] labelStarts;  // Node label is arena[labelStarts[i], labelEnds[i])
+    private int[] labelEnds;
+    private long[] bytes;
+    private long[] objects;
+    private long[] coldBytes;
+    private double[] ageByteDays;
+    private long[] agedBytes;  // Bytes whose age is known, the denominator of the average age
+    private byte[] arena;
+    private int arenaSize;
+    // Child index, storing node + 1 (0 is empty)
+    private int[] slots;
+
+    /**
+     * @param urlEncoded whether keys are URL-encoded (S3 Inventory CSV), with "/" possibly as "%2F"
+     */
+    PrefixTrie(int maxNodes, boolean urlEncoded) {
+        this.maxNodes = Math.max(16, maxNodes);
+        this.urlEncoded = urlEncoded;
+        allocate(INITIAL_CAPACITY, INITIAL_CAPACITY * 16);
+        newNode(ROOT, 0, new byte[0], 0, 0);
+    }
+
+    /**
+     * Adds one object; {@code key[from, to)} is its key. The object counts towards the root and
+     * every prefix of its key up to its last delimiter; {@code ageDays} is -1 when unknown.
+     */
+    void add(byte[] key, int from, int to, long size, long ageDays) {
+        int dirEnd = from;
+        for (int i = from; i < to; i = segmentEnd(key, i, to)) {
+            int end = segmentEnd(key, i, to);
+            if (end < to || endsWithDelimiter(key, i, end)) {
+                dirEnd = end;
+            }
+        }
+
+        int node = ROOT;
+        record(node, size, ageDays);
+        int position = from;
+        while (position < dirEnd) {
+            int child = findChild(node, key, position, segmentEnd(key, position, dirEnd));
+            if (child < 0) {
+                child = newNode(node, depths[node] + segments(key, position, dirEnd), key, position, dirEnd);
+                record(child, size, ageDays);
+                if (nodeCount >= maxNodes) {
+                    compact();
+                }
+                return;
+            }
+            // Follow the child's label segment by segment; a partial match splits it
+            int label = labelStarts[child];
+            while (label < labelEnds[child] && position < dirEnd) {
+                int labelSegmentEnd = segmentEnd(arena, label, labelEnds[child]);
+                int keySegmentEnd = segmentEnd(key, position, dirEnd);
+                if (!Arrays.equals(arena, label, labelSegmentEnd, key, position, keySegmentEnd)) {
+                    break;
+                }
+                label = labelSegmentEnd;
+                position = keySegmentEnd;
+            }
+            if (label < labelEnds[child]) {
+                child = split(child, label);
+            }
+            record(child, size, ageDays);
+            node = child;
+        }
+        if (nodeCount >= maxNodes) {
+            compact();
+        }
+    }
+
+    void add(String key, long size, long ageDays) {
+        byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+        add(encoded, 0, encoded.length, size, ageDays);
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    long maxUndercountBytes() {
+        return maxUndercountBytes;
+    }
+
+    long totalBytes() {
+        return bytes[ROOT];
+    }
+
+    long totalObjects() {
+        return objects[ROOT];
+    }
+
+    /**
+     * The {@code limit} prefixes (root excluded) with the most bytes, or, when {@code byColdShare},
+     * with the highest share of cold bytes among prefixes holding at least {@code minBytes}.
+     */
+    int[] top(int limit, boolean byColdShare, long minBytes) {
+        int candidates = 0;
+        Integer[] order = new Integer[nodeCount];
+        for (int node = ROOT + 1; node < nodeCount; node++) {
+            if (!byColdShare || bytes[node] >= Math.max(1, minBytes)) {
+                order[candidates++] = node;
+            }
+        }
+        Arrays.sort(order, 0, candidates, byColdShare
+                ? (a, b) -> Double.compare(coldShare(b), coldShare(a))
+                : (a, b) -> Long.compare(bytes[b], bytes[a]));
+        int[] top = new int[Math.min(limit, candidates)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = order[i];
+        }
+        return top;
+    }
+
+    // Full prefix of a node, ending in "/"
+    String prefix(int node) {
+        int length = 0;
+        for (int current = node; current != ROOT; current = parents[current]) {
+            length += labelEnds[current] - labelStarts[current];
+        }
+        byte[] prefix = new byte[length];
+        for (int current = node; current != ROOT; current = parents[current]) {
+            int labelLength = labelEnds[current] - labelStarts[current];
+            length -= labelLength;
+            System.arraycopy(arena, labelStarts[current], prefix, length, labelLength);
+        }
+        String value = new String(prefix, StandardCharsets.UTF_8);
+        if (!urlEncoded) {
+            return value;
+        }
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return value;
+        }
+    }
+
+    int depth(int node) {
+        return depths[node];
+    }
+
+    long bytes(int node) {
+        return bytes[node];
+    }
+
+    long objects(int node) {
+        return objects[node];
+    }
+
+    long coldBytes(int node) {
+        return coldBytes[node];
+    }
+
+    double coldShare(int node) {
+        return bytes[node] == 0 ? 0.0 : (double) coldBytes[node] / bytes[node];
+    }
+
+    // Byte-weighted: what an average byte under this prefix has been unmodified for; -1 when no
+    // byte under it has a known age
+    double averageAgeDays(int node) {
+        if (agedBytes[node] == 0) {
+            return bytes[node] == 0 ? 0.0 : -1;
+        }
+        return ageByteDays[node] / agedBytes[node];
+    }
+
+    private void record(int node, long size, long ageDays) {
+        bytes[node] += size;
+        objects[node]++;
+        if (ageDays < 0) {
+            return;
+        }
+        agedBytes[node] += size;
+        ageByteDays[node] += (double) size * ageDays;
+        if (ageDays >= COLD_DAYS) {
+            coldBytes[node] += size;
+        }
+    }
+
+    // Splits node so that its label ends at arena offset at; returns the new upper node
+    private int split(int node, int at) {
+        int parent = parents[node];
+        int upper = newNode(parent, depths[parent] + segments(arena, labelStarts[node], at),
+                arena, labelStarts[node], at);
+        bytes[upper] = bytes[node];
+        objects[upper] = objects[node];
+        coldBytes[upper] = coldBytes[node];
+        ageByteDays[upper] = ageByteDays[node];
+        agedBytes[upper] = agedBytes[node];
+
+        // newNode has already taken over node's (parent, first segment) entry; node is re-keyed under it
+        labelStarts[node] = at;
+        parents[node] = upper;
+        slots[findSlot(upper, arena, at, segmentEnd(arena, at, labelEnds[node]))] = node + 1;
+        return upper;
+    }
+
+    private int findChild(int parent, byte[] key, int from, int segmentEnd) {
+        int slot = findSlot(parent, key, from, segmentEnd);
+        return slots[slot] - 1;
+    }
+
+    // The slot holding (parent, segment), or the empty slot where it belongs
+    private int findSlot(int parent, byte[] key, int from, int segmentEnd) {
+        int mask = slots.length - 1;
+        int slot = hash(parent, key, from, segmentEnd) & mask;
+        while (slots[slot] != 0) {
+            int candidate = slots[slot] - 1;
+            int start = labelStarts[candidate];
+            if (parents[candidate] == parent
+                    && Arrays.equals(arena, start, segmentEnd(arena, start, labelEnds[candidate]), key, from, segmentEnd)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int newNode(int parent, int depth, byte[] label, int from, int to) {
+        if (nodeCount == parents.length) {
+            grow(parents.length * 2);
+        }
+        int length = to - from;
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        System.arraycopy(label, from, arena, arenaSize, length);
+        int node = nodeCount++;
+        parents[node] = parent;
+        depths[node] = depth;
+        labelStarts[node] = arenaSize;
+        labelEnds[node] = arenaSize + length;
+        arenaSize += length;
+        if (node != ROOT) {
+            if (nodeCount * 2 > slots.length) {
+                reindex();
+            } else {
+                slots[findSlot(parent, arena, labelStarts[node], segmentEnd(arena, labelStarts[node], labelEnds[node]))] = node + 1;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Drops the smallest subtrees until at most half of maxNodes remain. A node survives when
+     * it and all its ancestors hold at least the threshold; survivors keep their rollups.
+     */
+    private void compact() {
+        long threshold = Math.max(1, bytes[ROOT] / maxNodes);
+        byte[] survives = new byte[nodeCount];  // 0 unknown, 1 kept, 2 dropped
+        while (true) {
+            Arrays.fill(survives, (byte) 0);
+            int kept = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                if (survives(node, threshold, survives)) {
+                    kept++;
+                }
+            }
+            if (kept <= maxNodes / 2) {
+                break;
+            }
+            threshold *= 2;
+        }
+        maxUndercountBytes += threshold;
+
+        // Survivors are copied down in order; a parent can sit after its child (splits), so map first
+        int[] remap = new int[nodeCount];
+        int kept = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            remap[node] = survives[node] == 1 ? kept++ : -1;
+        }
+        int[] oldParents = parents;
+        int[] oldDepths = depths;
+        int[] oldStarts = labelStarts;
+        int[] oldEnds = labelEnds;
+        long[] oldBytes = bytes;
+        long[] oldObjects = objects;
+        long[] oldColdBytes = coldBytes;
+        double[] oldAgeByteDays = ageByteDays;
+        long[] oldAgedBytes = agedBytes;
+        byte[] oldArena = arena;
+        int oldCount = nodeCount;
+
+        allocate(Math.max(INITIAL_CAPACITY, kept * 2), Math.max(INITIAL_CAPACITY * 16, arenaSize));
+        for (int node = 0; node < oldCount; node++) {
+            int target = remap[node];
+            if (target < 0) {
+                continue;
+            }
+            int length = oldEnds[node] - oldStarts[node];
+            System.arraycopy(oldArena, oldStarts[node], arena, arenaSize, length);
+            parents[target] = node == ROOT ? ROOT : remap[oldParents[node]];
+            depths[target] = oldDepths[node];
+            labelStarts[target] = arenaSize;
+            labelEnds[target] = arenaSize + length;
+            arenaSize += length;
+            bytes[target] = oldBytes[node];
+            objects[target] = oldObjects[node];
+            coldBytes[target] = oldColdBytes[node];
+            ageByteDays[target] = oldAgeByteDays[node];
+            agedBytes[target] = oldAgedBytes[node];
+        }
+        nodeCount = kept;
+        reindex();
+    }
+
+    private boolean survives(int node, long threshold, byte[] survives) {
+        if (survives[node] == 0) {
+            boolean kept = node == ROOT
+                    || bytes[node] >= threshold && survives(parents[node], threshold, survives);
+            survives[node] = (byte) (kept ? 1 : 2);
+        }
+        return survives[node] == 1;
+    }
+
+    private void reindex() {
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, nodeCount * 4) - 1) << 1;
+        slots = new int[capacity];
+        for (int node = ROOT + 1; node < nodeCount; node++) {
+            slots[findSlot(parents[node], arena, labelStarts[node], segmentEnd(arena, labelStarts[node], labelEnds[node]))] = node + 1;
+        }
+    }
+
+    private void allocate(int capacity, int arenaCapacity) {
+        parents = new int[capacity];
+        depths = new int[capacity];
+        labelStarts = new int[capacity];
+        labelEnds = new int[capacity];
+        bytes = new long[capacity];
+        objects = new long[capacity];
+        coldBytes = new long[capacity];
+        ageByteDays = new double[capacity];
+        agedBytes = new long[capacity];
+        arena = new byte[arenaCapacity];
+        arenaSize = 0;
+        slots = new int[capacity * 2];
+    }
+
+    private void grow(int capacity) {
+        parents = Arrays.copyOf(parents, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        labelStarts = Arrays.copyOf(labelStarts, capacity);
+        labelEnds = Arrays.copyOf(labelEnds, capacity);
+        bytes = Arrays.copyOf(bytes, capacity);
+        objects = Arrays.copyOf(objects, capacity);
+        coldBytes = Arrays.copyOf(coldBytes, capacity);
+        ageByteDays = Arrays.copyOf(ageByteDays, capacity);
+        agedBytes = Arrays.copyOf(agedBytes, capacity);
+    }
+
+    private int segments(byte[] key, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i = segmentEnd(key, i, to)) {
+            count++;
+        }
+        return count;
+    }
+
+    // End of the segment starting at from, including its delimiter, or to when it has none
+    private int segmentEnd(byte[] key, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (key[i] == '/') {
+                return i + 1;
+            }
+            if (urlEncoded && key[i] == '%' && i + 2 < to && key[i + 1] == '2'
+                    && (key[i + 2] == 'F' || key[i + 2] == 'f')) {
+                return i + 3;
+            }
+        }
+        return to;
+    }
+
+    private boolean endsWithDelimiter(byte[] key, int from, int end) {
+        return end > from && (key[end - 1] == '/'
+                || urlEncoded && end - from >= 3 && key[end - 3] == '%' && key[end - 2] == '2'
+                && (key[end - 1] == 'F' || key[end - 1] == 'f'));
+    }
+
+    private static int hash(int parent, byte[] key, int from, int to) {
+        int hash = parent;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + key[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.newcost.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reads on-demand price dimensions out of price-list JSON without building a tree: a Pricing
+ * API GetProducts document is walked straight to {@code terms.OnDemand.*.priceDimensions.*}
+ * and everything else is skipped. The same term reader is used by {@link PriceListIngester}
+ * for the bulk offer files, whose per-SKU OnDemand entries have the same shape.
+ * <p>
+ * One {@link JsonFactory} is shared by all callers; it is thread-safe and keeps the parser
+ * buffers recycled between calls.
+ */
+public final class PriceExtractor {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private PriceExtractor() {
+    }
+
+    /**
+     * First-tier USD price of a GetProducts price document, or {@code NaN} when it has no
+     * on-demand price.
+     */
+    public static double onDemandPrice(String priceJson) throws IOException {
+        return extract(priceJson).firstTierUsd();
+    }
+
+    /**
+     * All on-demand price dimensions of a GetProducts price document.
+     */
+    public static Dimensions extract(String priceJson) throws IOException {
+        Dimensions dimensions = new Dimensions();
+        try (JsonParser parser = JSON_FACTORY.createParser(priceJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Not a price document");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (!"terms".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String termType = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("OnDemand".equals(termType)) {
+                        readOfferTerms(parser, dimensions);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return dimensions;
+    }
+
+    /**
+     * Reads {@code {offerTermCode: {priceDimensions: {rateCode: {...}}}}} into {@code into}.
+     * The parser must be on the START_OBJECT and is left on the matching END_OBJECT.
+     */
+    static void readOfferTerms(JsonParser parser, Dimensions into) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken(); // offer term object
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (!"priceDimensions".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    parser.nextToken(); // rate code object
+                    readDimension(parser, into);
+                }
+            }
+        }
+    }
+
+    private static void readDimension(JsonParser parser, Dimensions into) throws IOException {
+        double usd = Double.NaN;
+        double beginRange = 0.0;
+        double endRange = Double.POSITIVE_INFINITY;
+        String unit = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "beginRange" -> beginRange = parseRange(parser.getText());
+                case "endRange" -> endRange = parseRange(parser.getText());
+                case "unit" -> unit = parser.getText();
+                case "pricePerUnit" -> {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String currency = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("USD".equals(currency) && !parser.getText().isEmpty()) {
+                            usd = Double.parseDouble(parser.getText());
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (!Double.isNaN(usd)) {
+            into.add(usd, beginRange, endRange, unit);
+        }
+    }
+
+    private static double parseRange(String value) {
+        return "Inf".equals(value) ? Double.POSITIVE_INFINITY : Double.parseDouble(value);
+    }
+
+    /**
+     * Price dimensions in document order as parallel primitive arrays: USD per unit and the
+     * usage range it applies to ({@code endRange} is +Infinity for the open-ended tier).
+     */
+    public static final class Dimensions {
+        private double[] usd = new double[2];
+        private double[] beginRange = new double[2];
+        private double[] endRange = new double[2];
+        private String[] units = new String[2];
+        private int size;
+
+        void add(double price, double begin, double end, String unit) {
+            if (size == usd.length) {
+                int capacity = size * 2;
+                usd = Arrays.copyOf(usd, capacity);
+                beginRange = Arrays.copyOf(beginRange, capacity);
+                endRange = Arrays.copyOf(endRange, capacity);
+                units = Arrays.copyOf(units, capacity);
+            }
+            usd[size] = price;
+            beginRange[size] = begin;
+            endRange[size] = end;
+            units[size] = unit;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(units, 0, size, null);
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double usd(int i) {
+            return usd[i];
+        }
+
+        public double beginRange(int i) {
+            return beginRange[i];
+        }
+
+        public double endRange(int i) {
+            return endRange[i];
+        }
+
+        public String unit(int i) {
+            return units[i];
+        }
+
+        /**
+         * USD price of the tier with the lowest begin range, or {@code NaN} when there is none.
+         */
+        public double firstTierUsd() {
+            int first = -1;
+            for (int i = 0; i < size; i++) {
+                if (first < 0 || beginRange[i] < beginRange[first]) {
+                    first = i;
+                }
+            }
+            return first < 0 ? Double.NaN : usd[first];
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.newcost.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read side of the offline price list: a memory-mapped, sorted hash table of on-demand prices
+ * built by {@link PriceListIngester} from the AWS bulk price-list files.
+ * <p>
+ * File layout: a 16-byte header (magic, version, entry count, reserved), then one 24-byte
+ * entry per price sorted by key hash (hash, price, key offset, key length), then the UTF-8 key
+ * bytes. A lookup is a binary search over the entries plus one key comparison. Lookups return
+ * {@code NaN} when the index is missing or has no such product, so callers can fall back to
+ * the Pricing API or their defaults.
+ */
+@Component
+public class PriceListIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceListIndex.class);
+
+    private static final int MAGIC = 0x4E435058; // "NCPX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 24;
+
+    private final Path path;
+    private volatile MappedByteBuffer index;
+
+    public PriceListIndex(@Value("${aws.price-list.index-path:${java.io.tmpdir}/newcost/price-index.bin}") String path) {
+        this.path = Paths.get(path);
+        // An unreadable index must not stop the application; prices then come from the Pricing API
+        try {
+            reload();
+        } catch (UncheckedIOException e) {
+            logger.warn("Could not read price-list index {}; prices come from the Pricing API: {}",
+                    path, e.getCause().getMessage());
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    public int size() {
+        MappedByteBuffer current = index;
+        return current == null ? 0 : current.getInt(8);
+    }
+
+    // Hourly EC2 price; operatingSystem as named in the price list (Linux, Windows...), tenancy Shared/Dedicated/Host
+    public double ec2Price(String instanceType, String region, String operatingSystem, String tenancy) {
+        return lookup(ec2Key(instanceType, toRegionCode(region), operatingSystem, tenancy));
+    }
+
+    // Hourly RDS instance price; deploymentOption is "Single-AZ" or "Multi-AZ"
+    public double rdsPrice(String instanceClass, String region, String databaseEngine, String deploymentOption) {
+        return lookup(rdsKey(instanceClass, toRegionCode(region), databaseEngine, deploymentOption));
+    }
+
+    // EBS price per GB-month by API volume type (gp2, gp3, io1...)
+    public double ebsPrice(String volumeType, String region) {
+        return lookup(ebsKey(volumeType, toRegionCode(region)));
+    }
+
+    // First-tier S3 price per GB-month by price-list volume type ("Standard", "Standard - Infrequent Access"...)
+    public double s3Price(String volumeType, String region) {
+        return lookup(s3Key(volumeType, toRegionCode(region)));
+    }
+
+    static String ec2Key(String instanceType, String regionCode, String operatingSystem, String tenancy) {
+        return key("AmazonEC2", instanceType, regionCode, operatingSystem, tenancy);
+    }
+
+    static String rdsKey(String instanceClass, String regionCode, String databaseEngine, String deploymentOption) {
+        return key("AmazonRDS", instanceClass, regionCode, databaseEngine, deploymentOption);
+    }
+
+    static String ebsKey(String volumeType, String regionCode) {
+        return key("EBS", volumeType, regionCode);
+    }
+
+    static String s3Key(String volumeType, String regionCode) {
+        return key("AmazonS3", volumeType, regionCode);
+    }
+
+    private static String key(String... parts) {
+        return String.join("|", parts).toLowerCase(Locale.ROOT);
+    }
+
+    // RDS reports availability zones (us-east-1a); the price list is keyed by region code
+    private static String toRegionCode(String region) {
+        if (region != null && region.length() > 1 && Character.isLetter(region.charAt(region.length() - 1))
+                && Character.isDigit(region.charAt(region.length() - 2))) {
+            return region.substring(0, region.length() - 1);
+        }
+        return region;
+    }
+
+    private double lookup(String key) {
+        MappedByteBuffer current = index;
+        if (current == null || key == null) {
+            return Double.NaN;
+        }
+        int entries = current.getInt(8);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midHash = current.getLong(HEADER_BYTES + mid * ENTRY_BYTES);
+            if (midHash < hash) {
+                low = mid + 1;
+            } else if (midHash > hash) {
+                high = mid - 1;
+            } else {
+                // Walk back to the first entry with this hash, then compare keys
+                int first = mid;
+                while (first > 0 && current.getLong(HEADER_BYTES + (first - 1) * ENTRY_BYTES) == hash) {
+                    first--;
+                }
+                for (int i = first; i < entries && current.getLong(HEADER_BYTES + i * ENTRY_BYTES) == hash; i++) {
+                    if (keyMatches(current, i, keyBytes)) {
+                        return current.getDouble(HEADER_BYTES + i * ENTRY_BYTES + 8);
+                    }
+                }
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private boolean keyMatches(ByteBuffer buffer, int entry, byte[] keyBytes) {
+        int offset = buffer.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 16);
+        int length = buffer.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 20);
+        // A corrupt entry pointing outside the file never matches
+        if (length != keyBytes.length || offset < 0 || offset > buffer.limit() - length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a
+    static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Maps the index file again, e.g. after {@link PriceListIngester} replaced it.
+     */
+    public void reload() {
+        if (!Files.exists(path)) {
+            logger.info("No price-list index at {}; prices come from the Pricing API", path);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                logger.warn("Ignoring truncated price-list index {} ({} bytes)", path, size);
+                return;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                logger.warn("Ignoring price-list index {} with unknown format", path);
+                return;
+            }
+            int entries = mapped.getInt(8);
+            if (entries < 0 || HEADER_BYTES + (long) entries * ENTRY_BYTES > size) {
+                logger.warn("Ignoring truncated price-list index {} ({} entries in {} bytes)", path, entries, size);
+                return;
+            }
+            index = mapped;
+            logger.info("Loaded price-list index {} ({} prices)", path, mapped.getInt(8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes {@code prices} (index keys to price) to {@code out}, replacing it atomically.
+     */
+    static void write(Map<String, Double> prices, Path out) throws IOException {
+        List<byte[]> keys = new ArrayList<>(prices.size());
+        List<long[]> order = new ArrayList<>(prices.size()); // {hash, key index}
+        double[] values = new double[prices.size()];
+        int keyBytes = 0;
+        for (Map.Entry<String, Double> entry : prices.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            order.add(new long[]{hash(key), keys.size()});
+            values[keys.size()] = entry.getValue();
+            keys.add(key);
+            keyBytes += key.length;
+        }
+        order.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        int blobStart = HEADER_BYTES + prices.size() * ENTRY_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(blobStart + keyBytes);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(prices.size()).putInt(0);
+        int offset = blobStart;
+        for (long[] entry : order) {
+            byte[] key = keys.get((int) entry[1]);
+            buffer.putLong(entry[0]).putDouble(values[(int) entry[1]]).putInt(offset).putInt(key.length);
+            offset += key.length;
+        }
+        for (long[] entry : order) {
+            buffer.put(keys.get((int) entry[1]));
+        }
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(out.toAbsolutePath().getParent(), "price-index", ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.newcost.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds the {@link PriceListIndex} from AWS bulk price-list offer files (AmazonEC2, which also
+ * carries EBS storage, AmazonRDS and AmazonS3), read from local paths or URLs listed in
+ * {@code aws.price-list.sources}; {@code .gz} sources are decompressed on the fly.
+ * <p>
+ * The offer files run to gigabytes, so they are parsed token by token: products are reduced
+ * to an index key per SKU as they stream past, and the OnDemand terms that follow are matched
+ * against those SKUs. Only the first price tier of each product is kept.
+ */
+@Component
+public class PriceListIngester {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceListIngester.class);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final PriceListIndex priceListIndex;
+    private final List<String> sources;
+    private final Executor scanExecutor;
+
+    public PriceListIngester(PriceListIndex priceListIndex,
+                             @Value("${aws.price-list.sources:}") List<String> sources,
+                             @Qualifier("scanExecutor") Executor scanExecutor) {
+        this.priceListIndex = priceListIndex;
+        this.sources = sources;
+        this.scanExecutor = scanExecutor;
+    }
+
+    // Build once on startup if sources are configured and no index exists yet
+    @EventListener(ApplicationReadyEvent.class)
+    public void ingestIfMissing() {
+        if (!sources.isEmpty() && !priceListIndex.isLoaded()) {
+            scanExecutor.execute(this::refresh);
+        }
+    }
+
+    @Scheduled(cron = "${aws.price-list.refresh-cron:-}")
+    public void refresh() {
+        if (sources.isEmpty()) {
+            return;
+        }
+        try {
+            ingest(sources);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Price-list ingestion failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses every source, replaces the index file and reloads it. Returns the number of prices.
+     */
+    public int ingest(List<String> offerSources) throws IOException {
+        Map<String, Double> prices = new HashMap<>();
+        for (String source : offerSources) {
+            long start = System.nanoTime();
+            int before = prices.size();
+            try (InputStream in = open(source)) {
+                parseOffer(in, prices);
+            }
+            logger.info("Ingested {} prices from {} in {} ms", prices.size() - before, source,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        PriceListIndex.write(prices, priceListIndex.getPath());
+        priceListIndex.reload();
+        return prices.size();
+    }
+
+    private InputStream open(String source) throws IOException {
+        InputStream in = source.startsWith("http://") || source.startsWith("https://")
+                ? URI.create(source).toURL().openStream()
+                : Files.newInputStream(Paths.get(source));
+        in = new BufferedInputStream(in, 1 << 16);
+        return source.endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+
+    void parseOffer(InputStream in, Map<String, Double> prices) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Not a price-list offer file");
+            }
+            String offerCode = null;
+            // SKU -> index key, for the products we keep prices for
+            Map<String, String> skuKeys = new HashMap<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "offerCode" -> offerCode = parser.getText();
+                    case "products" -> readProducts(parser, offerCode, skuKeys);
+                    case "terms" -> readTerms(parser, skuKeys, prices);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private void readProducts(JsonParser parser, String offerCode, Map<String, String> skuKeys) throws IOException {
+        Map<String, String> attributes = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String sku = parser.getCurrentName();
+            parser.nextToken(); // START_OBJECT of the product
+            String productFamily = null;
+            attributes.clear();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("productFamily".equals(field)) {
+                    productFamily = parser.getText();
+                } else if ("attributes".equals(field)) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        parser.nextToken();
+                        attributes.put(name, parser.getText());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            String key = toIndexKey(offerCode, productFamily, attributes);
+            if (key != null) {
+                skuKeys.put(sku, key);
+            }
+        }
+    }
+
+    private String toIndexKey(String offerCode, String productFamily, Map<String, String> attributes) {
+        String regionCode = attributes.get("regionCode");
+        if (regionCode == null || productFamily == null || "Bring your own license".equals(attributes.get("licenseModel"))) {
+            return null;
+        }
+        if ("AmazonEC2".equals(offerCode)) {
+            if ("Compute Instance".equals(productFamily)
+                    && "NA".equals(attributes.get("preInstalledSw"))
+                    && "Used".equals(attributes.get("capacitystatus"))) {
+                return PriceListIndex.ec2Key(attributes.get("instanceType"), regionCode,
+                        attributes.get("operatingSystem"), attributes.get("tenancy"));
+            }
+            if ("Storage".equals(productFamily) && attributes.containsKey("volumeApiName")) {
+                return PriceListIndex.ebsKey(attributes.get("volumeApiName"), regionCode);
+            }
+        } else if ("AmazonRDS".equals(offerCode)) {
+            if ("Database Instance".equals(productFamily)) {
+                return PriceListIndex.rdsKey(attributes.get("instanceType"), regionCode,
+                        attributes.get("databaseEngine"), attributes.get("deploymentOption"));
+            }
+        } else if ("AmazonS3".equals(offerCode)) {
+            if ("Storage".equals(productFamily) && attributes.containsKey("volumeType")) {
+                return PriceListIndex.s3Key(attributes.get("volumeType"), regionCode);
+            }
+        }
+        return null;
+    }
+
+    private void readTerms(JsonParser parser, Map<String, String> skuKeys, Map<String, Double> prices) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String termType = parser.getCurrentName();
+            parser.nextToken();
+            if (!"OnDemand".equals(termType)) {
+                parser.skipChildren();
+                continue;
+            }
+            PriceExtractor.Dimensions dimensions = new PriceExtractor.Dimensions();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = skuKeys.get(parser.getCurrentName());
+                parser.nextToken();
+                if (key == null || prices.containsKey(key)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                dimensions.clear();
+                PriceExtractor.readOfferTerms(parser, dimensions);
+                double price = dimensions.firstTierUsd();
+                if (!Double.isNaN(price)) {
+                    prices.put(key, price);
+                }
+            }
+        }
+    }
+}
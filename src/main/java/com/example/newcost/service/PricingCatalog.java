@@ -0,0 +1,175 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.pricing.model.Filter;
+import software.amazon.awssdk.services.pricing.model.GetProductsRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-demand hourly prices from the Pricing GetProducts API, cached per
+ * (service, instance type, location, engine/OS, deployment option).
+ * <p>
+ * The offline {@link PriceListIndex} is consulted first when it has been built. Otherwise the
+ * API is used; list prices are public, so one entry is shared by every account. Found prices live for
+ * {@code aws.pricing.ttl-hours}; a product the catalog does not have is cached as 0.0 for
+ * {@code aws.pricing.negative-ttl-minutes} so it is not looked up again on every scan.
+ * Concurrent lookups of the same key share one in-flight request, and failed requests are
+ * not cached.
+ */
+@Component
+public class PricingCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(PricingCatalog.class);
+
+    private final Map<PriceKey, CachedPrice> prices = new ConcurrentHashMap<>();
+    private final AwsClientRegistry clientRegistry;
+    private final PriceListIndex priceListIndex;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    public PricingCatalog(AwsClientRegistry clientRegistry,
+                          PriceListIndex priceListIndex,
+                          @Value("${aws.pricing.ttl-hours:24}") long ttlHours,
+                          @Value("${aws.pricing.negative-ttl-minutes:60}") long negativeTtlMinutes) {
+        this.clientRegistry = clientRegistry;
+        this.priceListIndex = priceListIndex;
+        this.ttlNanos = TimeUnit.HOURS.toNanos(ttlHours);
+        this.negativeTtlNanos = TimeUnit.MINUTES.toNanos(negativeTtlMinutes);
+    }
+
+    /**
+     * Linux, shared-tenancy EC2 price; 0.0 when the catalog has no matching product or the
+     * region is unknown.
+     */
+    public CompletableFuture<Double> getEc2Price(AwsAccount account, String instanceType, String region) {
+        double indexed = priceListIndex.ec2Price(instanceType, region, "Linux", "Shared");
+        if (!Double.isNaN(indexed)) {
+            return CompletableFuture.completedFuture(indexed);
+        }
+        if (region == null) {
+            return CompletableFuture.completedFuture(0.0);
+        }
+        return get(account, new PriceKey("AmazonEC2", instanceType, getPricingRegion(region), "Linux", "Shared"));
+    }
+
+    /**
+     * Single-AZ RDS price for a Pricing API engine name (e.g. "MySQL"); 0.0 when unknown, including
+     * when {@code region} (an availability zone for RDS) is null.
+     */
+    public CompletableFuture<Double> getRdsPrice(AwsAccount account, String instanceClass, String databaseEngine,
+                                                 String region) {
+        double indexed = priceListIndex.rdsPrice(instanceClass, region, databaseEngine, "Single-AZ");
+        if (!Double.isNaN(indexed)) {
+            return CompletableFuture.completedFuture(indexed);
+        }
+        if (region == null) {
+            return CompletableFuture.completedFuture(0.0);
+        }
+        return get(account, new PriceKey("AmazonRDS", instanceClass, getPricingRegion(region), databaseEngine, "Single-AZ"));
+    }
+
+    private CompletableFuture<Double> get(AwsAccount account, PriceKey key) {
+        long now = System.nanoTime();
+        CachedPrice cached = prices.get(key);
+        if (cached != null && cached.isLive(now)) {
+            return cached.price();
+        }
+
+        prices.values().removeIf(entry -> !entry.isLive(now));
+        CompletableFuture<Double> pending = new CompletableFuture<>();
+        // In flight until the lookup completes; then re-stamped with the positive or negative TTL
+        CachedPrice placeholder = new CachedPrice(pending, 0L, true);
+        CachedPrice existing = prices.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            return existing.price();
+        }
+
+        Futures.defer(() -> fetch(account, key)).whenComplete((price, error) -> {
+            if (error != null) {
+                prices.remove(key, placeholder);
+                logger.error("Error fetching price for {} {} in {}: {}", key.serviceCode(), key.instanceType(),
+                        key.location(), Futures.unwrap(error).getMessage());
+                pending.complete(0.0);
+                return;
+            }
+            long ttl = price > 0.0 ? ttlNanos : negativeTtlNanos;
+            prices.replace(key, placeholder, new CachedPrice(pending, System.nanoTime() + ttl, false));
+            pending.complete(price);
+        });
+        return pending;
+    }
+
+    private CompletableFuture<Double> fetch(AwsAccount account, PriceKey key) {
+        List<Filter> filters = "AmazonRDS".equals(key.serviceCode())
+                ? List.of(
+                        termMatch("instanceType", key.instanceType()),
+                        termMatch("databaseEngine", key.engineOrOs()),
+                        termMatch("location", key.location()),
+                        termMatch("deploymentOption", key.deploymentOption()))
+                : List.of(
+                        termMatch("instanceType", key.instanceType()),
+                        termMatch("location", key.location()),
+                        termMatch("operatingSystem", key.engineOrOs()),
+                        termMatch("tenancy", key.deploymentOption()),
+                        termMatch("preInstalledSw", "NA"),
+                        termMatch("capacitystatus", "Used"));
+
+        GetProductsRequest request = GetProductsRequest.builder()
+                .serviceCode(key.serviceCode())
+                .filters(filters)
+                .formatVersion("aws_v1")
+                .build();
+
+        return clientRegistry.pricingAsyncClient(account).getProducts(request)
+                .thenApply(response -> {
+                    if (!response.priceList().isEmpty()) {
+                        return parsePriceFromJson(response.priceList().get(0));
+                    }
+                    return 0.0; // Not in the catalog
+                });
+    }
+
+    private Filter termMatch(String field, String value) {
+        return Filter.builder().type("TERM_MATCH").field(field).value(value).build();
+    }
+
+    private String getPricingRegion(String region) {
+        // Map AWS regions (or availability zones) to Pricing API locations
+        if (region.startsWith("us-east")) return "US East (N. Virginia)";
+        if (region.startsWith("us-west-1")) return "US West (N. California)";
+        if (region.startsWith("us-west-2")) return "US West (Oregon)";
+        if (region.startsWith("eu-west")) return "EU (Ireland)";
+        return region;
+    }
+
+    private double parsePriceFromJson(String priceJson) {
+        try {
+            double price = PriceExtractor.onDemandPrice(priceJson);
+            return Double.isNaN(price) ? 0.0 : price;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error parsing price JSON: {}", e.getMessage());
+            return 0.0;
+        }
+    }
+
+    private record PriceKey(String serviceCode, String instanceType, String location,
+                            String engineOrOs, String deploymentOption) {
+    }
+
+    private record CachedPrice(CompletableFuture<Double> price, long expiresAtNanos, boolean loading) {
+        boolean isLive(long now) {
+            return loading || now - expiresAtNanos < 0;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.newcost.service;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Bridges the SDK's async paginator publishers to {@link Stream}. Up to {@code bufferSize}
+ * items are requested ahead of the consumer, so the next page is already being fetched while
+ * the current one is mapped and serialized, but the whole inventory is never held in memory.
+ */
+public final class PublisherStreams {
+
+    private static final Object COMPLETE = new Object();
+
+    private PublisherStreams() {
+    }
+
+    /**
+     * Lazily subscribes on the first terminal operation. Consuming threads block while the buffer
+     * is empty; closing the stream (try-with-resources) cancels the subscription.
+     */
+    public static <T> Stream<T> toStream(Publisher<T> publisher, int bufferSize) {
+        BufferingSubscriber<T> subscriber = new BufferingSubscriber<>(bufferSize);
+        return StreamSupport.stream(() -> {
+                    publisher.subscribe(subscriber);
+                    return Spliterators.spliteratorUnknownSize(subscriber, Spliterator.ORDERED);
+                }, Spliterator.ORDERED, false)
+                .onClose(subscriber::cancel);
+    }
+
+    private static final class BufferingSubscriber<T> implements Subscriber<T>, Iterator<T> {
+        private final int bufferSize;
+        // One extra slot for the completion/error signal
+        private final BlockingQueue<Object> queue;
+        private volatile Subscription subscription;
+        private volatile boolean cancelled;
+        private Object next;
+        private int consumedSinceRequest;
+
+        BufferingSubscriber(int bufferSize) {
+            this.bufferSize = bufferSize;
+            this.queue = new ArrayBlockingQueue<>(bufferSize + 1);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            // The stream may have been closed before the publisher got round to subscribing
+            if (cancelled) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(bufferSize);
+        }
+
+        @Override
+        public void onNext(T item) {
+            // Never blocks: at most bufferSize items are outstanding
+            queue.add(item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            queue.add(new Failure(error));
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(COMPLETE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new IllegalStateException("Interrupted while waiting for the next page", e);
+                }
+            }
+            if (next instanceof Failure failure) {
+                throw new IllegalStateException(failure.error().getMessage(), failure.error());
+            }
+            return next != COMPLETE;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T item = (T) next;
+            next = null;
+            // Top the buffer back up in chunks rather than one request per item
+            if (++consumedSinceRequest >= Math.max(1, bufferSize / 2)) {
+                subscription.request(consumedSinceRequest);
+                consumedSinceRequest = 0;
+            }
+            return item;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    private record Failure(Throwable error) {
+    }
+}
@@ -1,83 +1,115 @@
 package com.example.newcost.service;
 
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
 import com.example.newcost.model.RdsRecommendationDTO;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
 import software.amazon.awssdk.services.cloudwatch.model.*;
-import software.amazon.awssdk.services.pricing.PricingClient;
-import software.amazon.awssdk.services.pricing.model.Filter;
-import software.amazon.awssdk.services.pricing.model.GetProductsRequest;
-import software.amazon.awssdk.services.pricing.model.GetProductsResponse;
-import software.amazon.awssdk.services.rds.RdsClient;
 import software.amazon.awssdk.services.rds.model.DBInstance;
 import software.amazon.awssdk.services.rds.model.DescribeDbInstancesResponse;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @Service
 public class RdsService {
 
     private static final Logger logger = LoggerFactory.getLogger(RdsService.class);
 
-    private final RdsClient rdsClient;
-    private final CloudWatchClient cloudWatchClient;
-    private final PricingClient pricingClient;
+    private final AwsClientRegistry clientRegistry;
+    private final Executor scanExecutor;
+    private final PricingCatalog pricingCatalog;
 
     @Autowired
-    public RdsService(RdsClient rdsClient, CloudWatchClient cloudWatchClient, PricingClient pricingClient) {
-        this.rdsClient = rdsClient;
-        this.cloudWatchClient = cloudWatchClient;
-        this.pricingClient = pricingClient;
+    public RdsService(AwsClientRegistry clientRegistry,
+                      @Qualifier("scanExecutor") Executor scanExecutor,
+                      PricingCatalog pricingCatalog) {
+        this.clientRegistry = clientRegistry;
+        this.scanExecutor = scanExecutor;
+        this.pricingCatalog = pricingCatalog;
     }
 
-    public List<RdsRecommendationDTO> getRdsRecommendations() {
-        List<DBInstance> dbInstances = listRdsInstances();
-        return dbInstances.stream()
-                .map(this::buildRdsRecommendation)
-                .collect(Collectors.toList());
+    public CompletableFuture<List<RdsRecommendationDTO>> getRdsRecommendations(AwsAccount account) {
+        return getRdsRecommendations(account, null);
     }
 
-    private List<DBInstance> listRdsInstances() {
-        try {
-            DescribeDbInstancesResponse response = rdsClient.describeDBInstances();
-            return response.dbInstances();
-        } catch (Exception e) {
-            logger.error("Error fetching RDS instances: {}", e.getMessage(), e);
-            return Collections.emptyList();
-        }
+    /**
+     * Same, with the instance listing and each per-instance lookup run under {@code permits}
+     * (when not null), so a large account stays within its caller's bound on calls in flight.
+     */
+    CompletableFuture<List<RdsRecommendationDTO>> getRdsRecommendations(AwsAccount account, AsyncPermits permits) {
+        CloudWatchAsyncClient cloudWatchClient = clientRegistry.cloudWatchAsyncClient(account);
+        return bounded(permits, () -> listRdsInstances(account))
+                .thenCompose(dbInstances -> Futures.fanOut(dbInstances,
+                        instance -> bounded(permits, () -> buildRdsRecommendation(account, cloudWatchClient, instance)),
+                        this::failedRecommendation,
+                        scanExecutor));
     }
 
-    private RdsRecommendationDTO buildRdsRecommendation(DBInstance instance) {
+    /** Keeps an instance whose analysis failed in the list, unpriced, instead of dropping the account's results. */
+    private RdsRecommendationDTO failedRecommendation(DBInstance instance, Throwable cause) {
+        logger.error("Error analysing RDS instance {}: {}", instance.dbInstanceIdentifier(), Futures.message(cause), cause);
         RdsRecommendationDTO dto = new RdsRecommendationDTO();
         dto.setDbInstanceIdentifier(instance.dbInstanceIdentifier());
         dto.setDbClusterIdentifier(instance.dbClusterIdentifier() != null ? instance.dbClusterIdentifier() : "N/A");
         dto.setEngine(instance.engine());
         dto.setCurrentInstanceTypes(Collections.singletonList(instance.dbInstanceClass()));
         dto.setCurrentStorageType(instance.storageType());
+        dto.setUtilization("N/A");
+        dto.setCurrentOndemandPrice("0.00");
+        dto.setFinding("Analysis failed: " + Futures.message(cause));
+        return dto;
+    }
 
-        // Fetch utilization metrics
-        String utilization = getCpuUtilization(instance.dbInstanceIdentifier());
-        dto.setUtilization(utilization);
+    private static <T> CompletableFuture<T> bounded(AsyncPermits permits, Supplier<CompletableFuture<T>> task) {
+        return permits != null ? permits.submit(task) : task.get();
+    }
 
-        // Fetch pricing from the aws
-        String currentPrice = getRdsOnDemandPrice(instance.dbInstanceClass(), instance.engine(), instance.availabilityZone());
-        dto.setCurrentOndemandPrice(currentPrice);
+    private CompletableFuture<List<DBInstance>> listRdsInstances(AwsAccount account) {
+        return clientRegistry.rdsAsyncClient(account).describeDBInstances()
+                .thenApply(DescribeDbInstancesResponse::dbInstances)
+                .exceptionally(e -> {
+                    Throwable cause = Futures.unwrap(e);
+                    logger.error("Error fetching RDS instances: {}", cause.getMessage(), cause);
+                    return Collections.emptyList();
+                });
+    }
 
-        // Generate recommendations
-        generateRecommendations(dto, instance, Double.parseDouble(currentPrice), utilization);
+    private CompletableFuture<RdsRecommendationDTO> buildRdsRecommendation(AwsAccount account,
+                                                                        CloudWatchAsyncClient cloudWatchClient,
+                                                                        DBInstance instance) {
+        RdsRecommendationDTO dto = new RdsRecommendationDTO();
+        dto.setDbInstanceIdentifier(instance.dbInstanceIdentifier());
+        dto.setDbClusterIdentifier(instance.dbClusterIdentifier() != null ? instance.dbClusterIdentifier() : "N/A");
+        dto.setEngine(instance.engine());
+        dto.setCurrentInstanceTypes(Collections.singletonList(instance.dbInstanceClass()));
+        dto.setCurrentStorageType(instance.storageType());
 
-        return dto;
+        // Utilization metrics and pricing are independent, so fetch them concurrently
+        CompletableFuture<String> utilization = getCpuUtilization(cloudWatchClient, instance.dbInstanceIdentifier());
+        CompletableFuture<String> currentPrice = getRdsOnDemandPrice(account,
+                instance.dbInstanceClass(), instance.engine(), instance.availabilityZone());
+
+        return utilization.thenCombine(currentPrice, (cpu, price) -> {
+                    dto.setUtilization(cpu);
+                    dto.setCurrentOndemandPrice(price);
+                    return dto;
+                })
+                // Generate recommendations
+                .thenCompose(ignored -> generateRecommendations(account, dto, instance,
+                        Double.parseDouble(dto.getCurrentOndemandPrice()), dto.getUtilization()));
     }
 
-    private String getCpuUtilization(String dbInstanceIdentifier) {
+    private CompletableFuture<String> getCpuUtilization(CloudWatchAsyncClient cloudWatchClient, String dbInstanceIdentifier) {
         try {
             Instant now = Instant.now();
             Instant startTime = now.minus(7, ChronoUnit.DAYS); // Last 7 days for utilization
@@ -95,44 +127,33 @@ public class RdsService {
                     .statistics(Statistic.AVERAGE)
                     .build();
 
-            GetMetricStatisticsResponse response = cloudWatchClient.getMetricStatistics(request);
-            if (!response.datapoints().isEmpty()) {
-                double avgCpu = response.datapoints().stream()
-                        .mapToDouble(Datapoint::average)
-                        .average()
-                        .orElse(0.0);
-                return String.format("%.2f%%", avgCpu);
-            }
+            return cloudWatchClient.getMetricStatistics(request)
+                    .thenApply(response -> {
+                        if (!response.datapoints().isEmpty()) {
+                            double avgCpu = response.datapoints().stream()
+                                    .mapToDouble(Datapoint::average)
+                                    .average()
+                                    .orElse(0.0);
+                            return String.format("%.2f%%", avgCpu);
+                        }
+                        return "N/A";
+                    })
+                    .exceptionally(e -> {
+                        Throwable cause = Futures.unwrap(e);
+                        logger.error("Error fetching CPU utilization for {}: {}", dbInstanceIdentifier, cause.getMessage(), cause);
+                        return "N/A";
+                    });
         } catch (Exception e) {
             logger.error("Error fetching CPU utilization for {}: {}", dbInstanceIdentifier, e.getMessage(), e);
         }
-        return "N/A";
+        return CompletableFuture.completedFuture("N/A");
     }
 
-    private String getRdsOnDemandPrice(String instanceClass, String engine, String region) {
-        try {
-            String pricingRegion = getPricingRegion(region);
-
-            GetProductsRequest request = GetProductsRequest.builder()
-                    .serviceCode("AmazonRDS")
-                    .filters(
-                            Filter.builder().type("TERM_MATCH").field("instanceType").value(instanceClass).build(),
-                            Filter.builder().type("TERM_MATCH").field("databaseEngine").value(normalizeEngine(engine)).build(),
-                            Filter.builder().type("TERM_MATCH").field("location").value(pricingRegion).build(),
-                            Filter.builder().type("TERM_MATCH").field("deploymentOption").value("Single-AZ").build()
-                    )
-                    .formatVersion("aws_v1")
-                    .build();
-
-            GetProductsResponse response = pricingClient.getProducts(request);
-            if (!response.priceList().isEmpty()) {
-                String priceJson = response.priceList().get(0).toString();
-                return parsePriceFromJson(priceJson);
-            }
-        } catch (Exception e) {
-            logger.error("Error fetching price for RDS {} in {}: {}", instanceClass, region, e.getMessage(), e);
-        }
-        return "0.00";
+    // Served from the shared pricing catalog, formatted like the rest of the DTO ("0.00" when unknown)
+    private CompletableFuture<String> getRdsOnDemandPrice(AwsAccount account,
+                                                          String instanceClass, String engine, String region) {
+        return pricingCatalog.getRdsPrice(account, instanceClass, normalizeEngine(engine), region)
+                .thenApply(price -> price > 0.0 ? String.format("%.4f", price) : "0.00");
     }
 
     private String normalizeEngine(String engine) {
@@ -146,65 +167,34 @@ public class RdsService {
         };
     }
 
-    private String getPricingRegion(String region) {
-        // Map AWS regions to Pricing API regions
-        if (region.startsWith("us-east")) return "US East (N. Virginia)";
-        if (region.startsWith("us-west-1")) return "US West (N. California)";
-        if (region.startsWith("us-west-2")) return "US West (Oregon)";
-        if (region.startsWith("eu-west")) return "EU (Ireland)";
-        return region;
-    }
-
-    private String parsePriceFromJson(String priceJson) {
-        try {
-            JsonNode rootNode = new ObjectMapper().readTree(priceJson);
-            JsonNode terms = rootNode.path("terms").path("OnDemand");
-            Iterator<Map.Entry<String, JsonNode>> termIter = terms.fields();
-
-            while (termIter.hasNext()) {
-                Map.Entry<String, JsonNode> term = termIter.next();
-                JsonNode priceDimensions = term.getValue().path("priceDimensions");
-                Iterator<Map.Entry<String, JsonNode>> dimensionIter = priceDimensions.fields();
-
-                while (dimensionIter.hasNext()) {
-                    Map.Entry<String, JsonNode> dimension = dimensionIter.next();
-                    String pricePerUnit = dimension.getValue().path("pricePerUnit").path("USD").asText();
-                    if (!pricePerUnit.isEmpty()) {
-                        return String.format("%.4f", Double.parseDouble(pricePerUnit));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.error("Error parsing price JSON: {}", e.getMessage(), e);
-        }
-        return "0.00";
-    }
-
-    private void generateRecommendations(RdsRecommendationDTO dto, DBInstance instance, double currentPrice, String utilization) {
+    private CompletableFuture<RdsRecommendationDTO> generateRecommendations(AwsAccount account,
+                                                                         RdsRecommendationDTO dto, DBInstance instance,
+                                                                         double currentPrice, String utilization) {
         List<String> recommendedInstanceTypes = new ArrayList<>();
         String finding = "No optimization needed";
-        String recommendedPrice = "0.00";
         double utilizationValue = parseUtilization(utilization);
 
         // Example recommendation logic based on CPU utilization
         if (utilizationValue < 20.0) {
             finding = "Underutilized instance";
             recommendedInstanceTypes = getSmallerInstanceTypes(instance.dbInstanceClass());
-            if (!recommendedInstanceTypes.isEmpty()) {
-                String recommendedType = recommendedInstanceTypes.get(0);
-                recommendedPrice = getRdsOnDemandPrice(recommendedType, instance.engine(), instance.availabilityZone());
-                dto.setRecommendedOndemandPrice(recommendedPrice);
-                dto.setRecommendedInstanceTypes(recommendedInstanceTypes);
-            }
         } else if (utilizationValue > 80.0) {
             finding = "Overutilized instance";
             recommendedInstanceTypes = getLargerInstanceTypes(instance.dbInstanceClass());
-            if (!recommendedInstanceTypes.isEmpty()) {
-                String recommendedType = recommendedInstanceTypes.get(0);
-                recommendedPrice = getRdsOnDemandPrice(recommendedType, instance.engine(), instance.availabilityZone());
-                dto.setRecommendedOndemandPrice(recommendedPrice);
-                dto.setRecommendedInstanceTypes(recommendedInstanceTypes);
-            }
+        }
+
+        CompletableFuture<String> recommendedPrice;
+        if (!recommendedInstanceTypes.isEmpty()) {
+            List<String> recommended = recommendedInstanceTypes;
+            String recommendedType = recommendedInstanceTypes.get(0);
+            recommendedPrice = getRdsOnDemandPrice(account, recommendedType, instance.engine(), instance.availabilityZone())
+                    .thenApply(price -> {
+                        dto.setRecommendedOndemandPrice(price);
+                        dto.setRecommendedInstanceTypes(recommended);
+                        return price;
+                    });
+        } else {
+            recommendedPrice = CompletableFuture.completedFuture("0.00");
         }
 
         // Storage type recommendation
@@ -213,8 +203,12 @@ public class RdsService {
             dto.setRecommendedPrice(String.format("%.2f", currentPrice * 0.8)); // Assume gp3 is ~20% cheaper
         }
 
-        dto.setFinding(finding);
-        dto.setRecommendedPrice(recommendedPrice);
+        String finalFinding = finding;
+        return recommendedPrice.thenApply(price -> {
+            dto.setFinding(finalFinding);
+            dto.setRecommendedPrice(price);
+            return dto;
+        });
     }
 
     private double parseUtilization(String utilization) {
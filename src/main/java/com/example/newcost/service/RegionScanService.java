@@ -0,0 +1,146 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.MultiRegionScanDTO;
+import com.example.newcost.model.RegionScanDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.ec2.model.Region;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a per-region scan across every region enabled for an account and merges the results,
+ * so the dashboard does not have to loop over regions one request at a time.
+ * <p>
+ * Enabled regions are discovered once per account with DescribeRegions and cached for
+ * {@code aws.region-scan.regions-ttl-minutes}. At most {@code aws.region-scan.max-concurrent-regions}
+ * region scans run at once per account, shared by all concurrent all-regions requests for it;
+ * the rest queue. Each region is timed and a failing or slow region is reported with its error
+ * instead of failing the whole scan. A region reported as timed out keeps its permit until its
+ * scan really finishes, so timeouts never let more scans run than the limit. Expired region
+ * lists and idle per-account permits are dropped by a periodic sweep.
+ */
+@Service
+public class RegionScanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegionScanService.class);
+
+    // Used for DescribeRegions when the request did not name a region
+    private static final String DISCOVERY_REGION = "us-east-1";
+
+    private final Map<String, CachedRegions> regionsByAccount = new ConcurrentHashMap<>();
+    private final KeyedPermits permitsByAccount;
+    private final AwsClientRegistry clientRegistry;
+    private final long regionTimeoutSeconds;
+    private final long regionsTtlNanos;
+
+    public RegionScanService(AwsClientRegistry clientRegistry,
+                             @Value("${aws.region-scan.max-concurrent-regions:4}") int maxConcurrentRegions,
+                             @Value("${aws.region-scan.region-timeout-seconds:60}") long regionTimeoutSeconds,
+                             @Value("${aws.region-scan.regions-ttl-minutes:360}") long regionsTtlMinutes) {
+        this.clientRegistry = clientRegistry;
+        this.permitsByAccount = new KeyedPermits(maxConcurrentRegions);
+        this.regionTimeoutSeconds = regionTimeoutSeconds;
+        this.regionsTtlNanos = TimeUnit.MINUTES.toNanos(regionsTtlMinutes);
+    }
+
+    /**
+     * Region names enabled for the account (opted-in or not requiring opt-in), sorted.
+     */
+    public CompletableFuture<List<String>> discoverRegions(AwsAccount account) {
+        long now = System.nanoTime();
+        CachedRegions cached = regionsByAccount.get(account.getFingerprint());
+        if (cached != null && now - cached.expiresAtNanos() < 0) {
+            return cached.regions();
+        }
+
+        AwsAccount discoveryAccount = account.getRegion() != null && !account.getRegion().isBlank()
+                ? account : account.withRegion(DISCOVERY_REGION);
+        CompletableFuture<List<String>> regions = clientRegistry.ec2AsyncClient(discoveryAccount).describeRegions()
+                .thenApply(response -> response.regions().stream()
+                        .map(Region::regionName)
+                        .sorted()
+                        .collect(Collectors.toList()));
+        CachedRegions entry = new CachedRegions(regions, now + regionsTtlNanos);
+        regionsByAccount.put(account.getFingerprint(), entry);
+        regions.whenComplete((names, error) -> {
+            if (error != null) {
+                regionsByAccount.remove(account.getFingerprint(), entry);
+            } else {
+                logger.debug("Discovered {} regions for {}", names.size(), account);
+            }
+        });
+        return regions;
+    }
+
+    /**
+     * Runs {@code scan} once per enabled region with the account re-targeted at that region.
+     */
+    public <T> CompletableFuture<MultiRegionScanDTO<T>> scanAllRegions(AwsAccount account, String resourceType,
+                                                                       Function<AwsAccount, CompletableFuture<List<T>>> scan) {
+        long start = System.nanoTime();
+        String fingerprint = account.getFingerprint();
+
+        return discoverRegions(account).thenCompose(regions -> {
+            // Once submitted, the running and queued scans keep the account's permits from being evicted
+            AsyncPermits permits = permitsByAccount.acquire(fingerprint);
+            List<CompletableFuture<RegionScanDTO<T>>> perRegion;
+            try {
+                perRegion = regions.stream()
+                        .map(region -> scanRegion(permits, account.withRegion(region), resourceType, scan))
+                        .collect(Collectors.toList());
+            } finally {
+                permitsByAccount.release(fingerprint);
+            }
+            return Futures.allOf(perRegion);
+        }).thenApply(results -> {
+            MultiRegionScanDTO<T> merged = new MultiRegionScanDTO<>(resourceType,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), results);
+            logger.info("All-regions {} scan for {}: {} items from {} regions in {} ms, failed: {}", resourceType,
+                    account, merged.getTotalCount(), results.size(), merged.getElapsedMs(), merged.getFailedRegions());
+            return merged;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${aws.region-scan.sweep-interval-ms:60000}")
+    public void evictIdleAccounts() {
+        long now = System.nanoTime();
+        regionsByAccount.values().removeIf(cached -> now - cached.expiresAtNanos() >= 0);
+        permitsByAccount.evictIdle();
+    }
+
+    private <T> CompletableFuture<RegionScanDTO<T>> scanRegion(AsyncPermits permits, AwsAccount regionAccount,
+                                                               String resourceType,
+                                                               Function<AwsAccount, CompletableFuture<List<T>>> scan) {
+        long[] start = new long[1];
+        // The timeout starts when the region leaves the queue
+        return permits.submit(() -> {
+                    start[0] = System.nanoTime();
+                    return Futures.defer(() -> scan.apply(regionAccount));
+                }, regionTimeoutSeconds, TimeUnit.SECONDS)
+                .handle((items, error) -> {
+                    long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start[0]);
+                    if (error != null) {
+                        String message = Futures.message(error);
+                        logger.warn("{} scan in {} failed after {} ms: {}", resourceType, regionAccount.getRegion(),
+                                latencyMs, message);
+                        return new RegionScanDTO<>(regionAccount.getRegion(), latencyMs, List.of(), message);
+                    }
+                    return new RegionScanDTO<>(regionAccount.getRegion(), latencyMs, items, null);
+                });
+    }
+
+    private record CachedRegions(CompletableFuture<List<String>> regions, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.newcost.service;
+
+import software.amazon.awssdk.services.ec2.model.Address;
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import software.amazon.awssdk.services.ec2.model.Volume;
+import software.amazon.awssdk.services.ec2.model.VolumeAttachment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an account's instances, EBS volumes and Elastic IPs with hash indexes,
+ * built once per scan by {@link Ec2Service#getInventory} and shared by the EC2, EBS and
+ * Elastic IP endpoints. Name tags are resolved while indexing so callers never re-walk
+ * {@code tags()}.
+ */
+public final class ResourceInventory {
+
+    private final List<Instance> instances;
+    private final List<Volume> volumes;
+    private final List<Address> addresses;
+
+    private final Map<String, Instance> instancesById = new HashMap<>();
+    private final Map<String, List<Instance>> instancesByType = new HashMap<>();
+    private final Map<String, Volume> volumesById = new HashMap<>();
+    private final Map<String, List<Volume>> volumesByInstanceId = new HashMap<>();
+    private final Map<String, Address> addressesByPublicIp = new HashMap<>();
+    private final Map<String, List<Address>> addressesByInstanceId = new HashMap<>();
+    // Resource ID (instance or volume) -> Name tag
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<TagKey, List<String>> resourceIdsByTag = new HashMap<>();
+
+    public ResourceInventory(List<Instance> instances, List<Volume> volumes, List<Address> addresses) {
+        this.instances = List.copyOf(instances);
+        this.volumes = List.copyOf(volumes);
+        this.addresses = List.copyOf(addresses);
+
+        for (Instance instance : this.instances) {
+            instancesById.put(instance.instanceId(), instance);
+            instancesByType.computeIfAbsent(instance.instanceTypeAsString(), k -> new ArrayList<>()).add(instance);
+            indexTags(instance.instanceId(), instance.tags());
+        }
+        for (Volume volume : this.volumes) {
+            volumesById.put(volume.volumeId(), volume);
+            for (VolumeAttachment attachment : volume.attachments()) {
+                volumesByInstanceId.computeIfAbsent(attachment.instanceId(), k -> new ArrayList<>()).add(volume);
+            }
+            indexTags(volume.volumeId(), volume.tags());
+        }
+        for (Address address : this.addresses) {
+            addressesByPublicIp.put(address.publicIp(), address);
+            if (address.instanceId() != null) {
+                addressesByInstanceId.computeIfAbsent(address.instanceId(), k -> new ArrayList<>()).add(address);
+            }
+        }
+    }
+
+    private void indexTags(String resourceId, List<Tag> tags) {
+        for (Tag tag : tags) {
+            if (tag.key().equalsIgnoreCase("Name") && !names.containsKey(resourceId)) {
+                names.put(resourceId, tag.value());
+            }
+            resourceIdsByTag.computeIfAbsent(new TagKey(tag.key(), tag.value()), k -> new ArrayList<>()).add(resourceId);
+        }
+    }
+
+    public List<Instance> getInstances() {
+        return instances;
+    }
+
+    public List<Volume> getVolumes() {
+        return volumes;
+    }
+
+    public List<Address> getAddresses() {
+        return addresses;
+    }
+
+    public Instance findInstance(String instanceId) {
+        return instancesById.get(instanceId);
+    }
+
+    /**
+     * Looks up an instance by ARN ({@code arn:aws:ec2:region:account:instance/i-...}).
+     */
+    public Instance findInstanceByArn(String instanceArn) {
+        return instancesById.get(instanceArn.substring(instanceArn.lastIndexOf('/') + 1));
+    }
+
+    public List<Instance> findInstancesByType(String instanceType) {
+        return Collections.unmodifiableList(instancesByType.getOrDefault(instanceType, List.of()));
+    }
+
+    public Volume findVolume(String volumeId) {
+        return volumesById.get(volumeId);
+    }
+
+    public List<Volume> findVolumesByInstance(String instanceId) {
+        return Collections.unmodifiableList(volumesByInstanceId.getOrDefault(instanceId, List.of()));
+    }
+
+    public Address findAddress(String publicIp) {
+        return addressesByPublicIp.get(publicIp);
+    }
+
+    public List<Address> findAddressesByInstance(String instanceId) {
+        return Collections.unmodifiableList(addressesByInstanceId.getOrDefault(instanceId, List.of()));
+    }
+
+    /**
+     * IDs of the instances and volumes carrying the tag {@code key=value}.
+     */
+    public List<String> findResourceIdsByTag(String key, String value) {
+        return Collections.unmodifiableList(resourceIdsByTag.getOrDefault(new TagKey(key, value), List.of()));
+    }
+
+    /**
+     * Name tag of an instance or volume, or null when it has none.
+     */
+    public String getName(String resourceId) {
+        return names.get(resourceId);
+    }
+
+    private record TagKey(String key, String value) {
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.FileTransformerConfiguration.FileWriteOption;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetBucketLocationRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads S3 Inventory reports: a {@code manifest.json} naming the report's gzipped CSV data
+ * files, each streamed row by row through {@link InventoryCsvReader} into one
+ * {@link InventoryAggregator}, so heap use does not grow with the number of rows.
+ * <p>
+ * Reports are read from {@code aws.s3-inventory.dir}. A manifest given as
+ * {@code s3://bucket/key} is first downloaded there, with its data files, under
+ * {@code <dir>/<bucket>/<key>}; files already present are not fetched again. Either way, data
+ * files are looked up in the {@code data/} folder next to the manifest's dated folder, the
+ * layout S3 Inventory writes.
+ */
+@Component
+public class S3InventoryLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3InventoryLoader.class);
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final AwsClientRegistry clientRegistry;
+    private final ObjectMapper objectMapper;
+    private final Executor scanExecutor;
+    private final Path inventoryDir;
+    private final int maxConcurrentDownloads;
+    private final int maxPrefixNodes;
+
+    public S3InventoryLoader(AwsClientRegistry clientRegistry,
+                             ObjectMapper objectMapper,
+                             @Qualifier("scanExecutor") Executor scanExecutor,
+                             @Value("${aws.s3-inventory.dir:${java.io.tmpdir}/newcost/s3-inventory}") String inventoryDir,
+                             @Value("${aws.s3-inventory.max-concurrent-downloads:4}") int maxConcurrentDownloads,
+                             @Value("${aws.s3.prefix-trie.max-nodes:100000}") int maxPrefixNodes) {
+        this.clientRegistry = clientRegistry;
+        this.objectMapper = objectMapper;
+        this.scanExecutor = scanExecutor;
+        this.inventoryDir = Paths.get(inventoryDir).toAbsolutePath().normalize();
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+        this.maxPrefixNodes = maxPrefixNodes;
+    }
+
+    /**
+     * Aggregates the report behind {@code manifest}: {@code s3://bucket/key}, or a path relative
+     * to the inventory directory. Only CSV reports are supported.
+     */
+    public CompletableFuture<InventoryAggregator> load(AwsAccount account, String manifest) {
+        if (!manifest.startsWith("s3://")) {
+            return CompletableFuture.supplyAsync(() -> aggregate(readManifest(resolve(manifest))), scanExecutor);
+        }
+        int slash = manifest.indexOf('/', "s3://".length());
+        if (slash < 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Manifest must be s3://bucket/key"));
+        }
+        String bucket = manifest.substring("s3://".length(), slash);
+        String key = manifest.substring(slash + 1);
+
+        return clientRegistry.s3AsyncClient(account)
+                .getBucketLocation(GetBucketLocationRequest.builder().bucket(bucket).build())
+                // The downloads can take long, so the client is leased until the last one lands
+                .thenCompose(location -> clientRegistry.withS3AsyncClient(
+                        account.withRegion(S3Service.toRegion(location.locationConstraintAsString())),
+                        s3Client -> download(s3Client, bucket, key, -1)
+                                .thenApplyAsync(this::readManifest, scanExecutor)
+                                .thenCompose(report -> downloadDataFiles(s3Client, bucket, report))))
+                .thenApplyAsync(this::aggregate, scanExecutor);
+    }
+
+    private CompletableFuture<Manifest> downloadDataFiles(S3AsyncClient s3Client, String bucket, Manifest report) {
+        AsyncPermits permits = new AsyncPermits(maxConcurrentDownloads);
+        List<CompletableFuture<Path>> files = new ArrayList<>();
+        for (JsonNode file : report.json().path("files")) {
+            String key = file.path("key").asText();
+            long size = file.path("size").asLong(-1);
+            files.add(permits.submit(() -> download(s3Client, bucket, key, size)));
+        }
+        return Futures.allOf(files).thenApply(ignored -> report);
+    }
+
+    // Skipped when the file is already there (at the expected size, when known)
+    private CompletableFuture<Path> download(S3AsyncClient s3Client, String bucket, String key, long expectedSize) {
+        Path target = inventoryDir.resolve(bucket).resolve(key).normalize();
+        if (!target.startsWith(inventoryDir)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid inventory key: " + key));
+        }
+        try {
+            if (Files.exists(target) && (expectedSize < 0 || Files.size(target) == expectedSize)) {
+                return CompletableFuture.completedFuture(target);
+            }
+            Files.createDirectories(target.getParent());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // Written to a temporary file first, so an interrupted download is never mistaken for a finished one
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        logger.info("Downloading s3://{}/{}", bucket, key);
+        return s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build(),
+                        AsyncResponseTransformer.toFile(partial,
+                                config -> config.fileWriteOption(FileWriteOption.CREATE_OR_REPLACE_EXISTING)))
+                .thenApply(response -> {
+                    try {
+                        return Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private Path resolve(String manifest) {
+        Path path = inventoryDir.resolve(manifest).normalize();
+        if (!path.startsWith(inventoryDir)) {
+            throw new IllegalArgumentException("Manifest must be inside the inventory directory");
+        }
+        return path;
+    }
+
+    private Manifest readManifest(Path path) {
+        try {
+            JsonNode json = objectMapper.readTree(path.toFile());
+            String format = json.path("fileFormat").asText();
+            if (!"CSV".equalsIgnoreCase(format)) {
+                throw new IllegalArgumentException("Unsupported inventory format: " + format + " (only CSV is supported)");
+            }
+            return new Manifest(path, json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read inventory manifest " + path, e);
+        }
+    }
+
+    private InventoryAggregator aggregate(Manifest report) {
+        long start = System.nanoTime();
+        JsonNode json = report.json();
+
+        // Columns are named in the manifest, e.g. "Bucket, Key, Size, LastModifiedDate, StorageClass"
+        String[] schema = json.path("fileSchema").asText().split(",");
+        int key = -1;
+        int size = -1;
+        int lastModified = -1;
+        int storageClass = -1;
+        for (int i = 0; i < schema.length; i++) {
+            switch (schema[i].trim().toLowerCase(Locale.ROOT)) {
+                case "key" -> key = i;
+                case "size" -> size = i;
+                case "lastmodifieddate" -> lastModified = i;
+                case "storageclass" -> storageClass = i;
+                default -> {
+                }
+            }
+        }
+        if (key < 0 || size < 0) {
+            throw new IllegalArgumentException("Inventory must include the Key and Size fields");
+        }
+
+        InventoryAggregator aggregator = new InventoryAggregator(json.path("sourceBucket").asText(), maxPrefixNodes);
+        long today = LocalDate.now(ZoneOffset.UTC).toEpochDay();
+        S3StorageClass[] classes = S3StorageClass.values();
+        Path dataDir = report.path().getParent().resolveSibling("data");
+        int files = 0;
+        for (JsonNode file : json.path("files")) {
+            String fileKey = file.path("key").asText();
+            Path dataFile = dataDir.resolve(fileKey.substring(fileKey.lastIndexOf('/') + 1));
+            try (InventoryCsvReader reader = new InventoryCsvReader(
+                    new GZIPInputStream(Files.newInputStream(dataFile), READ_BUFFER_SIZE), schema.length)) {
+                while (reader.next()) {
+                    long bytes = reader.parseLong(size);
+                    if (bytes < 0) {
+                        continue; // Delete markers have no size
+                    }
+                    long modified = lastModified < 0 || reader.isEmpty(lastModified) ? -1
+                            : InventoryAggregator.epochDay(reader.buffer(), reader.start(lastModified), reader.end(lastModified));
+                    aggregator.add(storageClass(reader, storageClass, classes), bytes,
+                            modified < 0 ? -1 : Math.max(0, today - modified),
+                            reader.buffer(), reader.start(key), reader.end(key));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read inventory data file " + dataFile, e);
+            }
+            files++;
+        }
+        logger.info("Aggregated {} inventory rows of {} from {} files in {} ms", aggregator.rows(),
+                aggregator.sourceBucket(), files, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        long unknownAges = aggregator.storage().unknownAgeObjects();
+        if (unknownAges > 0) {
+            logger.warn("{} of {} inventory rows of {} have no usable LastModifiedDate; age-based advice is off",
+                    unknownAges, aggregator.rows(), aggregator.sourceBucket());
+        }
+        return aggregator;
+    }
+
+    private static S3StorageClass storageClass(InventoryCsvReader reader, int field, S3StorageClass[] classes) {
+        if (field >= 0) {
+            for (S3StorageClass storageClass : classes) {
+                if (reader.equalsAscii(field, storageClass.apiName())) {
+                    return storageClass;
+                }
+            }
+        }
+        return S3StorageClass.STANDARD;
+    }
+
+    private record Manifest(Path path, JsonNode json) {
+    }
+}
@@ -1,47 +1,303 @@
 package com.example.newcost.service;
 
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
 import com.example.newcost.model.S3BucketDTO;
+import com.example.newcost.model.S3InventoryReportDTO;
+import com.example.newcost.model.S3ObjectDTO;
+import com.example.newcost.model.S3PrefixHeatMapDTO;
+import com.example.newcost.model.S3PrefixDTO;
+import com.example.newcost.model.S3TopObjectsDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+/**
+ * Bucket analysis runs as a pipeline: buckets start as soon as their ListBuckets page arrives,
+ * each is handled by a client in its own region (no cross-region redirects), and at most
+ * {@code aws.s3.max-concurrent-buckets} per-bucket calls are in flight per request. Results are
+ * handed out as each bucket finishes.
+ */
 @Service
 public class S3Service {
 
-    public List<S3BucketDTO> listBuckets(String accessKey, String secretKey, String region) {
-        S3Client s3Client = S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(
-                        StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
-                .build();
+    private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
+
+    // ListBuckets only reports each bucket's region when the request is paginated
+    private static final int LIST_BUCKETS_PAGE_SIZE = 1000;
+    private static final Object END_OF_BUCKETS = new Object();
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long STANDARD_IA_THRESHOLD_BYTES = 100_000_000L;
+    private static final long INTELLIGENT_TIERING_THRESHOLD_BYTES = 1_000_000_000L;
+    private static final double COLD_RANKING_MIN_SHARE = 0.01;
+
+    private final AwsClientRegistry clientRegistry;
+    private final PriceListIndex priceListIndex;
+    private final S3StorageMetrics storageMetrics;
+    private final S3InventoryLoader inventoryLoader;
+    private final ObjectMapper objectMapper;
+    private final int maxConcurrentBuckets;
+    private final int maxPrefixNodes;
+
+    @Autowired
+    public S3Service(AwsClientRegistry clientRegistry,
+                     PriceListIndex priceListIndex,
+                     S3StorageMetrics storageMetrics,
+                     S3InventoryLoader inventoryLoader,
+                     ObjectMapper objectMapper,
+                     @Value("${aws.s3.max-concurrent-buckets:16}") int maxConcurrentBuckets,
+                     @Value("${aws.s3.prefix-trie.max-nodes:100000}") int maxPrefixNodes) {
+        this.clientRegistry = clientRegistry;
+        this.priceListIndex = priceListIndex;
+        this.storageMetrics = storageMetrics;
+        this.inventoryLoader = inventoryLoader;
+        this.objectMapper = objectMapper;
+        this.maxConcurrentBuckets = maxConcurrentBuckets;
+        this.maxPrefixNodes = maxPrefixNodes;
+    }
+
+    /**
+     * Buckets sized from the daily CloudWatch storage metrics, or, when {@code exact}, by listing
+     * every object (O(objects) API calls, so only practical for small buckets). Sorted by name.
+     */
+    public CompletableFuture<List<S3BucketDTO>> listBuckets(AwsAccount account, boolean exact) {
+        Queue<S3BucketDTO> buckets = new ConcurrentLinkedQueue<>();
+        return analyzeBuckets(account, exact, buckets::add)
+                .thenApply(ignored -> buckets.stream()
+                        .sorted(Comparator.comparing(S3BucketDTO::getBucketName))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Writes one NDJSON line per bucket, in completion order, as soon as that bucket is analyzed.
+     */
+    public void writeBuckets(AwsAccount account, boolean exact, OutputStream out) throws IOException {
+        BlockingQueue<Object> finished = new LinkedBlockingQueue<>();
+        analyzeBuckets(account, exact, finished::add)
+                .whenComplete((ignored, error) -> finished.add(error != null ? Futures.unwrap(error) : END_OF_BUCKETS));
 
-        ListBucketsRequest request = ListBucketsRequest.builder().build();
-        ListBucketsResponse response = s3Client.listBuckets(request);
-
-        return response.buckets().stream()
-                .map(bucket -> {
-                    long sizeInBytes = getBucketSizeInBytes(s3Client, bucket.name());
-                    String bucketType = getBucketType(s3Client, bucket.name());
-                    String bucketRegion = getBucketRegion(s3Client, bucket.name());
-                    String recommendation = getBucketRecommendation(bucketType, sizeInBytes);
-                    String estimatedSavings = estimateMonthlySavings(bucketType, sizeInBytes);
-
-                    return new S3BucketDTO(
-                            bucket.name(),
-                            formatStorageSize(sizeInBytes),
-                            bucketType,
-                            bucketRegion,
-                            recommendation,
-                            estimatedSavings
-                    );
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            while (true) {
+                Object next;
+                try {
+                    next = finished.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for bucket analysis", e);
+                }
+                if (next == END_OF_BUCKETS) {
+                    break;
+                }
+                if (next instanceof Throwable error) {
+                    throw new IllegalStateException(error.getMessage(), error);
+                }
+                objectMapper.writeValue(generator, next);
+                generator.writeRaw('\n');
+                generator.flush();
+            }
+        }
+    }
+
+    /**
+     * Analyzes every bucket of the account, passing each result to {@code onBucket} (from SDK
+     * threads) as it completes. A bucket that fails is reported as such rather than failing
+     * the others; only a failed ListBuckets fails the returned future.
+     */
+    public CompletableFuture<Void> analyzeBuckets(AwsAccount account, boolean exact, Consumer<S3BucketDTO> onBucket) {
+        S3AsyncClient s3Client = clientRegistry.s3AsyncClient(account);
+        AsyncPermits permits = new AsyncPermits(maxConcurrentBuckets);
+        // Publisher signals are serialized, so onNext can append to plain lists
+        List<CompletableFuture<?>> exactScans = new ArrayList<>();
+        List<CompletableFuture<BucketLocation>> locations = new ArrayList<>();
+
+        ListBucketsRequest request = ListBucketsRequest.builder().maxBuckets(LIST_BUCKETS_PAGE_SIZE).build();
+        return s3Client.listBucketsPaginator(request)
+                .buckets()
+                .subscribe(bucket -> {
+                    CompletableFuture<BucketLocation> location = locate(s3Client, bucket, permits);
+                    if (exact) {
+                        exactScans.add(location
+                                .thenCompose(located -> permits.submit(() -> analyzeBucket(account, located)))
+                                .exceptionally(e -> failedBucket(bucket.name(), e))
+                                .thenAccept(onBucket));
+                    } else {
+                        locations.add(location.exceptionally(e -> {
+                            onBucket.accept(failedBucket(bucket.name(), e));
+                            return null;
+                        }));
+                    }
                 })
-                .collect(Collectors.toList());
+                .thenCompose(ignored -> exact
+                        ? CompletableFuture.allOf(exactScans.toArray(new CompletableFuture<?>[0]))
+                        : Futures.allOf(locations).thenCompose(located -> analyzeFromMetrics(account, located, onBucket)));
+    }
+
+    /**
+     * Analyzes a bucket from its S3 Inventory report (see {@link S3InventoryLoader}) rather than
+     * by listing it, with the same recommendations as {@link #listBuckets}, plus its top
+     * prefixes by size or, when {@code byColdShare}, by share of cold data.
+     */
+    public CompletableFuture<S3InventoryReportDTO> analyzeInventory(AwsAccount account, String manifest,
+                                                                    int topPrefixes, boolean byColdShare) {
+        long start = System.nanoTime();
+        return inventoryLoader.load(account, manifest).thenCompose(inventory ->
+                // The report may come from another account, so an unknown region falls back to the caller's
+                getBucketRegion(clientRegistry.s3AsyncClient(account), inventory.sourceBucket())
+                        .exceptionally(e -> account.getRegion())
+                        .thenApply(region -> new S3InventoryReportDTO(manifest, inventory.rows(),
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                                toBucketDTO(inventory.sourceBucket(), region, inventory.storage()),
+                                topPrefixes(inventory.prefixes(), topPrefixes, byColdShare))));
+    }
+
+    /**
+     * Prefix heat map of one bucket from a single listing pass, against the bucket's own region.
+     */
+    public CompletableFuture<S3PrefixHeatMapDTO> getPrefixHeatMap(AwsAccount account, String bucketName,
+                                                                  int top, boolean byColdShare) {
+        return getBucketRegion(clientRegistry.s3AsyncClient(account), bucketName).thenCompose(region ->
+                clientRegistry.withS3AsyncClient(account.withRegion(region), s3Client -> {
+                    PrefixTrie prefixes = new PrefixTrie(maxPrefixNodes, false);
+                    long now = System.currentTimeMillis();
+                    return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).build())
+                            .contents()
+                            .subscribe(object -> prefixes.add(object.key(), object.size(),
+                                    Math.max(0, now - object.lastModified().toEpochMilli()) / DAY_MILLIS))
+                            .thenApply(ignored -> new S3PrefixHeatMapDTO(bucketName, region, byColdShare ? "cold" : "size",
+                                    prefixes.totalBytes(), prefixes.totalObjects(), prefixes.nodeCount() - 1,
+                                    prefixes.maxUndercountBytes(), topPrefixes(prefixes, top, byColdShare)));
+                }));
+    }
+
+    /**
+     * The {@code k} largest and {@code k} oldest objects of one bucket from a single listing
+     * pass; only the listed objects currently kept are held, so memory does not grow with the
+     * bucket. Ties go to the lexicographically smaller key, so results are stable across runs.
+     */
+    public CompletableFuture<S3TopObjectsDTO> getTopObjects(AwsAccount account, String bucketName, int k) {
+        return getBucketRegion(clientRegistry.s3AsyncClient(account), bucketName).thenCompose(region ->
+                clientRegistry.withS3AsyncClient(account.withRegion(region), s3Client -> {
+                    Comparator<S3Object> byKeyDescending = Comparator.comparing(S3Object::key, Comparator.reverseOrder());
+                    BoundedTopK<S3Object> largest = new BoundedTopK<>(k,
+                            Comparator.comparingLong(S3Object::size).thenComparing(byKeyDescending));
+                    BoundedTopK<S3Object> oldest = new BoundedTopK<>(k,
+                            Comparator.comparing(S3Object::lastModified, Comparator.reverseOrder()).thenComparing(byKeyDescending));
+                    long[] totals = new long[2];
+                    return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(bucketName).build())
+                            .contents()
+                            .subscribe(object -> {
+                                totals[0]++;
+                                totals[1] += object.size();
+                                largest.offer(object);
+                                oldest.offer(object);
+                            })
+                            .thenApply(ignored -> new S3TopObjectsDTO(bucketName, region, totals[0], totals[1],
+                                    toObjectDTOs(largest.sorted()), toObjectDTOs(oldest.sorted())));
+                }));
+    }
+
+    private static List<S3ObjectDTO> toObjectDTOs(List<S3Object> objects) {
+        List<S3ObjectDTO> result = new ArrayList<>(objects.size());
+        for (S3Object object : objects) {
+            result.add(new S3ObjectDTO(object.key(), object.lastModified().toString(), object.eTag(),
+                    object.size(), S3StorageClass.of(object.storageClassAsString()).apiName()));
+        }
+        return result;
+    }
+
+    // Ranking by cold share only considers prefixes holding at least 1% of the bucket
+    private List<S3PrefixDTO> topPrefixes(PrefixTrie prefixes, int top, boolean byColdShare) {
+        int[] nodes = prefixes.top(top, byColdShare, (long) (prefixes.totalBytes() * COLD_RANKING_MIN_SHARE));
+        List<S3PrefixDTO> result = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            long bytes = prefixes.bytes(node);
+            result.add(new S3PrefixDTO(prefixes.prefix(node), prefixes.depth(node), bytes, formatStorageSize(bytes),
+                    prefixes.objects(node), prefixes.coldBytes(node), prefixes.coldShare(node),
+                    Math.round(prefixes.averageAgeDays(node) * 10.0) / 10.0));
+        }
+        return result;
+    }
+
+    private CompletableFuture<BucketLocation> locate(S3AsyncClient s3Client, Bucket bucket, AsyncPermits permits) {
+        if (bucket.bucketRegion() != null && !bucket.bucketRegion().isEmpty()) {
+            return CompletableFuture.completedFuture(new BucketLocation(bucket.name(), bucket.bucketRegion()));
+        }
+        return permits.submit(() -> getBucketRegion(s3Client, bucket.name()))
+                .thenApply(region -> new BucketLocation(bucket.name(), region));
+    }
+
+    // Storage metrics live in each bucket's region, so buckets are grouped and fetched per region
+    private CompletableFuture<Void> analyzeFromMetrics(AwsAccount account, List<BucketLocation> located,
+                                                       Consumer<S3BucketDTO> onBucket) {
+        Map<String, List<String>> bucketsByRegion = new LinkedHashMap<>();
+        for (BucketLocation location : located) {
+            if (location != null) {
+                bucketsByRegion.computeIfAbsent(location.region(), region -> new ArrayList<>()).add(location.name());
+            }
+        }
+        List<CompletableFuture<Void>> regions = new ArrayList<>();
+        bucketsByRegion.forEach((region, bucketNames) -> regions.add(
+                storageMetrics.fetch(account.withRegion(region), bucketNames)
+                        .exceptionally(e -> {
+                            logger.warn("S3 storage metrics failed in {}: {}", region, Futures.unwrap(e).getMessage());
+                            return Map.of();
+                        })
+                        .thenAccept(storage -> bucketNames.forEach(bucketName ->
+                                onBucket.accept(toBucketDTO(bucketName, region, storage.get(bucketName)))))));
+        return CompletableFuture.allOf(regions.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private S3BucketDTO toBucketDTO(String bucketName, String region, BucketStorage storage) {
+        if (storage == null) {
+            return new S3BucketDTO(bucketName, "Unknown", "Unknown", region,
+                    "Storage metrics unavailable", "$0.00");
+        }
+        Savings savings = estimateMonthlySavings(storage, region);
+        return new S3BucketDTO(
+                bucketName,
+                formatStorageSize(storage.totalBytes()),
+                storage.dominantClass().apiName(),
+                region,
+                savings.recommendation(),
+                String.format("$%.2f", savings.monthly())
+        );
+    }
+
+    private S3BucketDTO failedBucket(String bucketName, Throwable error) {
+        String message = Futures.unwrap(error).getMessage();
+        logger.warn("S3 bucket analysis failed for {}: {}", bucketName, message);
+        return new S3BucketDTO(bucketName, "Unknown", "Unknown", "Unknown", "Analysis failed: " + message, "$0.00");
+    }
+
+    // One listing pass gives size, class mix and ages, against the bucket's own region
+    private CompletableFuture<S3BucketDTO> analyzeBucket(AwsAccount account, BucketLocation location) {
+        return clientRegistry.withS3AsyncClient(account.withRegion(location.region()),
+                        s3Client -> scanObjects(s3Client, location.name()))
+                .thenApply(storage -> toBucketDTO(location.name(), location.region(), storage));
     }
 
     private String formatStorageSize(long sizeInBytes) {
@@ -56,93 +312,102 @@ public class S3Service {
         }
     }
 
-    private String getBucketType(S3Client s3Client, String bucketName) {
-        try {
-            ListObjectsV2Request request = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .maxKeys(1)
-                    .build();
-            ListObjectsV2Response response = s3Client.listObjectsV2(request);
-
-            if (!response.contents().isEmpty()) {
-                return response.contents().get(0).storageClassAsString();
-            }
-        } catch (Exception ignored) {
-        }
-        return "STANDARD";
-    }
-
-    private String getBucketRegion(S3Client s3Client, String bucketName) {
-        try {
-            GetBucketLocationResponse response = s3Client.getBucketLocation(
-                    GetBucketLocationRequest.builder().bucket(bucketName).build()
-            );
-            String regionCode = response.locationConstraintAsString();
-
-            if (regionCode == null || regionCode.isEmpty()) {
-                return "us-east-1";
-            } else if ("EU".equalsIgnoreCase(regionCode)) {
-                return "eu-west-1";
-            } else {
-                return regionCode;
-            }
-        } catch (S3Exception e) {
-            throw new RuntimeException("Failed to fetch bucket region: " + e.getMessage(), e);
-        }
+    private CompletableFuture<String> getBucketRegion(S3AsyncClient s3Client, String bucketName) {
+        return s3Client.getBucketLocation(GetBucketLocationRequest.builder().bucket(bucketName).build())
+                .thenApply(response -> toRegion(response.locationConstraintAsString()))
+                .exceptionally(e -> {
+                    Throwable cause = Futures.unwrap(e);
+                    throw new CompletionException(
+                            new RuntimeException("Failed to fetch bucket region: " + cause.getMessage(), cause));
+                });
     }
 
-    private String getBucketRecommendation(String bucketType, long sizeInBytes) {
-        if ("STANDARD".equals(bucketType)) {
-            if (sizeInBytes > 1_000_000_000) {
-                return "Consider moving to Intelligent-Tiering for cost savings";
-            } else if (sizeInBytes > 100_000_000) {
-                return "Consider Standard-IA for infrequently accessed data";
-            }
+    // GetBucketLocation reports us-east-1 as no constraint and eu-west-1 by its legacy name
+    static String toRegion(String locationConstraint) {
+        if (locationConstraint == null || locationConstraint.isEmpty()) {
+            return "us-east-1";
+        } else if ("EU".equalsIgnoreCase(locationConstraint)) {
+            return "eu-west-1";
+        } else {
+            return locationConstraint;
         }
-        return "No recommendation";
     }
 
-    private long getBucketSizeInBytes(S3Client s3Client, String bucketName) {
-        long totalSize = 0;
-        String continuationToken = null;
+    private CompletableFuture<BucketStorage> scanObjects(S3AsyncClient s3Client, String bucketName) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .build();
 
-        do {
-            ListObjectsV2Request request = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .continuationToken(continuationToken)
-                    .build();
+        BucketStorage storage = new BucketStorage();
+        storage.setObjectCount(0);
+        long now = System.currentTimeMillis();
+        // The paginator follows continuation tokens; elements are delivered one at a time
+        return s3Client.listObjectsV2Paginator(request)
+                .contents()
+                .subscribe(object -> storage.addObject(S3StorageClass.of(object.storageClassAsString()), object.size(),
+                        Math.max(0, now - object.lastModified().toEpochMilli()) / DAY_MILLIS))
+                .thenApply(ignored -> storage);
+    }
 
-            ListObjectsV2Response response = s3Client.listObjectsV2(request);
-            totalSize += response.contents().stream()
-                    .mapToLong(S3Object::size)
-                    .sum();
+    /**
+     * Savings from the bucket's actual class mix. With every object's age known, Standard data
+     * older than 30 days is priced as moving to Standard-IA, and older than 90 days to Glacier
+     * Instant Retrieval; from storage metrics alone, or when some ages are unknown, the Standard
+     * share is sized against Intelligent-Tiering or Standard-IA as before. Reduced Redundancy is dearer than Standard.
+     */
+    private Savings estimateMonthlySavings(BucketStorage storage, String region) {
+        double standardRate = getS3Price(S3StorageClass.STANDARD, region);
+        long standard = storage.bytes(S3StorageClass.STANDARD);
+        List<String> recommendations = new ArrayList<>(2);
+        double savings = 0.0;
 
-            continuationToken = response.nextContinuationToken();
-        } while (continuationToken != null);
+        if (storage.hasAges()) {
+            long cold = storage.bytesOlderThan(S3StorageClass.STANDARD, 90);
+            long cool = storage.bytesOlderThan(S3StorageClass.STANDARD, 30) - cold;
+            if (cool + cold > STANDARD_IA_THRESHOLD_BYTES) {
+                savings += toGb(cool) * Math.max(0.0, standardRate - getS3Price(S3StorageClass.STANDARD_IA, region))
+                        + toGb(cold) * Math.max(0.0, standardRate - getS3Price(S3StorageClass.GLACIER_IR, region));
+                recommendations.add(String.format("%.0f%% of Standard data is over 30 days old — add lifecycle "
+                        + "transitions to Standard-IA at 30 days and Glacier Instant Retrieval at 90 days",
+                        100.0 * (cool + cold) / standard));
+            }
+        } else if (standard > INTELLIGENT_TIERING_THRESHOLD_BYTES) {
+            double intelligentTieringRate = getS3Price("Intelligent-Tiering Infrequent Access", region, 0.0125);
+            savings += toGb(standard) * Math.max(0.0, standardRate - intelligentTieringRate);
+            recommendations.add("Consider moving to Intelligent-Tiering for cost savings");
+        } else if (standard > STANDARD_IA_THRESHOLD_BYTES) {
+            savings += toGb(standard) * Math.max(0.0, standardRate - getS3Price(S3StorageClass.STANDARD_IA, region));
+            recommendations.add("Consider Standard-IA for infrequently accessed data");
+        }
 
-        return totalSize;
-    }
+        long reducedRedundancy = storage.bytes(S3StorageClass.REDUCED_REDUNDANCY);
+        double reducedRedundancyPremium = getS3Price(S3StorageClass.REDUCED_REDUNDANCY, region) - standardRate;
+        if (reducedRedundancy > 0 && reducedRedundancyPremium > 0) {
+            savings += toGb(reducedRedundancy) * reducedRedundancyPremium;
+            recommendations.add("Move Reduced Redundancy data to Standard, which is cheaper and more durable");
+        }
 
-    private String estimateMonthlySavings(String storageClass, long sizeInBytes) {
-        double standardRate = 0.023;
-        double intelligentTieringRate = 0.0125;
-        double standardIARate = 0.0125;
+        return new Savings(recommendations.isEmpty() ? "No recommendation" : String.join("; ", recommendations),
+                savings);
+    }
 
-        double sizeInGB = sizeInBytes / (1024.0 * 1024.0 * 1024.0);
+    private static double toGb(long bytes) {
+        return bytes / (1024.0 * 1024.0 * 1024.0);
+    }
 
-        double currentCost = sizeInGB * standardRate;
-        double estimatedCost = currentCost;
+    private double getS3Price(S3StorageClass storageClass, String region) {
+        return getS3Price(storageClass.priceVolumeType(), region, storageClass.defaultRate());
+    }
 
-        if ("STANDARD".equals(storageClass)) {
-            if (sizeInBytes > 1_000_000_000) {
-                estimatedCost = sizeInGB * intelligentTieringRate;
-            } else if (sizeInBytes > 100_000_000) {
-                estimatedCost = sizeInGB * standardIARate;
-            }
-        }
+    // Regional per-GB price from the offline price list when it has been built
+    private double getS3Price(String volumeType, String region, double defaultRate) {
+        double indexed = priceListIndex.s3Price(volumeType, region);
+        return Double.isNaN(indexed) ? defaultRate : indexed;
+    }
 
-        double savings = currentCost - estimatedCost;
-        return savings > 0 ? String.format("$%.2f", savings) : "$0.00";
+    private record BucketLocation(String name, String region) {
     }
 
+    private record Savings(String recommendation, double monthly) {
+    }
 }
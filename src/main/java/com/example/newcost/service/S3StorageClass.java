@@ -0,0 +1,73 @@
+package com.example.newcost.service;
+
+import java.util.List;
+
+/**
+ * S3 storage classes as ListObjectsV2 reports them, with the {@code StorageType} dimension
+ * values under which the daily {@code BucketSizeBytes} metric in {@code AWS/S3} counts their
+ * bytes (including per-object overhead billed at the class rate), and the price-list volume
+ * type and us-east-1 per-GB-month rate used when the offline price list has no entry.
+ * Intelligent-Tiering is priced at its frequent-access tier.
+ */
+public enum S3StorageClass {
+    STANDARD("STANDARD", "Standard", 0.023,
+            List.of("StandardStorage")),
+    INTELLIGENT_TIERING("INTELLIGENT_TIERING", "Intelligent-Tiering Frequent Access", 0.023,
+            List.of("IntelligentTieringFAStorage", "IntelligentTieringIAStorage", "IntelligentTieringAAStorage",
+                    "IntelligentTieringAIAStorage", "IntelligentTieringDAAStorage")),
+    STANDARD_IA("STANDARD_IA", "Standard - Infrequent Access", 0.0125,
+            List.of("StandardIAStorage", "StandardIASizeOverhead")),
+    ONEZONE_IA("ONEZONE_IA", "One Zone - Infrequent Access", 0.01,
+            List.of("OneZoneIAStorage", "OneZoneIASizeOverhead")),
+    REDUCED_REDUNDANCY("REDUCED_REDUNDANCY", "Reduced Redundancy", 0.024,
+            List.of("ReducedRedundancyStorage")),
+    GLACIER_IR("GLACIER_IR", "Glacier Instant Retrieval", 0.004,
+            List.of("GlacierInstantRetrievalStorage", "GlacierInstantRetrievalSizeOverhead")),
+    GLACIER("GLACIER", "Amazon Glacier", 0.0036,
+            List.of("GlacierStorage", "GlacierStagingStorage", "GlacierObjectOverhead", "GlacierS3ObjectOverhead")),
+    DEEP_ARCHIVE("DEEP_ARCHIVE", "Glacier Deep Archive", 0.00099,
+            List.of("DeepArchiveStorage", "DeepArchiveStagingStorage", "DeepArchiveObjectOverhead",
+                    "DeepArchiveS3ObjectOverhead"));
+
+    private static final S3StorageClass[] VALUES = values();
+
+    private final String apiName;
+    private final String priceVolumeType;
+    private final double defaultRate;
+    private final List<String> storageTypes;
+
+    S3StorageClass(String apiName, String priceVolumeType, double defaultRate, List<String> storageTypes) {
+        this.apiName = apiName;
+        this.priceVolumeType = priceVolumeType;
+        this.defaultRate = defaultRate;
+        this.storageTypes = storageTypes;
+    }
+
+    public String apiName() {
+        return apiName;
+    }
+
+    public String priceVolumeType() {
+        return priceVolumeType;
+    }
+
+    public double defaultRate() {
+        return defaultRate;
+    }
+
+    public List<String> storageTypes() {
+        return storageTypes;
+    }
+
+    // Objects listed without a class are STANDARD; unknown classes are counted as STANDARD too
+    public static S3StorageClass of(String apiName) {
+        if (apiName != null) {
+            for (S3StorageClass storageClass : VALUES) {
+                if (storageClass.apiName.equals(apiName)) {
+                    return storageClass;
+                }
+            }
+        }
+        return STANDARD;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricStat;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sizes buckets from the free daily S3 storage metrics instead of listing their objects:
+ * {@code BucketSizeBytes} for every storage type of every bucket plus {@code NumberOfObjects},
+ * all in one batched GetMetricData pass through {@link MetricDataBatcher}. S3 publishes these
+ * once a day, about a day late, in the bucket's own region.
+ */
+@Component
+public class S3StorageMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3StorageMetrics.class);
+
+    private static final int DAY_SECONDS = 86400;
+    // Long enough to always cover the latest published datapoint
+    private static final int LOOKBACK_DAYS = 3;
+
+    private final AwsClientRegistry clientRegistry;
+    private final MetricDataBatcher metricDataBatcher;
+
+    public S3StorageMetrics(AwsClientRegistry clientRegistry, MetricDataBatcher metricDataBatcher) {
+        this.clientRegistry = clientRegistry;
+        this.metricDataBatcher = metricDataBatcher;
+    }
+
+    /**
+     * Latest storage per bucket, for buckets that all live in {@code regionAccount}'s region.
+     * Buckets with no datapoints (empty, or created within the last day) have zero bytes; buckets
+     * with any series lost to a failed GetMetricData call are left out of the result as unknown.
+     */
+    public CompletableFuture<Map<String, BucketStorage>> fetch(AwsAccount regionAccount, List<String> bucketNames) {
+        S3StorageClass[] classes = S3StorageClass.values();
+        List<MetricDataQuery> queries = new ArrayList<>();
+        for (int i = 0; i < bucketNames.size(); i++) {
+            String bucketName = bucketNames.get(i);
+            for (S3StorageClass storageClass : classes) {
+                List<String> storageTypes = storageClass.storageTypes();
+                for (int t = 0; t < storageTypes.size(); t++) {
+                    queries.add(query(seriesId(i, storageClass, t), bucketName,
+                            "BucketSizeBytes", storageTypes.get(t)));
+                }
+            }
+            queries.add(query(MetricDataBatcher.queryId("b", i, "n"), bucketName, "NumberOfObjects", "AllStorageTypes"));
+        }
+
+        Instant now = Instant.now();
+        logger.info("Fetching S3 storage metrics for {} buckets in {} ({} metric queries)",
+                bucketNames.size(), regionAccount.getRegion(), queries.size());
+        return metricDataBatcher.fetch(clientRegistry.cloudWatchAsyncClient(regionAccount), queries,
+                        now.minus(LOOKBACK_DAYS, ChronoUnit.DAYS), now)
+                .thenApply(values -> {
+                    Map<String, BucketStorage> storage = new HashMap<>();
+                    int incomplete = 0;
+                    for (int i = 0; i < bucketNames.size(); i++) {
+                        // A failed batch drops its ids; a bucket missing any of its series would be undercounted
+                        if (!hasAllSeries(values, i, classes)) {
+                            incomplete++;
+                            continue;
+                        }
+                        BucketStorage bucket = new BucketStorage();
+                        bucket.setObjectCount(latest(values.get(MetricDataBatcher.queryId("b", i, "n"))));
+                        for (S3StorageClass storageClass : classes) {
+                            for (int t = 0; t < storageClass.storageTypes().size(); t++) {
+                                bucket.add(storageClass, latest(values.get(seriesId(i, storageClass, t))));
+                            }
+                        }
+                        storage.put(bucketNames.get(i), bucket);
+                    }
+                    if (incomplete > 0) {
+                        logger.warn("S3 storage metrics incomplete for {} of {} buckets in {}; leaving them out",
+                                incomplete, bucketNames.size(), regionAccount.getRegion());
+                    }
+                    return storage;
+                });
+    }
+
+    private static String seriesId(int bucket, S3StorageClass storageClass, int storageType) {
+        return MetricDataBatcher.queryId("b", bucket, "c" + storageClass.ordinal() + "t" + storageType);
+    }
+
+    private static boolean hasAllSeries(Map<String, List<Double>> values, int bucket, S3StorageClass[] classes) {
+        if (!values.containsKey(MetricDataBatcher.queryId("b", bucket, "n"))) {
+            return false;
+        }
+        for (S3StorageClass storageClass : classes) {
+            for (int t = 0; t < storageClass.storageTypes().size(); t++) {
+                if (!values.containsKey(seriesId(bucket, storageClass, t))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private MetricDataQuery query(String id, String bucketName, String metricName, String storageType) {
+        return MetricDataQuery.builder()
+                .id(id)
+                .metricStat(MetricStat.builder()
+                        .metric(Metric.builder()
+                                .namespace("AWS/S3")
+                                .metricName(metricName)
+                                .dimensions(Dimension.builder().name("BucketName").value(bucketName).build(),
+                                        Dimension.builder().name("StorageType").value(storageType).build())
+                                .build())
+                        .period(DAY_SECONDS)
+                        .stat("Average")
+                        .build())
+                .returnData(true)
+                .build();
+    }
+
+    // Values come newest first
+    private static long latest(List<Double> values) {
+        return values.isEmpty() ? 0L : values.get(0).longValue();
+    }
+}
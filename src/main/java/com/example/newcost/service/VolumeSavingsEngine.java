@@ -0,0 +1,205 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.VolumeSavingsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.Metric;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricStat;
+import software.amazon.awssdk.services.ec2.model.Volume;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Evaluates every {@link VolumeSavingsRule} bean against an account's EBS volumes.
+ * <p>
+ * Usage for all attached volumes is fetched in one batched GetMetricData pass through
+ * {@link MetricDataBatcher}: daily VolumeReadOps, VolumeWriteOps and VolumeIdleTime sums for
+ * every attached volume, plus daily one-minute maxima of ops and bytes for io1, io2 and gp3,
+ * whose provisioned performance can be rightsized. Unattached volumes need no metrics.
+ */
+@Service
+public class VolumeSavingsEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(VolumeSavingsEngine.class);
+
+    private static final String NO_SAVINGS_REASON = "No major savings opportunity detected";
+    private static final int DAY_SECONDS = 86400;
+    // Query id suffixes per volume: activity sums, plus one-minute peaks for provisioned types
+    private static final String[] ACTIVITY_SERIES = {"r", "w", "i"};
+    private static final String[] PEAK_SERIES = {"r", "w", "i", "pr", "pw", "br", "bw"};
+
+    private final AwsClientRegistry clientRegistry;
+    private final MetricDataBatcher metricDataBatcher;
+    private final EbsPricing pricing;
+    private final List<VolumeSavingsRule> rules;
+    private final int lookbackDays;
+
+    public VolumeSavingsEngine(AwsClientRegistry clientRegistry,
+                               MetricDataBatcher metricDataBatcher,
+                               EbsPricing pricing,
+                               List<VolumeSavingsRule> rules,
+                               @Value("${aws.ebs-savings.lookback-days:14}") int lookbackDays) {
+        this.clientRegistry = clientRegistry;
+        this.metricDataBatcher = metricDataBatcher;
+        this.pricing = pricing;
+        this.rules = rules;
+        this.lookbackDays = lookbackDays;
+    }
+
+    /**
+     * One suggestion per volume, in input order: the best-paying matching rule, or a zero
+     * saving when none matches.
+     */
+    public CompletableFuture<List<VolumeSavingsDTO>> evaluate(AwsAccount account, List<Volume> volumes) {
+        String region = account.getRegion();
+        return fetchUsage(account, volumes).thenApply(usage -> {
+            List<VolumeSavingsDTO> suggestions = new ArrayList<>(volumes.size());
+            for (int i = 0; i < volumes.size(); i++) {
+                suggestions.add(evaluate(volumes.get(i), region, usage[i]));
+            }
+            return suggestions;
+        });
+    }
+
+    private VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage) {
+        double monthlyCost = pricing.monthlyCost(volume, region);
+        VolumeSavingsDTO best = null;
+        for (VolumeSavingsRule rule : rules) {
+            VolumeSavingsDTO suggestion = rule.evaluate(volume, region, usage, monthlyCost);
+            if (suggestion != null && (best == null || suggestion.potentialSavings() > best.potentialSavings())) {
+                best = suggestion;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        return new VolumeSavingsDTO(volume.volumeId(), volume.size(), volume.volumeTypeAsString(), "none",
+                NO_SAVINGS_REASON, Math.round(monthlyCost * 100.0) / 100.0, 0.0);
+    }
+
+    // Usage per volume, in input order; NONE for unattached volumes, when CloudWatch has nothing,
+    // and when any of the volume's series was lost to a failed GetMetricData call
+    private CompletableFuture<VolumeUsage[]> fetchUsage(AwsAccount account, List<Volume> volumes) {
+        VolumeUsage[] usage = new VolumeUsage[volumes.size()];
+        List<MetricDataQuery> queries = new ArrayList<>();
+        for (int i = 0; i < volumes.size(); i++) {
+            usage[i] = VolumeUsage.NONE;
+            Volume volume = volumes.get(i);
+            if (volume.attachments().isEmpty()) {
+                continue;
+            }
+            String volumeId = volume.volumeId();
+            queries.add(query(seriesId(i, "r"), volumeId, "VolumeReadOps", "Sum"));
+            queries.add(query(seriesId(i, "w"), volumeId, "VolumeWriteOps", "Sum"));
+            queries.add(query(seriesId(i, "i"), volumeId, "VolumeIdleTime", "Sum"));
+            if (hasProvisionedPerformance(volume)) {
+                queries.add(query(seriesId(i, "pr"), volumeId, "VolumeReadOps", "Maximum"));
+                queries.add(query(seriesId(i, "pw"), volumeId, "VolumeWriteOps", "Maximum"));
+                queries.add(query(seriesId(i, "br"), volumeId, "VolumeReadBytes", "Maximum"));
+                queries.add(query(seriesId(i, "bw"), volumeId, "VolumeWriteBytes", "Maximum"));
+            }
+        }
+        if (queries.isEmpty()) {
+            return CompletableFuture.completedFuture(usage);
+        }
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        Instant start = now.minus(lookbackDays, ChronoUnit.DAYS);
+        logger.info("Fetching EBS usage for {} volumes ({} metric queries)", volumes.size(), queries.size());
+        return metricDataBatcher.fetch(clientRegistry.cloudWatchAsyncClient(account), queries, start, now)
+                .thenApply(values -> {
+                    int incomplete = 0;
+                    for (int i = 0; i < usage.length; i++) {
+                        Volume volume = volumes.get(i);
+                        if (volume.attachments().isEmpty()) {
+                            continue;
+                        }
+                        boolean peaks = hasProvisionedPerformance(volume);
+                        // A failed batch drops its ids; zeros in their place would read as an idle volume
+                        if (!hasAllSeries(values, i, peaks)) {
+                            incomplete++;
+                            continue;
+                        }
+                        List<Double> reads = values.get(seriesId(i, "r"));
+                        if (reads.isEmpty()) {
+                            continue; // No datapoints
+                        }
+                        usage[i] = new VolumeUsage(
+                                reads.size(),
+                                sum(reads),
+                                sum(values.get(seriesId(i, "w"))),
+                                sum(values.get(seriesId(i, "i"))),
+                                // Maximum of a one-minute metric is ops (bytes) per minute
+                                peaks ? (max(values.get(seriesId(i, "pr"))) + max(values.get(seriesId(i, "pw")))) / 60.0 : -1,
+                                peaks ? (max(values.get(seriesId(i, "br"))) + max(values.get(seriesId(i, "bw"))))
+                                        / 60.0 / (1024 * 1024) : -1);
+                    }
+                    if (incomplete > 0) {
+                        logger.warn("EBS usage incomplete for {} of {} volumes; no usage-based advice for them",
+                                incomplete, volumes.size());
+                    }
+                    return usage;
+                });
+    }
+
+    private static String seriesId(int volume, String series) {
+        return MetricDataBatcher.queryId("v", volume, series);
+    }
+
+    private static boolean hasAllSeries(Map<String, List<Double>> values, int volume, boolean peaks) {
+        for (String series : peaks ? PEAK_SERIES : ACTIVITY_SERIES) {
+            if (!values.containsKey(seriesId(volume, series))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasProvisionedPerformance(Volume volume) {
+        String type = volume.volumeTypeAsString();
+        return "io1".equals(type) || "io2".equals(type) || "gp3".equals(type);
+    }
+
+    private MetricDataQuery query(String id, String volumeId, String metricName, String stat) {
+        return MetricDataQuery.builder()
+                .id(id)
+                .metricStat(MetricStat.builder()
+                        .metric(Metric.builder()
+                                .namespace("AWS/EBS")
+                                .metricName(metricName)
+                                .dimensions(Dimension.builder().name("VolumeId").value(volumeId).build())
+                                .build())
+                        .period(DAY_SECONDS)
+                        .stat(stat)
+                        .build())
+                .returnData(true)
+                .build();
+    }
+
+    private static double sum(List<Double> values) {
+        double total = 0;
+        for (Double value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static double max(List<Double> values) {
+        double highest = 0;
+        for (Double value : values) {
+            highest = Math.max(highest, value);
+        }
+        return highest;
+    }
+}
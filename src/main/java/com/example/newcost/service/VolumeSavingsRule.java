@@ -0,0 +1,19 @@
+package com.example.newcost.service;
+
+import com.example.newcost.model.VolumeSavingsDTO;
+import software.amazon.awssdk.services.ec2.model.Volume;
+
+/**
+ * One EBS savings check. Rules are Spring beans picked up by {@link VolumeSavingsEngine}; add a
+ * {@code @Component} implementing this interface to plug in a new one. When several rules match
+ * a volume, the suggestion with the largest saving is reported.
+ */
+public interface VolumeSavingsRule {
+
+    /**
+     * The suggestion for {@code volume}, or null when the rule does not apply.
+     *
+     * @param monthlyCost what the volume costs today, from {@link EbsPricing#monthlyCost}
+     */
+    VolumeSavingsDTO evaluate(Volume volume, String region, VolumeUsage usage, double monthlyCost);
+}
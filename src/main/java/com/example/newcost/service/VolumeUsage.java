@@ -0,0 +1,28 @@
+package com.example.newcost.service;
+
+/**
+ * CloudWatch activity of one EBS volume over the savings lookback window, reduced to the
+ * figures the savings rules need. {@code days} is the number of daily datapoints CloudWatch
+ * returned; peaks are -1 when they were not queried (only io1, io2 and gp3 volumes get them).
+ *
+ * @param readOps            VolumeReadOps summed over the window
+ * @param writeOps           VolumeWriteOps summed over the window
+ * @param idleSeconds        VolumeIdleTime summed over the window
+ * @param peakIops           highest one-minute read rate plus highest write rate, in operations per second
+ *                           (an upper bound: the two peaks need not coincide)
+ * @param peakThroughputMiBs the same for bytes, in MiB per second
+ */
+public record VolumeUsage(int days, double readOps, double writeOps, double idleSeconds,
+                          double peakIops, double peakThroughputMiBs) {
+
+    public static final VolumeUsage NONE = new VolumeUsage(0, 0, 0, 0, -1, -1);
+
+    public boolean hasData() {
+        return days > 0;
+    }
+
+    // Share of the observed time with no I/O at all
+    public double idleFraction() {
+        return days == 0 ? 0.0 : Math.min(1.0, idleSeconds / (days * 86400.0));
+    }
+}
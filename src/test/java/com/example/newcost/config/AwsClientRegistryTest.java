@@ -0,0 +1,111 @@
+package com.example.newcost.config;
+
+import com.example.newcost.awscontext.AwsAccount;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AwsClientRegistryTest {
+
+    private static final AwsAccount ACCOUNT = new AwsAccount("test", "AKIATEST", "secret", "us-east-1");
+
+    @Test
+    void overflowRetiresTheLeastRecentlyUsedClient() throws Exception {
+        AwsClientRegistry registry = registry(2, 30, 10);
+        FakeClient first = acquire(registry, "first");
+        FakeClient second = acquire(registry, "second");
+        Thread.sleep(1);
+        assertSame(first, acquire(registry, "first"));
+
+        acquire(registry, "third");
+
+        assertEquals(2, registry.getStats().getSize());
+        assertEquals(1, registry.getStats().getEvictions());
+        assertEquals(1, registry.getStats().getRetired());
+        assertFalse(second.closed, "evicted client closed before its grace period");
+        assertNotSame(second, acquire(registry, "second"));
+    }
+
+    @Test
+    void idleClientIsClosedOnlyAfterTheGracePeriod() {
+        AwsClientRegistry registry = registry(16, 0, 10);
+        FakeClient client = acquire(registry, "idle");
+
+        registry.evictIdleClients(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, registry.getStats().getSize());
+        assertEquals(1, registry.getStats().getRetired());
+        assertFalse(client.closed);
+
+        registry.evictIdleClients(System.nanoTime() + TimeUnit.MINUTES.toNanos(11));
+        assertEquals(0, registry.getStats().getRetired());
+        assertTrue(client.closed);
+    }
+
+    @Test
+    void leasedClientIsNotSweptAsIdle() {
+        AwsClientRegistry registry = registry(16, 0, 10);
+        AwsClientRegistry.Lease<FakeClient> lease = lease(registry, "busy");
+
+        registry.evictIdleClients(System.nanoTime() + TimeUnit.MINUTES.toNanos(1));
+        assertEquals(1, registry.getStats().getSize());
+
+        lease.close();
+        registry.evictIdleClients(System.nanoTime() + TimeUnit.MINUTES.toNanos(1));
+        assertEquals(0, registry.getStats().getSize());
+    }
+
+    @Test
+    void evictedClientStaysOpenUntilItsLeaseIsReleased() {
+        AwsClientRegistry registry = registry(1, 30, 10);
+        AwsClientRegistry.Lease<FakeClient> lease = lease(registry, "listing");
+        acquire(registry, "other");
+
+        registry.evictIdleClients(System.nanoTime() + TimeUnit.MINUTES.toNanos(11));
+        assertEquals(1, registry.getStats().getRetired());
+        assertFalse(lease.client().closed, "leased client closed while in use");
+
+        lease.close();
+        lease.close();
+        registry.evictIdleClients(System.nanoTime() + TimeUnit.MINUTES.toNanos(11));
+        assertEquals(0, registry.getStats().getRetired());
+        assertTrue(lease.client().closed);
+    }
+
+    @Test
+    void closeAllClosesPooledAndRetiredClients() {
+        AwsClientRegistry registry = registry(1, 30, 10);
+        FakeClient retired = acquire(registry, "retired");
+        FakeClient pooled = acquire(registry, "pooled");
+
+        registry.closeAll();
+
+        assertTrue(retired.closed);
+        assertTrue(pooled.closed);
+    }
+
+    private static AwsClientRegistry registry(int maxSize, long idleMinutes, long graceMinutes) {
+        return new AwsClientRegistry(null, null, Runnable::run, null, null, maxSize, idleMinutes, graceMinutes);
+    }
+
+    private static FakeClient acquire(AwsClientRegistry registry, String service) {
+        return registry.acquire(ACCOUNT, service, FakeClient::new, FakeClient::close);
+    }
+
+    private static AwsClientRegistry.Lease<FakeClient> lease(AwsClientRegistry registry, String service) {
+        return registry.lease(ACCOUNT, service, FakeClient::new, FakeClient::close);
+    }
+
+    private static final class FakeClient {
+        private volatile boolean closed;
+
+        void close() {
+            closed = true;
+        }
+    }
+}
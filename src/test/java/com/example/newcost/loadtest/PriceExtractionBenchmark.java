@@ -0,0 +1,131 @@
+package com.example.newcost.loadtest;
+
+import com.example.newcost.service.PriceExtractor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of reading the on-demand price from one GetProducts price document: the
+ * previous approach (a new ObjectMapper per call plus a full JsonNode tree), the tree with a
+ * shared mapper, and the streaming {@link PriceExtractor}.
+ * <p>
+ * Not a unit test; run it with mvn test-compile, then run main from the test classpath
+ * (add -prof gc via JMH args to see allocation per call).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceExtractionBenchmark {
+
+    private final ObjectMapper sharedMapper = new ObjectMapper();
+    private String priceJson;
+
+    @Setup
+    public void setUp() {
+        priceJson = samplePriceDocument();
+    }
+
+    @Benchmark
+    public double treePerCallMapper() {
+        // What ComputeOptimizerService and RdsService did before the pricing catalog
+        return firstUsd(new ObjectMapper(), priceJson);
+    }
+
+    @Benchmark
+    public double treeSharedMapper() {
+        return firstUsd(sharedMapper, priceJson);
+    }
+
+    @Benchmark
+    public double streaming() throws IOException {
+        return PriceExtractor.onDemandPrice(priceJson);
+    }
+
+    private static double firstUsd(ObjectMapper mapper, String json) {
+        try {
+            JsonNode terms = mapper.readTree(json).path("terms").path("OnDemand");
+            Iterator<Map.Entry<String, JsonNode>> termIter = terms.fields();
+            while (termIter.hasNext()) {
+                Iterator<Map.Entry<String, JsonNode>> dimensionIter =
+                        termIter.next().getValue().path("priceDimensions").fields();
+                while (dimensionIter.hasNext()) {
+                    String pricePerUnit = dimensionIter.next().getValue().path("pricePerUnit").path("USD").asText();
+                    if (!pricePerUnit.isEmpty()) {
+                        return Double.parseDouble(pricePerUnit);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return 0.0;
+    }
+
+    // Shaped like a real EC2 GetProducts entry: a full attribute set and the Reserved offers
+    // in front of the single on-demand dimension
+    static String samplePriceDocument() {
+        StringBuilder json = new StringBuilder(16_384);
+        json.append("{\"product\":{\"productFamily\":\"Compute Instance\",\"attributes\":{");
+        String[] attributes = {"enhancedNetworkingSupported", "intelTurboAvailable", "memory", "dedicatedEbsThroughput",
+                "vcpu", "classicnetworkingsupport", "capacitystatus", "locationType", "storage", "instanceFamily",
+                "operatingSystem", "intelAvx2Available", "regionCode", "physicalProcessor", "clockSpeed", "ecu",
+                "networkPerformance", "servicename", "gpuMemory", "vpcnetworkingsupport", "instanceType", "tenancy",
+                "usagetype", "normalizationSizeFactor", "intelAvxAvailable", "processorFeatures", "servicecode",
+                "licenseModel", "currentGeneration", "preInstalledSw", "location", "processorArchitecture",
+                "marketoption", "operation", "availabilityzone"};
+        for (int i = 0; i < attributes.length; i++) {
+            json.append(i == 0 ? "" : ",").append('"').append(attributes[i]).append("\":\"value-").append(i).append('"');
+        }
+        json.append("},\"sku\":\"SKU1M5LARGE\"},\"serviceCode\":\"AmazonEC2\",\"terms\":{\"Reserved\":{");
+        for (int term = 0; term < 12; term++) {
+            json.append(term == 0 ? "" : ",").append("\"SKU1M5LARGE.TERM").append(term).append("\":{")
+                    .append("\"priceDimensions\":{");
+            for (int dimension = 0; dimension < 2; dimension++) {
+                appendDimension(json, "SKU1M5LARGE.TERM" + term + ".RATE" + dimension, dimension == 0 ? "Quantity" : "Hrs",
+                        dimension == 0 ? "512" : "0.0420000000", dimension > 0);
+            }
+            json.append("},\"sku\":\"SKU1M5LARGE\",\"effectiveDate\":\"2025-01-01T00:00:00Z\",\"offerTermCode\":\"TERM")
+                    .append(term).append("\",\"termAttributes\":{\"LeaseContractLength\":\"1yr\",")
+                    .append("\"OfferingClass\":\"standard\",\"PurchaseOption\":\"Partial Upfront\"}}");
+        }
+        json.append("},\"OnDemand\":{\"SKU1M5LARGE.JRTCKXETXF\":{\"priceDimensions\":{");
+        appendDimension(json, "SKU1M5LARGE.JRTCKXETXF.6YS6EN2CT7", "Hrs", "0.0960000000", false);
+        json.append("},\"sku\":\"SKU1M5LARGE\",\"effectiveDate\":\"2025-01-01T00:00:00Z\",")
+                .append("\"offerTermCode\":\"JRTCKXETXF\",\"termAttributes\":{}}}},")
+                .append("\"version\":\"20250101000000\",\"publicationDate\":\"2025-01-01T00:00:00Z\"}");
+        return json.toString();
+    }
+
+    private static void appendDimension(StringBuilder json, String rateCode, String unit, String usd, boolean comma) {
+        json.append(comma ? "," : "").append('"').append(rateCode).append("\":{\"unit\":\"").append(unit)
+                .append("\",\"endRange\":\"Inf\",\"description\":\"Sample rate ").append(rateCode)
+                .append("\",\"appliesTo\":[],\"rateCode\":\"").append(rateCode)
+                .append("\",\"beginRange\":\"0\",\"pricePerUnit\":{\"USD\":\"").append(usd).append("\"}}");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PriceExtractionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.newcost.loadtest;
+
+import com.example.newcost.model.JsonWritable;
+import com.example.newcost.model.SnapshotDTO;
+import com.example.newcost.model.VolumeSavingsDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of building and serializing 100k-element /saveebs and /snapshots responses:
+ * the previous HashMap-per-element lists with String.format amounts written by the
+ * ObjectMapper, against the typed records streamed through {@link JsonWritable}. Output goes
+ * to a discarding stream, so only response construction and serialization are measured.
+ * <p>
+ * Not a unit test; run it with mvn test-compile, then run main from the test classpath. The GC
+ * profiler is enabled, so gc.alloc.rate.norm reports the bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SavingsResponseBenchmark {
+
+    @Param("100000")
+    public int elements;
+
+    // Configured like Spring Boot's ObjectMapper for these types
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    // Serializers close their target; unlike OutputStream.nullOutputStream() this one stays usable
+    private final OutputStream discard = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private String[] volumeIds;
+    private int[] sizes;
+    private Instant startTime;
+
+    @Setup
+    public void setUp() {
+        volumeIds = new String[elements];
+        sizes = new int[elements];
+        for (int i = 0; i < elements; i++) {
+            volumeIds[i] = String.format("vol-%017x", i);
+            sizes[i] = 8 + (i % 500);
+        }
+        startTime = Instant.parse("2025-01-01T00:00:00Z");
+    }
+
+    @Benchmark
+    public void volumeSavingsMaps() throws IOException {
+        List<Map<String, Object>> response = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            double cost = 0.10 * sizes[i];
+            Map<String, Object> suggestion = new HashMap<>();
+            suggestion.put("VolumeId", volumeIds[i]);
+            suggestion.put("SizeGB", sizes[i]);
+            suggestion.put("VolumeType", "gp2");
+            suggestion.put("MonthlyCostUSD", String.format("%.2f", cost));
+            suggestion.put("Reason", "Consider migrating from gp2 to gp3");
+            suggestion.put("PotentialSavingsUSD", String.format("%.2f", cost - 0.08 * sizes[i]));
+            response.add(suggestion);
+        }
+        objectMapper.writeValue(discard, response);
+    }
+
+    @Benchmark
+    public void volumeSavingsRecords() throws IOException {
+        List<VolumeSavingsDTO> response = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            double cost = 0.10 * sizes[i];
+            response.add(new VolumeSavingsDTO(volumeIds[i], sizes[i], "gp2", "gp2-to-gp3",
+                    "Consider migrating from gp2 to gp3", round(cost), round(cost - 0.08 * sizes[i])));
+        }
+        writeArray(response);
+    }
+
+    @Benchmark
+    public void snapshotMaps() throws IOException {
+        List<Map<String, Object>> response = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("Name", "N/A");
+            details.put("SnapshotId", volumeIds[i]);
+            details.put("VolumeSizeGB", sizes[i]);
+            details.put("StorageTier", "standard");
+            details.put("Status", "completed");
+            details.put("StartTime", startTime);
+            details.put("StorageUsedGB", -1.0);
+            response.add(details);
+        }
+        objectMapper.writeValue(discard, response);
+    }
+
+    @Benchmark
+    public void snapshotRecords() throws IOException {
+        List<SnapshotDTO> response = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            response.add(new SnapshotDTO("N/A", volumeIds[i], sizes[i], "standard", "completed", startTime, -1.0));
+        }
+        writeArray(response);
+    }
+
+    // Same loop as AwsController#jsonArray
+    private void writeArray(List<? extends JsonWritable> items) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(discard)) {
+            generator.writeStartArray();
+            for (JsonWritable item : items) {
+                item.writeJson(generator);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SavingsResponseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
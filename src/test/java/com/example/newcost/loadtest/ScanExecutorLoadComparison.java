@@ -0,0 +1,189 @@
+package com.example.newcost.loadtest;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.RdsRecommendationDTO;
+import com.example.newcost.service.Futures;
+import com.example.newcost.service.PricingCatalog;
+import com.example.newcost.service.RdsService;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.Datapoint;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricStatisticsRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricStatisticsResponse;
+import software.amazon.awssdk.services.rds.RdsAsyncClient;
+import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DescribeDbInstancesResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Load comparison of the two scanExecutor modes from ScanExecutorConfig, driven through the
+ * real scan path: {@link RdsService#getRdsRecommendations} fans out one task per DB instance
+ * over stubbed async RDS, CloudWatch and pricing clients. Each stubbed call completes after a
+ * fixed AWS round trip without holding a thread, and its continuation is handed to the scan
+ * executor the way the pooled async SDK clients do (FUTURE_COMPLETION_EXECUTOR).
+ * <p>
+ * Not a unit test; run it on Java 21 (mvn -Pjava21 test-compile, then run main) with
+ * optional args: concurrentScans instancesPerScan latencyMillis platformThreads.
+ */
+public class ScanExecutorLoadComparison {
+
+    public static void main(String[] args) throws Exception {
+        int scans = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int instancesPerScan = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        int platformThreads = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        System.out.printf("%d concurrent scans x %d DB instances, %d ms per AWS call%n",
+                scans, instancesPerScan, latencyMillis);
+
+        ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+            platform.setCorePoolSize(platformThreads);
+            platform.setMaxPoolSize(platformThreads);
+            platform.setThreadNamePrefix("scan-");
+            platform.initialize();
+            try {
+                run("platform(" + platformThreads + ")", platform, network, scans, instancesPerScan, latencyMillis);
+            } finally {
+                platform.shutdown();
+            }
+
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("scan-");
+            virtual.setVirtualThreads(true);
+            run("virtual", virtual, network, scans, instancesPerScan, latencyMillis);
+        } finally {
+            network.shutdownNow();
+        }
+    }
+
+    private static void run(String mode, AsyncTaskExecutor executor, ScheduledExecutorService network,
+                            int scans, int instancesPerScan, long latencyMillis) {
+        StubbedAws aws = new StubbedAws(executor, network, latencyMillis, instancesPerScan);
+        RdsService rdsService = new RdsService(aws.registry(), executor, aws.pricingCatalog());
+        AwsAccount account = new AwsAccount("load", "AKIALOADTEST", "secret", "us-east-1");
+
+        long[] scanMillis = new long[scans];
+        long start = System.nanoTime();
+        List<CompletableFuture<List<RdsRecommendationDTO>>> inFlight = new ArrayList<>();
+        for (int i = 0; i < scans; i++) {
+            int scan = i;
+            long scanStart = System.nanoTime();
+            inFlight.add(rdsService.getRdsRecommendations(account)
+                    .whenComplete((r, e) -> scanMillis[scan] = (System.nanoTime() - scanStart) / 1_000_000));
+        }
+        Futures.allOf(inFlight).join();
+
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+        Arrays.sort(scanMillis);
+        System.out.printf("%-14s total %6d ms | %8.0f instances/s | scan p50 %6d ms | p95 %6d ms%n",
+                mode, totalMillis,
+                scans * (double) instancesPerScan / (totalMillis / 1000.0),
+                scanMillis[scans / 2], scanMillis[(int) (scans * 0.95)]);
+    }
+
+    /**
+     * Async clients whose calls complete after {@code latencyMillis} on a timer, with the
+     * continuation moved onto the scan executor.
+     */
+    private static final class StubbedAws {
+
+        private final Executor completionExecutor;
+        private final ScheduledExecutorService network;
+        private final long latencyMillis;
+        private final List<DBInstance> instances;
+
+        private StubbedAws(Executor completionExecutor, ScheduledExecutorService network, long latencyMillis,
+                           int instanceCount) {
+            this.completionExecutor = completionExecutor;
+            this.network = network;
+            this.latencyMillis = latencyMillis;
+            this.instances = IntStream.range(0, instanceCount)
+                    .mapToObj(i -> DBInstance.builder()
+                            .dbInstanceIdentifier("db-" + i)
+                            .dbInstanceClass("db.t3.medium")
+                            .engine("mysql")
+                            .availabilityZone("us-east-1a")
+                            .storageType(i % 2 == 0 ? "gp2" : "gp3")
+                            .build())
+                    .collect(Collectors.toList());
+        }
+
+        private <T> CompletableFuture<T> respond(T response) {
+            CompletableFuture<T> network = new CompletableFuture<>();
+            this.network.schedule(() -> network.complete(response), latencyMillis, TimeUnit.MILLISECONDS);
+            return network.thenApplyAsync(r -> r, completionExecutor);
+        }
+
+        private AwsClientRegistry registry() {
+            RdsAsyncClient rds = new RdsAsyncClient() {
+                @Override
+                public CompletableFuture<DescribeDbInstancesResponse> describeDBInstances() {
+                    return respond(DescribeDbInstancesResponse.builder().dbInstances(instances).build());
+                }
+
+                @Override
+                public String serviceName() {
+                    return "rds";
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            CloudWatchAsyncClient cloudWatch = new CloudWatchAsyncClient() {
+                @Override
+                public CompletableFuture<GetMetricStatisticsResponse> getMetricStatistics(
+                        GetMetricStatisticsRequest request) {
+                    return respond(GetMetricStatisticsResponse.builder()
+                            .datapoints(Datapoint.builder().average(12.5).build())
+                            .build());
+                }
+
+                @Override
+                public String serviceName() {
+                    return "cloudwatch";
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            return new AwsClientRegistry(null, null, completionExecutor, null, null, 16, 30, 10) {
+                @Override
+                public RdsAsyncClient rdsAsyncClient(AwsAccount account) {
+                    return rds;
+                }
+
+                @Override
+                public CloudWatchAsyncClient cloudWatchAsyncClient(AwsAccount account) {
+                    return cloudWatch;
+                }
+            };
+        }
+
+        // Every lookup pays the round trip, as a cold catalog would
+        private PricingCatalog pricingCatalog() {
+            return new PricingCatalog(null, null, 24, 60) {
+                @Override
+                public CompletableFuture<Double> getRdsPrice(AwsAccount account, String instanceClass,
+                                                             String databaseEngine, String region) {
+                    return respond(0.068);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.newcost.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonWritableTest {
+
+    // Configured like Spring Boot's ObjectMapper for these types
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private String streamed(JsonWritable value) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            value.writeJson(generator);
+        }
+        return out.toString();
+    }
+
+    private void assertSameJson(JsonWritable value) throws Exception {
+        assertEquals(objectMapper.writeValueAsString(value), streamed(value));
+    }
+
+    @Test
+    void snapshotMatchesObjectMapper() throws Exception {
+        assertSameJson(new SnapshotDTO("nightly \"db\"", "snap-0123", 100, "standard", "completed",
+                Instant.parse("2026-03-01T12:34:56.789Z"), 42.5));
+        assertSameJson(new SnapshotDTO("root", "snap-1", 8, "archive", "completed",
+                Instant.parse("2026-03-01T00:00:00Z"), -1));
+    }
+
+    @Test
+    void snapshotWithNullFieldsMatchesObjectMapper() throws Exception {
+        assertSameJson(new SnapshotDTO(null, "snap-0123", null, null, null, null, -1));
+    }
+
+    @Test
+    void volumeSavingsMatchesObjectMapper() throws Exception {
+        assertSameJson(new VolumeSavingsDTO("vol-1", 500, "io1", "io-to-gp3",
+                "Peak 200 of 20000 provisioned IOPS — migrate to gp3 at 3000 IOPS", 1362.5, 1322.5));
+        assertSameJson(new VolumeSavingsDTO("vol-2", 0, "gp2", "none", "No major savings opportunity detected",
+                0.1, 0.0));
+    }
+
+    @Test
+    void volumeSavingsWithNullFieldsMatchesObjectMapper() throws Exception {
+        assertSameJson(new VolumeSavingsDTO(null, 8, null, null, null, 0.0, 0.0));
+    }
+
+    @Test
+    void elasticIpSavingsMatchesObjectMapper() throws Exception {
+        assertSameJson(new ElasticIpSavingsDTO("203.0.113.7", "None", "Unassociated Elastic IP", 3.65));
+    }
+
+    @Test
+    void elasticIpSavingsWithNullFieldsMatchesObjectMapper() throws Exception {
+        assertSameJson(new ElasticIpSavingsDTO(null, null, null, 0.0));
+    }
+}
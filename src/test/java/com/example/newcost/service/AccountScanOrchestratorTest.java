@@ -0,0 +1,227 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.AccountSavingsDTO;
+import com.example.newcost.model.AwsCredentialsRequest;
+import com.example.newcost.model.ElasticIpSavingsDTO;
+import com.example.newcost.model.SavingsReportDTO;
+import com.example.newcost.model.VolumeSavingsDTO;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.Datapoint;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricStatisticsRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricStatisticsResponse;
+import software.amazon.awssdk.services.rds.RdsAsyncClient;
+import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DescribeDbInstancesResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountScanOrchestratorTest {
+
+    @Test
+    void oneDeadlineForTheWholeAccount() throws Exception {
+        FakeAws aws = new FakeAws();
+        CompletableFuture<List<VolumeSavingsDTO>> hanging = new CompletableFuture<>();
+        aws.hangingEbs.put("slow", hanging);
+        AccountScanOrchestrator orchestrator = aws.orchestrator(8, 2, 1, List.of("slow"));
+
+        SavingsReportDTO report = orchestrator.getSavingsReport().get(10, TimeUnit.SECONDS);
+
+        AccountSavingsDTO account = report.getAccounts().get(0);
+        assertFalse(hanging.isDone(), "report waited for the hanging EBS scan");
+        assertEquals(List.of("EBS: Account scan exceeded 1 s"), account.getErrors());
+        assertEquals(5.0, account.getElasticIpMonthlySavings(), 1e-9);
+        assertEquals(0.0, account.getEbsMonthlySavings(), 1e-9);
+    }
+
+    @Test
+    void accountSlotIsHeldUntilTimedOutWorkFinishes() throws Exception {
+        FakeAws aws = new FakeAws();
+        CompletableFuture<List<VolumeSavingsDTO>> hanging = new CompletableFuture<>();
+        aws.hangingEbs.put("first", hanging);
+        AccountScanOrchestrator orchestrator = aws.orchestrator(1, 2, 1, List.of("first", "second"));
+
+        CompletableFuture<SavingsReportDTO> report = orchestrator.getSavingsReport();
+        // Well past the first account's 1 s deadline, which must not hand its slot to the second
+        assertFalse(aws.secondStarted.await(2, TimeUnit.SECONDS), "second account started while the first was still running");
+        assertFalse(report.isDone());
+
+        hanging.complete(List.of());
+        SavingsReportDTO done = report.get(10, TimeUnit.SECONDS);
+        assertEquals(2, done.getAccountCount());
+        assertEquals(0, aws.secondStarted.getCount());
+    }
+
+    @Test
+    void rdsFanOutSharesTheAccountBulkhead() throws Exception {
+        FakeAws aws = new FakeAws();
+        aws.rdsInstances = 20;
+        AccountScanOrchestrator orchestrator = aws.orchestrator(8, 2, 30, List.of("large"));
+
+        // Everything runs on this thread; answering one call at a time lets the scan move on
+        CompletableFuture<SavingsReportDTO> report = orchestrator.getSavingsReport();
+        while (!report.isDone()) {
+            Runnable response = aws.pending.poll();
+            assertNotNull(response, "scan stalled with no AWS call in flight");
+            response.run();
+        }
+
+        AccountSavingsDTO account = report.get().getAccounts().get(0);
+        assertEquals(List.of(), account.getErrors());
+        assertEquals(20, aws.instancesAnalysed);
+        assertEquals(2, aws.maxAnalysing, "instances analysed at once");
+    }
+
+    /**
+     * The account repository, an Ec2Service answering straight away, and the real RdsService
+     * over stubbed RDS, CloudWatch and pricing clients. CloudWatch and pricing calls stay
+     * pending until the test runs their response from {@link #pending}; an instance counts as
+     * being analysed while any of its calls is pending.
+     */
+    private static final class FakeAws {
+        private final Map<String, CompletableFuture<List<VolumeSavingsDTO>>> hangingEbs = new ConcurrentHashMap<>();
+        private final CountDownLatch secondStarted = new CountDownLatch(1);
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        // Guarded by this
+        private final Map<String, Integer> outstanding = new HashMap<>();
+        private int maxAnalysing;
+        private int instancesAnalysed;
+        private int rdsInstances;
+
+        private synchronized <T> CompletableFuture<T> call(String instance, T value) {
+            outstanding.merge(instance, 1, Integer::sum);
+            maxAnalysing = Math.max(maxAnalysing, outstanding.size());
+            CompletableFuture<T> response = new CompletableFuture<>();
+            pending.add(() -> {
+                synchronized (this) {
+                    outstanding.computeIfPresent(instance, (key, calls) -> calls == 1 ? null : calls - 1);
+                }
+                response.complete(value);
+            });
+            return response;
+        }
+
+        AccountScanOrchestrator orchestrator(int maxAccounts, int perAccount, long timeoutSeconds, List<String> names) {
+            AwsCredentialService credentials = new AwsCredentialService() {
+                @Override
+                public List<AwsCredentialsRequest> getAllAccounts() {
+                    List<AwsCredentialsRequest> saved = new ArrayList<>();
+                    for (String name : names) {
+                        AwsCredentialsRequest credential = new AwsCredentialsRequest();
+                        credential.setAccountName(name);
+                        credential.setAccessKey("AKIA" + name);
+                        credential.setSecretKey("secret");
+                        credential.setRegion("us-east-1");
+                        saved.add(credential);
+                    }
+                    return saved;
+                }
+            };
+            Ec2Service ec2 = new Ec2Service(null, null, null, 16, 60) {
+                @Override
+                public CompletableFuture<List<VolumeSavingsDTO>> getVolumeSavingsSuggestions(AwsAccount account) {
+                    if ("second".equals(account.getAccountName())) {
+                        secondStarted.countDown();
+                    }
+                    CompletableFuture<List<VolumeSavingsDTO>> hanging = hangingEbs.get(account.getAccountName());
+                    return hanging != null ? hanging : CompletableFuture.completedFuture(List.of());
+                }
+
+                @Override
+                public CompletableFuture<List<ElasticIpSavingsDTO>> getElasticIpSavingsSuggestions(AwsAccount account) {
+                    return CompletableFuture.completedFuture(
+                            List.of(new ElasticIpSavingsDTO("203.0.113.1", "None", "Unassociated", 5.0)));
+                }
+            };
+            RdsService rds = new RdsService(registry(), Runnable::run, pricingCatalog());
+            return new AccountScanOrchestrator(credentials, ec2, rds, Runnable::run, maxAccounts, perAccount, timeoutSeconds);
+        }
+
+        // Instance i is "db-i" with class "db.test-i", so both of its lookups can be attributed to it
+        private AwsClientRegistry registry() {
+            List<DBInstance> instances = new ArrayList<>();
+            for (int i = 0; i < rdsInstances; i++) {
+                instances.add(DBInstance.builder()
+                        .dbInstanceIdentifier("db-" + i)
+                        .dbInstanceClass("db.test-" + i)
+                        .engine("mysql")
+                        .availabilityZone("us-east-1a")
+                        .storageType("gp3")
+                        .build());
+            }
+            RdsAsyncClient rdsClient = new RdsAsyncClient() {
+                @Override
+                public CompletableFuture<DescribeDbInstancesResponse> describeDBInstances() {
+                    return CompletableFuture.completedFuture(DescribeDbInstancesResponse.builder().dbInstances(instances).build());
+                }
+
+                @Override
+                public String serviceName() {
+                    return "rds";
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            CloudWatchAsyncClient cloudWatch = new CloudWatchAsyncClient() {
+                @Override
+                public CompletableFuture<GetMetricStatisticsResponse> getMetricStatistics(GetMetricStatisticsRequest request) {
+                    String id = request.dimensions().get(0).value();
+                    synchronized (FakeAws.this) {
+                        instancesAnalysed++;
+                    }
+                    return call(id.substring(id.lastIndexOf('-') + 1), GetMetricStatisticsResponse.builder()
+                            .datapoints(Datapoint.builder().average(50.0).build())
+                            .build());
+                }
+
+                @Override
+                public String serviceName() {
+                    return "cloudwatch";
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            return new AwsClientRegistry(null, null, Runnable::run, null, null, 16, 30, 10) {
+                @Override
+                public RdsAsyncClient rdsAsyncClient(AwsAccount account) {
+                    return rdsClient;
+                }
+
+                @Override
+                public CloudWatchAsyncClient cloudWatchAsyncClient(AwsAccount account) {
+                    return cloudWatch;
+                }
+            };
+        }
+
+        private PricingCatalog pricingCatalog() {
+            return new PricingCatalog(null, null, 24, 60) {
+                @Override
+                public CompletableFuture<Double> getRdsPrice(AwsAccount account, String instanceClass,
+                                                             String databaseEngine, String region) {
+                    return call(instanceClass.substring(instanceClass.lastIndexOf('-') + 1), 0.068);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncPermitsTest {
+
+    @Test
+    void timedOutTaskKeepsItsPermitUntilItsWorkFinishes() throws Exception {
+        AsyncPermits permits = new AsyncPermits(1);
+        CompletableFuture<String> slowWork = new CompletableFuture<>();
+        CompletableFuture<String> slow = permits.submit(() -> slowWork, 20, TimeUnit.MILLISECONDS);
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+        assertTrue(timedOut.getCause() instanceof TimeoutException);
+
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<String> next = permits.submit(() -> {
+            started.set(true);
+            return CompletableFuture.completedFuture("next");
+        }, 5, TimeUnit.SECONDS);
+        assertFalse(started.get(), "the timed-out task must still hold the only permit");
+        assertFalse(permits.isIdle());
+
+        slowWork.complete("late");
+        assertEquals("next", next.get(5, TimeUnit.SECONDS));
+        assertTrue(permits.isIdle());
+    }
+
+    @Test
+    void timeoutStartsWhenTheTaskLeavesTheQueue() throws Exception {
+        AsyncPermits permits = new AsyncPermits(1);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        permits.submit(() -> first);
+        CompletableFuture<String> queued = permits.submit(() -> CompletableFuture.completedFuture("queued"),
+                50, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(150);
+        assertFalse(queued.isDone(), "waiting for a permit does not count against the timeout");
+        first.complete("first");
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void queuedTasksThatCompleteSynchronouslyDoNotGrowTheStack() throws Exception {
+        AsyncPermits permits = new AsyncPermits(2);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletableFuture<Integer> second = new CompletableFuture<>();
+        permits.submit(() -> first);
+        permits.submit(() -> second);
+
+        int queued = 200_000;
+        List<Integer> order = new ArrayList<>(queued);
+        List<CompletableFuture<Integer>> results = new ArrayList<>(queued);
+        for (int i = 0; i < queued; i++) {
+            int task = i;
+            results.add(permits.submit(() -> {
+                order.add(task);
+                return CompletableFuture.completedFuture(task);
+            }));
+        }
+        assertTrue(order.isEmpty());
+
+        first.complete(-1);
+        assertEquals(queued, order.size());
+        for (int i = 0; i < queued; i++) {
+            assertEquals(i, (int) order.get(i));
+            assertEquals(i, (int) results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertFalse(permits.isIdle(), "the second task still holds its permit");
+        second.complete(-2);
+        assertTrue(permits.isIdle());
+    }
+
+    @Test
+    void newTasksWaitBehindTheQueueWhileItDrains() {
+        AsyncPermits permits = new AsyncPermits(1);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        permits.submit(() -> first);
+        List<String> order = new ArrayList<>();
+        permits.submit(() -> {
+            order.add("queued");
+            // Submitted while the queue is being drained: runs after the task already waiting
+            permits.submit(() -> {
+                order.add("late");
+                return CompletableFuture.completedFuture("late");
+            });
+            return CompletableFuture.completedFuture("queued");
+        });
+        permits.submit(() -> {
+            order.add("waiting");
+            return CompletableFuture.completedFuture("waiting");
+        });
+
+        first.complete("first");
+        assertEquals(List.of("queued", "waiting", "late"), order);
+        assertTrue(permits.isIdle());
+    }
+
+    @Test
+    void idlePermitsAreEvictedOnlyWhenUnheld() {
+        KeyedPermits keyed = new KeyedPermits(2);
+        AsyncPermits permits = keyed.acquire("account");
+        keyed.evictIdle();
+        assertEquals(1, keyed.size(), "held permits are kept");
+
+        CompletableFuture<Void> work = new CompletableFuture<>();
+        permits.submit(() -> work);
+        keyed.release("account");
+        keyed.evictIdle();
+        assertEquals(1, keyed.size(), "permits with running work are kept");
+
+        assertSame(permits, keyed.acquire("account"));
+        keyed.release("account");
+
+        work.complete(null);
+        keyed.evictIdle();
+        assertEquals(0, keyed.size());
+    }
+}
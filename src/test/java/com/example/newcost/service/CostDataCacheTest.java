@@ -0,0 +1,172 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.model.CostDataDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CostDataCacheTest {
+
+    private static final AwsAccount ACCOUNT = new AwsAccount("test", "AKIATEST", "secret", "us-east-1");
+    private static final YearMonth CLOSED = YearMonth.of(2024, 1);
+    private static final YearMonth OPEN = YearMonth.now(ZoneOffset.UTC);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void partialResultIsNeverCached() {
+        CostDataCache cache = cache(15, 1024);
+        CountingLoader loader = new CountingLoader(() -> {
+            CostDataDTO partial = costData("12.34");
+            partial.setFailedSections(List.of("REGION"));
+            return partial;
+        });
+
+        get(cache, CLOSED, loader);
+        get(cache, CLOSED, loader);
+
+        assertEquals(2, loader.calls.get());
+        assertFalse(Files.exists(directory.resolve(ACCOUNT.getFingerprint())), "partial month written to disk");
+    }
+
+    @Test
+    void closedMonthIsReadBackFromDiskByANewInstance() {
+        get(cache(15, 1024), CLOSED, new CountingLoader(() -> costData("12.34")));
+
+        CountingLoader loader = new CountingLoader(() -> costData("99.99"));
+        CostDataDTO restored = get(cache(15, 1024), CLOSED, loader);
+
+        assertEquals(0, loader.calls.get());
+        assertEquals("12.34", restored.getEstimatedGrandTotal());
+        assertEquals("EC2", restored.getHighestServiceName());
+    }
+
+    @Test
+    void openMonthIsRefetchedOnceItsTtlHasPassed() {
+        CountingLoader loader = new CountingLoader(() -> costData("1.00"));
+        CostDataCache expiring = cache(0, 1024);
+        get(expiring, OPEN, loader);
+        get(expiring, OPEN, loader);
+        assertEquals(2, loader.calls.get());
+
+        CountingLoader fresh = new CountingLoader(() -> costData("1.00"));
+        CostDataCache live = cache(15, 1024);
+        get(live, OPEN, fresh);
+        get(live, OPEN, fresh);
+        assertEquals(1, fresh.calls.get());
+        assertFalse(Files.exists(directory.resolve(ACCOUNT.getFingerprint())), "open month written to disk");
+    }
+
+    @Test
+    void concurrentGetsShareOneLoad() throws Exception {
+        CostDataCache cache = cache(15, 1024);
+        CompletableFuture<CostDataDTO> load = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<CompletableFuture<CostDataDTO>> loader = () -> {
+            calls.incrementAndGet();
+            return load;
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<CompletableFuture<CostDataDTO>>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return cache.get(ACCOUNT, OPEN.getYear(), OPEN.getMonthValue(), loader);
+                }, callers));
+            }
+            start.countDown();
+            List<CompletableFuture<CostDataDTO>> pending = new ArrayList<>();
+            for (CompletableFuture<CompletableFuture<CostDataDTO>> result : results) {
+                pending.add(result.get(10, TimeUnit.SECONDS));
+            }
+
+            CostDataDTO data = costData("5.00");
+            load.complete(data);
+            for (CompletableFuture<CostDataDTO> result : pending) {
+                assertSame(data, result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void memoryTierIsCappedAndClosedMonthsFallBackToDisk() {
+        CostDataCache cache = cache(15, 1);
+        CountingLoader loader = new CountingLoader(() -> costData("3.00"));
+
+        get(cache, OPEN, loader);
+        get(cache, CLOSED, loader);
+        assertEquals(2, loader.calls.get());
+
+        // The closed month pushed the open one out of memory, so it is fetched again
+        get(cache, OPEN, loader);
+        assertEquals(3, loader.calls.get());
+
+        // and the open month pushed the closed one out, which comes back from disk
+        CostDataDTO closed = get(cache, CLOSED, loader);
+        assertEquals(3, loader.calls.get());
+        assertEquals("3.00", closed.getEstimatedGrandTotal());
+        assertTrue(Files.exists(directory.resolve(ACCOUNT.getFingerprint()).resolve(CLOSED + ".json")));
+    }
+
+    private CostDataCache cache(long openMonthTtlMinutes, int maxEntries) {
+        return new CostDataCache(new ObjectMapper(), directory.toString(), openMonthTtlMinutes, 5, maxEntries);
+    }
+
+    private static CostDataDTO get(CostDataCache cache, YearMonth month, Supplier<CompletableFuture<CostDataDTO>> loader) {
+        return cache.get(ACCOUNT, month.getYear(), month.getMonthValue(), loader).join();
+    }
+
+    private static CostDataDTO costData(String total) {
+        CostDataDTO data = new CostDataDTO();
+        data.setEstimatedGrandTotal(total);
+        data.setHighestServiceName("EC2");
+        data.setHighestServiceSpend(total);
+        return data;
+    }
+
+    private static final class CountingLoader implements Supplier<CompletableFuture<CostDataDTO>> {
+        private final Supplier<CostDataDTO> data;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingLoader(Supplier<CostDataDTO> data) {
+            this.data = data;
+        }
+
+        @Override
+        public CompletableFuture<CostDataDTO> get() {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(data.get());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CostTimeSeriesStoreTest {
+
+    private static final AwsAccount ACCOUNT = new AwsAccount("test", "AKIATEST", "secret", "us-east-1");
+    private static final CostTimeSeriesStore.SeriesKey EC2 = new CostTimeSeriesStore.SeriesKey("EC2", "us-east-1");
+    private static final CostTimeSeriesStore.SeriesKey S3 = new CostTimeSeriesStore.SeriesKey("S3", "us-east-1");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void windowAcrossCapacityGrowsColumns() {
+        CostTimeSeriesStore store = new CostTimeSeriesStore(tempDir.toString(), 8);
+        LocalDate base = CostTimeSeriesStore.BASE_DAY;
+        store.replaceWindow(ACCOUNT, base, base.plusDays(4), Map.of(EC2, new double[]{1, 2, 3, 4}));
+
+        // Days 6..9 straddle the initial 8-day capacity; S3 is created after the columns grew
+        store.replaceWindow(ACCOUNT, base.plusDays(6), base.plusDays(10),
+                Map.of(EC2, new double[]{5, 6, 7, 8}, S3, new double[]{1, 1, 1, 1}));
+
+        assertArrayEquals(new double[]{1, 2, 3, 4, 0, 0, 6, 7, 8, 9, 0, 0},
+                store.dailyTotals(ACCOUNT, base, base.plusDays(12), null, null), 1e-9);
+        assertArrayEquals(new double[]{0, 0, 1, 1, 1, 1, 0},
+                store.dailyTotals(ACCOUNT, base.plusDays(4), base.plusDays(11), "S3", null), 1e-9);
+        assertEquals(base.plusDays(10), store.getIngestedThrough(ACCOUNT));
+    }
+
+    @Test
+    void lastSlotAndFirstSlotPastCapacity() {
+        CostTimeSeriesStore store = new CostTimeSeriesStore(tempDir.toString(), 8);
+        LocalDate base = CostTimeSeriesStore.BASE_DAY;
+        store.replaceWindow(ACCOUNT, base.plusDays(7), base.plusDays(8), Map.of(EC2, new double[]{3}));
+        assertArrayEquals(new double[]{3, 0}, store.dailyTotals(ACCOUNT, base.plusDays(7), base.plusDays(9), null, null), 1e-9);
+
+        store.replaceWindow(ACCOUNT, base.plusDays(8), base.plusDays(9), Map.of(EC2, new double[]{4}));
+        assertArrayEquals(new double[]{3, 4}, store.dailyTotals(ACCOUNT, base.plusDays(7), base.plusDays(9), null, null), 1e-9);
+    }
+
+    @Test
+    void grownColumnsAreReadBackByANewStore() {
+        LocalDate day = LocalDate.of(2031, 6, 1);
+        CostTimeSeriesStore store = new CostTimeSeriesStore(tempDir.toString(), 4096);
+        store.replaceWindow(ACCOUNT, day, day.plusDays(2), Map.of(EC2, new double[]{1.5, 2.5}));
+        store.flush();
+
+        CostTimeSeriesStore reopened = new CostTimeSeriesStore(tempDir.toString(), 4096);
+        assertArrayEquals(new double[]{0, 1.5, 2.5, 0},
+                reopened.dailyTotals(ACCOUNT, day.minusDays(1), day.plusDays(3), "EC2", "us-east-1"), 1e-9);
+        assertArrayEquals(new double[]{0, 0},
+                reopened.dailyTotals(ACCOUNT, LocalDate.of(2060, 1, 1), LocalDate.of(2060, 1, 3), null, null), 1e-9);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.newcost.service;
+
+import com.example.newcost.model.VolumeSavingsDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.ec2.model.Volume;
+import software.amazon.awssdk.services.ec2.model.VolumeAttachment;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EbsSavingsRulesTest {
+
+    private static final String REGION = "us-east-1";
+    private static final int DAY = 86400;
+
+    @TempDir
+    Path tempDir;
+
+    // No index on disk, so every price is the built-in us-east-1 list price
+    private EbsPricing pricing() {
+        return new EbsPricing(new PriceListIndex(tempDir.resolve("missing.bin").toString()));
+    }
+
+    private static Volume volume(String type, int sizeGb, Integer iops, Integer throughput, boolean attached) {
+        Volume.Builder builder = Volume.builder().volumeId("vol-1").volumeType(type).size(sizeGb)
+                .iops(iops).throughput(throughput);
+        if (attached) {
+            builder.attachments(VolumeAttachment.builder().instanceId("i-1").volumeId("vol-1").build());
+        }
+        return builder.build();
+    }
+
+    @Test
+    void unattachedVolumeSavesItsWholeCost() {
+        VolumeSavingsDTO suggestion = new EbsSavingsRules.Unattached()
+                .evaluate(volume("gp2", 100, null, null, false), REGION, VolumeUsage.NONE, 10.0);
+        assertEquals("unattached", suggestion.rule());
+        assertEquals(10.0, suggestion.potentialSavings(), 1e-9);
+
+        assertNull(new EbsSavingsRules.Unattached()
+                .evaluate(volume("gp2", 100, null, null, true), REGION, VolumeUsage.NONE, 10.0));
+    }
+
+    @Test
+    void idleAttachedNeedsUsageData() {
+        EbsSavingsRules.IdleAttached rule = new EbsSavingsRules.IdleAttached(0.99);
+        Volume attached = volume("gp2", 100, null, null, true);
+
+        assertNull(rule.evaluate(attached, REGION, VolumeUsage.NONE, 10.0));
+
+        VolumeUsage idle = new VolumeUsage(14, 0, 0, 14.0 * DAY, -1, -1);
+        VolumeSavingsDTO suggestion = rule.evaluate(attached, REGION, idle, 10.0);
+        assertEquals("idle-attached", suggestion.rule());
+        assertEquals(10.0, suggestion.potentialSavings(), 1e-9);
+
+        VolumeUsage busy = new VolumeUsage(14, 5_000, 2_000, 7.0 * DAY, -1, -1);
+        assertNull(rule.evaluate(attached, REGION, busy, 10.0));
+    }
+
+    @Test
+    void provisionedIopsAreRightsizedToThePeak() {
+        EbsPricing pricing = pricing();
+        EbsSavingsRules.ProvisionedIopsRightsizing rule = new EbsSavingsRules.ProvisionedIopsRightsizing(pricing, 1.2, 0.5);
+        Volume io1 = volume("io1", 100, 64_000, null, true);
+        double monthlyCost = pricing.monthlyCost(io1, REGION);
+
+        assertNull(rule.evaluate(io1, REGION, VolumeUsage.NONE, monthlyCost));
+        assertNull(rule.evaluate(io1, REGION, new VolumeUsage(14, 1, 1, 0, 40_000, 10), monthlyCost));
+
+        // Peak x headroom is 16,800 IOPS, past gp3's limit, so the volume stays io1
+        VolumeSavingsDTO rightsized = rule.evaluate(io1, REGION, new VolumeUsage(14, 1, 1, 0, 14_000, 10), monthlyCost);
+        assertEquals("io-iops-rightsizing", rightsized.rule());
+        assertEquals((64_000 - 16_800) * 0.065, rightsized.potentialSavings(), 0.01);
+
+        // A low peak fits gp3's included 3000 IOPS
+        VolumeSavingsDTO migrated = rule.evaluate(io1, REGION, new VolumeUsage(14, 1, 1, 0, 200, 10), monthlyCost);
+        assertEquals("io-to-gp3", migrated.rule());
+        assertEquals(monthlyCost - 100 * 0.08, migrated.potentialSavings(), 0.01);
+    }
+
+    @Test
+    void gp3PerformanceIsRightsizedDownToTheBaseline() {
+        EbsSavingsRules.Gp3PerformanceRightsizing rule = new EbsSavingsRules.Gp3PerformanceRightsizing(pricing(), 1.2, 0.5);
+        Volume gp3 = volume("gp3", 100, 6_000, 500, true);
+
+        assertNull(rule.evaluate(gp3, REGION, VolumeUsage.NONE, 30.0));
+
+        VolumeSavingsDTO suggestion = rule.evaluate(gp3, REGION, new VolumeUsage(14, 1, 1, 0, 1_000, 50), 30.0);
+        assertEquals("gp3-rightsizing", suggestion.rule());
+        assertEquals(3_000 * 0.005 + 375 * 0.04, suggestion.potentialSavings(), 0.01);
+
+        // Busy enough on both axes: nothing to save
+        assertNull(rule.evaluate(gp3, REGION, new VolumeUsage(14, 1, 1, 0, 4_000, 400), 30.0));
+    }
+
+    @Test
+    void gp2MigratesToGp3WithTheSameBaseline() {
+        EbsPricing pricing = pricing();
+        EbsSavingsRules.Gp2ToGp3 rule = new EbsSavingsRules.Gp2ToGp3(pricing);
+        Volume gp2 = volume("gp2", 100, 300, null, true);
+
+        VolumeSavingsDTO suggestion = rule.evaluate(gp2, REGION, VolumeUsage.NONE, pricing.monthlyCost(gp2, REGION));
+        assertEquals("gp2-to-gp3", suggestion.rule());
+        assertEquals(100 * 0.10 - 100 * 0.08, suggestion.potentialSavings(), 1e-9);
+
+        assertNull(rule.evaluate(volume("io1", 100, 300, null, true), REGION, VolumeUsage.NONE, 50.0));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuturesTest {
+
+    @Test
+    void fanOutRecoversFailedItemsInPlace() throws Exception {
+        List<String> results = Futures.fanOut(List.of(1, 2, 3, 4),
+                item -> {
+                    if (item == 2) {
+                        throw new IllegalStateException("sync " + item);
+                    }
+                    if (item == 3) {
+                        return CompletableFuture.failedFuture(new IllegalStateException("async " + item));
+                    }
+                    return CompletableFuture.completedFuture("ok " + item);
+                },
+                (item, cause) -> "recovered " + item + ": " + cause.getMessage(),
+                Runnable::run).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("ok 1", "recovered 2: sync 2", "recovered 3: async 3", "ok 4"), results);
+    }
+
+    @Test
+    void deferTurnsAThrowingTaskIntoAFailedFuture() {
+        CompletableFuture<String> failed = Futures.defer(() -> {
+            throw new IllegalStateException("no client");
+        });
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("no client", Futures.message(assertThrows(CompletionException.class, failed::join)));
+        assertEquals("ok", Futures.defer(() -> CompletableFuture.completedFuture("ok")).join());
+    }
+
+    @Test
+    void messageFallsBackToTheUnwrappedCauseClass() {
+        assertEquals("TimeoutException", Futures.message(new CompletionException(new TimeoutException())));
+        assertEquals("boom", Futures.message(new ExecutionException(new IllegalStateException("boom"))));
+    }
+}
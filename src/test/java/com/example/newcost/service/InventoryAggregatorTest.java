@@ -0,0 +1,61 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryAggregatorTest {
+
+    private static long epochDay(String value) {
+        byte[] bytes = ("\"x\"," + value).getBytes(StandardCharsets.US_ASCII);
+        return InventoryAggregator.epochDay(bytes, 4, bytes.length);
+    }
+
+    @Test
+    void epochDayMatchesLocalDate() {
+        for (LocalDate day = LocalDate.of(1999, 12, 25); day.isBefore(LocalDate.of(2101, 3, 5)); day = day.plusDays(1)) {
+            assertEquals(day.toEpochDay(), epochDay(day + "T12:00:00.000Z"), day.toString());
+        }
+        assertEquals(0L, epochDay("1970-01-01T00:00:00.000Z"));
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), epochDay("2024-02-29"));
+    }
+
+    @Test
+    void malformedDatesAreMinusOne() {
+        assertEquals(-1L, epochDay(""));
+        assertEquals(-1L, epochDay("2024-05-0"));
+        assertEquals(-1L, epochDay("2024/05/01T12:00:00.000Z"));
+        assertEquals(-1L, epochDay("2024-13-01T12:00:00.000Z"));
+        assertEquals(-1L, epochDay("2024-00-01T12:00:00.000Z"));
+        assertEquals(-1L, epochDay("2024-05-32T12:00:00.000Z"));
+        assertEquals(-1L, epochDay("2024-05-00T12:00:00.000Z"));
+        assertEquals(-1L, epochDay("20x4-05-01T12:00:00.000Z"));
+        assertEquals(-1L, epochDay("1717243200"));
+    }
+
+    @Test
+    void unknownAgesDisableTheAgeHistogram() {
+        InventoryAggregator aggregator = new InventoryAggregator("bucket", 1_000);
+        byte[] key = "logs/a.gz".getBytes(StandardCharsets.US_ASCII);
+        aggregator.add(S3StorageClass.STANDARD, 100, 400, key, 0, key.length);
+        assertTrue(aggregator.storage().hasAges());
+
+        aggregator.add(S3StorageClass.STANDARD, 50, -1, key, 0, key.length);
+
+        BucketStorage storage = aggregator.storage();
+        assertFalse(storage.hasAges());
+        assertEquals(1L, storage.unknownAgeObjects());
+        assertEquals(150L, storage.bytes(S3StorageClass.STANDARD));
+        assertEquals(2L, storage.objectCount());
+        // Unknown ages count as not cold and stay out of the average age
+        PrefixTrie prefixes = aggregator.prefixes();
+        int logs = prefixes.top(1, false, 0)[0];
+        assertEquals(100L, prefixes.coldBytes(logs));
+        assertEquals(400.0, prefixes.averageAgeDays(logs), 1e-9);
+    }
+}
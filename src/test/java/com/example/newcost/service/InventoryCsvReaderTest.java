@@ -0,0 +1,113 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryCsvReaderTest {
+
+    private static InventoryCsvReader reader(String csv, int maxFields) {
+        return new InventoryCsvReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), maxFields);
+    }
+
+    @Test
+    void quotesAreStripped() throws IOException {
+        try (InventoryCsvReader reader = reader("\"bucket\",\"logs%2Fa.gz\",\"1024\",\"STANDARD\"\n", 4)) {
+            assertTrue(reader.next());
+            assertEquals(4, reader.fieldCount());
+            assertEquals("bucket", reader.string(0));
+            assertEquals("logs%2Fa.gz", reader.string(1));
+            assertEquals(1024L, reader.parseLong(2));
+            assertTrue(reader.equalsAscii(3, "STANDARD"));
+            assertFalse(reader.equalsAscii(3, "STANDARD_IA"));
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void separatorsInsideQuotesStayInTheField() throws IOException {
+        try (InventoryCsvReader reader = reader("\"a,b\",\"line\nbreak\",\"3\"\n", 3)) {
+            assertTrue(reader.next());
+            assertEquals("a,b", reader.string(0));
+            assertEquals("line\nbreak", reader.string(1));
+            assertEquals(3L, reader.parseLong(2));
+        }
+    }
+
+    @Test
+    void escapedQuotesAreLeftDoubled() throws IOException {
+        try (InventoryCsvReader reader = reader("\"say \"\"hi\"\"\",\"x\"\n", 2)) {
+            assertTrue(reader.next());
+            assertEquals("say \"\"hi\"\"", reader.string(0));
+            assertEquals("x", reader.string(1));
+        }
+    }
+
+    @Test
+    void emptyAndUnquotedFields() throws IOException {
+        try (InventoryCsvReader reader = reader("\"\",,plain,\"-5\"\n", 4)) {
+            assertTrue(reader.next());
+            assertTrue(reader.isEmpty(0));
+            assertTrue(reader.isEmpty(1));
+            assertEquals("", reader.string(1));
+            assertEquals("plain", reader.string(2));
+            assertEquals(-1L, reader.parseLong(0));
+            assertEquals(-1L, reader.parseLong(3));
+            assertTrue(reader.isEmpty(7));
+        }
+    }
+
+    @Test
+    void crlfBlankLinesAndMissingFinalNewline() throws IOException {
+        try (InventoryCsvReader reader = reader("\"a\",\"1\"\r\n\r\n\n\"b\",\"2\"", 2)) {
+            assertTrue(reader.next());
+            assertEquals("a", reader.string(0));
+            assertEquals(1L, reader.parseLong(1));
+            assertTrue(reader.next());
+            assertEquals("b", reader.string(0));
+            assertEquals(2L, reader.parseLong(1));
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void fieldsPastMaxFieldsAreSkipped() throws IOException {
+        try (InventoryCsvReader reader = reader("\"a\",\"b\",\"c\",\"d\"\n\"e\"\n", 2)) {
+            assertTrue(reader.next());
+            assertEquals(2, reader.fieldCount());
+            assertEquals("b", reader.string(1));
+            assertTrue(reader.next());
+            assertEquals(1, reader.fieldCount());
+            assertEquals("e", reader.string(0));
+            assertTrue(reader.isEmpty(1));
+        }
+    }
+
+    @Test
+    void rowsLongerThanTheBufferAndAcrossReads() throws IOException {
+        String longKey = "k".repeat(200_000);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            csv.append("\"bucket\",\"key-").append(i).append("\",\"").append(i).append("\"\n");
+        }
+        csv.append("\"bucket\",\"").append(longKey).append("\",\"7\"\n");
+
+        try (InventoryCsvReader reader = reader(csv.toString(), 3)) {
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(reader.next());
+                assertEquals("key-" + i, reader.string(1));
+                assertEquals(i, reader.parseLong(2));
+            }
+            assertTrue(reader.next());
+            assertEquals(longKey, reader.string(1));
+            assertEquals(7L, reader.parseLong(2));
+            assertFalse(reader.next());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LttbTest {
+
+    @Test
+    void keepsFirstAndLastPointsAndThresholdCount() {
+        double[] values = new Random(7).doubles(1_000, 0, 100).toArray();
+        for (int threshold = 3; threshold <= 200; threshold += 17) {
+            int[] kept = Lttb.downsample(values, threshold);
+            assertEquals(threshold, kept.length);
+            assertEquals(0, kept[0]);
+            assertEquals(values.length - 1, kept[kept.length - 1]);
+            for (int i = 1; i < kept.length; i++) {
+                assertTrue(kept[i] > kept[i - 1], "indices must be strictly ascending");
+            }
+        }
+    }
+
+    @Test
+    void thresholdAtOrAboveSizeKeepsEverything() {
+        double[] values = {3, 1, 4, 1, 5};
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Lttb.downsample(values, 5));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, Lttb.downsample(values, 50));
+        assertArrayEquals(new int[0], Lttb.downsample(new double[0], 10));
+    }
+
+    @Test
+    void thresholdBelowThreeKeepsEverything() {
+        double[] values = {3, 1, 4, 1, 5, 9, 2, 6};
+        int[] all = {0, 1, 2, 3, 4, 5, 6, 7};
+        assertArrayEquals(all, Lttb.downsample(values, 2));
+        assertArrayEquals(all, Lttb.downsample(values, 0));
+        assertArrayEquals(all, Lttb.downsample(values, -1));
+    }
+
+    @Test
+    void spikeSurvivesDownsampling() {
+        double[] values = new double[365];
+        values[200] = 1_000.0;
+        int[] kept = Lttb.downsample(values, 30);
+        boolean spikeKept = false;
+        for (int index : kept) {
+            spikeKept |= index == 200;
+        }
+        assertTrue(spikeKept);
+    }
+}
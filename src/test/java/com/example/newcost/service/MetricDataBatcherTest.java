@@ -0,0 +1,96 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.CloudWatchException;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.paginators.GetMetricDataPublisher;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MetricDataBatcherTest {
+
+    private static final Instant END = Instant.parse("2024-06-01T00:00:00Z");
+    private static final Instant START = END.minusSeconds(86_400 * 3);
+
+    @Test
+    void valuesSpanningPagesAreJoined() {
+        PagedCloudWatch cloudWatch = new PagedCloudWatch(-1);
+
+        Map<String, List<Double>> values = new MetricDataBatcher(1).fetch(cloudWatch, queries(3), START, END).join();
+
+        assertEquals(Map.of("m0", List.of(3.0, 2.0, 1.0),
+                "m1", List.of(3.0, 2.0, 1.0),
+                "m2", List.of(3.0, 2.0, 1.0)), values);
+    }
+
+    @Test
+    void aCallWhoseLaterPageFailsLeavesAllItsIdsOut() {
+        // 501 queries: the first call (m0..m499) fails on its second page, the second call (m500) succeeds
+        PagedCloudWatch cloudWatch = new PagedCloudWatch(1);
+
+        Map<String, List<Double>> values = new MetricDataBatcher(1).fetch(cloudWatch, queries(501), START, END).join();
+
+        assertEquals(Map.of("m500", List.of(3.0, 2.0, 1.0)), values);
+    }
+
+    private static List<MetricDataQuery> queries(int count) {
+        List<MetricDataQuery> queries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            queries.add(MetricDataQuery.builder().id("m" + i).expression("SEARCH('x', 'Average', 86400)").build());
+        }
+        return queries;
+    }
+
+    /**
+     * Answers every query with three values, newest first, spread over three pages; page
+     * number {@code failingPage} (zero-based) of the call starting at query m0 fails.
+     */
+    private static final class PagedCloudWatch implements CloudWatchAsyncClient {
+        private final int failingPage;
+
+        PagedCloudWatch(int failingPage) {
+            this.failingPage = failingPage;
+        }
+
+        @Override
+        public CompletableFuture<GetMetricDataResponse> getMetricData(GetMetricDataRequest request) {
+            int page = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+            boolean firstCall = "m0".equals(request.metricDataQueries().get(0).id());
+            if (page == failingPage && firstCall) {
+                return CompletableFuture.failedFuture(CloudWatchException.builder().message("Throttling").build());
+            }
+            List<MetricDataResult> results = new ArrayList<>();
+            for (MetricDataQuery query : request.metricDataQueries()) {
+                results.add(MetricDataResult.builder().id(query.id()).values((double) (3 - page)).build());
+            }
+            return CompletableFuture.completedFuture(GetMetricDataResponse.builder()
+                    .metricDataResults(results)
+                    .nextToken(page < 2 ? String.valueOf(page + 1) : null)
+                    .build());
+        }
+
+        @Override
+        public GetMetricDataPublisher getMetricDataPaginator(GetMetricDataRequest request) {
+            return new GetMetricDataPublisher(this, request);
+        }
+
+        @Override
+        public String serviceName() {
+            return "cloudwatch";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+
+    private static final int KEYS = 200_000;
+
+    /**
+     * Brute-force rollups: every prefix of every key up to its last delimiter, as the trie
+     * counts them.
+     */
+    private static final class PrefixMap {
+        private final Map<String, long[]> totals = new HashMap<>();  // bytes, objects, cold bytes
+
+        void add(String key, long size, long ageDays) {
+            for (int slash = key.indexOf('/'); slash >= 0; slash = key.indexOf('/', slash + 1)) {
+                long[] total = totals.computeIfAbsent(key.substring(0, slash + 1), prefix -> new long[3]);
+                total[0] += size;
+                total[1]++;
+                if (ageDays >= PrefixTrie.COLD_DAYS) {
+                    total[2] += size;
+                }
+            }
+        }
+
+        long[] get(String prefix) {
+            return totals.get(prefix);
+        }
+
+        int size() {
+            return totals.size();
+        }
+    }
+
+    // Skewed random keys: a few large prefixes, and a long tail of small ones that come and go
+    private static String randomKey(Random random) {
+        StringBuilder key = new StringBuilder();
+        int depth = 1 + random.nextInt(4);
+        for (int level = 0; level < depth; level++) {
+            int fanOut = level == 0 ? 20 : 200;
+            key.append("p").append((int) Math.floor(fanOut * Math.pow(random.nextDouble(), 3))).append('/');
+        }
+        return key.append("obj-").append(random.nextInt(1_000)).toString();
+    }
+
+    private static void fill(PrefixTrie trie, PrefixMap expected, long seed) {
+        Random random = new Random(seed);
+        for (int i = 0; i < KEYS; i++) {
+            String key = randomKey(random);
+            long size = 1 + random.nextInt(10_000);
+            long ageDays = random.nextInt(400);
+            trie.add(key, size, ageDays);
+            expected.add(key, size, ageDays);
+        }
+    }
+
+    @Test
+    void exactWithoutCompaction() {
+        PrefixTrie trie = new PrefixTrie(10_000_000, false);
+        PrefixMap expected = new PrefixMap();
+        fill(trie, expected, 42);
+
+        assertEquals(0L, trie.maxUndercountBytes());
+        int[] nodes = trie.top(Integer.MAX_VALUE, false, 0);
+        assertTrue(nodes.length <= expected.size());
+        for (int node : nodes) {
+            long[] total = expected.get(trie.prefix(node));
+            assertNotNull(total, trie.prefix(node));
+            assertEquals(total[0], trie.bytes(node), trie.prefix(node));
+            assertEquals(total[1], trie.objects(node), trie.prefix(node));
+            assertEquals(total[2], trie.coldBytes(node), trie.prefix(node));
+        }
+        long rootBytes = 0;
+        for (int i = 0; i < 20; i++) {
+            long[] total = expected.get("p" + i + "/");
+            rootBytes += total != null ? total[0] : 0;
+        }
+        assertEquals(rootBytes, trie.totalBytes());
+        assertEquals(KEYS, trie.totalObjects());
+    }
+
+    @Test
+    void withinTheUndercountBoundAfterCompaction() {
+        PrefixTrie trie = new PrefixTrie(2_000, false);
+        PrefixMap expected = new PrefixMap();
+        fill(trie, expected, 7);
+
+        assertTrue(trie.nodeCount() < 2_000);
+        assertTrue(trie.maxUndercountBytes() > 0);
+        for (int node : trie.top(Integer.MAX_VALUE, false, 0)) {
+            long[] total = expected.get(trie.prefix(node));
+            assertNotNull(total, trie.prefix(node));
+            long shortBy = total[0] - trie.bytes(node);
+            assertTrue(shortBy >= 0 && shortBy <= trie.maxUndercountBytes(),
+                    trie.prefix(node) + " short by " + shortBy + " of at most " + trie.maxUndercountBytes());
+            assertTrue(trie.coldBytes(node) <= total[2]);
+        }
+        // Dropped subtrees stay in the root's rollup
+        assertEquals(KEYS, trie.totalObjects());
+    }
+
+    @Test
+    void urlEncodedDelimitersAreDecodedInPrefixes() {
+        PrefixTrie trie = new PrefixTrie(1_000, true);
+        trie.add("logs/2024%2F05/a.gz", 5, 0);
+        trie.add("logs/2024%2F05/b.gz", 7, 0);
+
+        int[] nodes = trie.top(10, false, 0);
+        assertEquals(1, nodes.length);
+        assertEquals("logs/2024/05/", trie.prefix(nodes[0]));
+        assertEquals(12L, trie.bytes(nodes[0]));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.newcost.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceExtractorTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void tieredDimensionsKeepTheirRangesInDocumentOrder() throws Exception {
+        PriceExtractor.Dimensions dimensions = PriceExtractor.extract(priceDocument("AmazonS3-sample.json", "S3STANDARD"));
+
+        assertEquals(3, dimensions.size());
+        assertEquals(0.022, dimensions.usd(0), 1e-12);
+        assertEquals(51_200.0, dimensions.beginRange(0), 0.0);
+        assertEquals(512_000.0, dimensions.endRange(0), 0.0);
+        assertEquals(0.023, dimensions.usd(1), 1e-12);
+        assertEquals(0.0, dimensions.beginRange(1), 0.0);
+        assertEquals(51_200.0, dimensions.endRange(1), 0.0);
+        assertEquals(0.021, dimensions.usd(2), 1e-12);
+        assertEquals(512_000.0, dimensions.beginRange(2), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, dimensions.endRange(2));
+        assertEquals("GB-Mo", dimensions.unit(2));
+    }
+
+    @Test
+    void firstTierIsTheLowestBeginRangeNotTheFirstListed() throws Exception {
+        String document = priceDocument("AmazonS3-sample.json", "S3STANDARD");
+
+        assertEquals(0.023, PriceExtractor.onDemandPrice(document), 1e-12);
+    }
+
+    @Test
+    void missingRangesMakeOneOpenEndedTier() throws Exception {
+        PriceExtractor.Dimensions dimensions = PriceExtractor.extract(priceDocument("AmazonRDS-sample.json", "RDS3ORACLEBYOL"));
+
+        assertEquals(1, dimensions.size());
+        assertEquals(0.171, dimensions.usd(0), 1e-12);
+        assertEquals(0.0, dimensions.beginRange(0), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, dimensions.endRange(0));
+        assertEquals("Hrs", dimensions.unit(0));
+    }
+
+    @Test
+    void reservedTermsAreSkipped() throws Exception {
+        PriceExtractor.Dimensions dimensions = PriceExtractor.extract(priceDocument("AmazonEC2-sample.json", "SKU1M5LARGE"));
+
+        assertEquals(1, dimensions.size());
+        assertEquals(0.096, dimensions.usd(0), 1e-12);
+    }
+
+    @Test
+    void zeroPriceIsAPrice() throws Exception {
+        assertEquals(0.0, PriceExtractor.onDemandPrice(priceDocument("AmazonEC2-sample.json", "SKU2M5UNUSED")), 0.0);
+    }
+
+    @Test
+    void emptyOrMissingUsdIsNotADimension() throws Exception {
+        String document = """
+                {"terms": {"OnDemand": {"SKU.TERM": {"priceDimensions": {
+                    "SKU.TERM.EMPTY": {"beginRange": "0", "endRange": "10", "unit": "Hrs", "pricePerUnit": {"USD": ""}},
+                    "SKU.TERM.CNY": {"beginRange": "0", "endRange": "Inf", "unit": "Hrs", "pricePerUnit": {"CNY": "0.5"}},
+                    "SKU.TERM.NONE": {"beginRange": "0", "endRange": "Inf", "unit": "Hrs"},
+                    "SKU.TERM.USD": {"beginRange": "10", "endRange": "Inf", "unit": "Hrs", "pricePerUnit": {"CNY": "0.4", "USD": "0.06"}}
+                }}}}}
+                """;
+
+        PriceExtractor.Dimensions dimensions = PriceExtractor.extract(document);
+
+        assertEquals(1, dimensions.size());
+        assertEquals(0.06, dimensions.usd(0), 1e-12);
+        assertEquals(10.0, dimensions.beginRange(0), 0.0);
+        assertEquals(0.06, dimensions.firstTierUsd(), 1e-12);
+    }
+
+    @Test
+    void documentWithoutOnDemandUsdHasNoPrice() throws Exception {
+        String reservedOnly = """
+                {"product": {"sku": "SKU"}, "terms": {"Reserved": {"SKU.TERM": {"priceDimensions": {
+                    "SKU.TERM.RATE": {"unit": "Hrs", "pricePerUnit": {"USD": "0.06"}}
+                }}}}}
+                """;
+
+        assertTrue(Double.isNaN(PriceExtractor.onDemandPrice(reservedOnly)));
+        assertTrue(Double.isNaN(PriceExtractor.onDemandPrice("{\"product\": {}}")));
+        assertThrows(IOException.class, () -> PriceExtractor.onDemandPrice("[]"));
+    }
+
+    /**
+     * The GetProducts document for one SKU of a bulk sample: its product plus its OnDemand and
+     * Reserved terms, in the shape the Pricing API returns them.
+     */
+    private static String priceDocument(String sample, String sku) throws IOException {
+        JsonNode offer;
+        try (InputStream in = PriceExtractorTest.class.getResourceAsStream("/pricing/" + sample)) {
+            offer = MAPPER.readTree(in);
+        }
+        ObjectNode document = MAPPER.createObjectNode();
+        document.set("product", offer.path("products").path(sku));
+        ObjectNode terms = document.putObject("terms");
+        terms.set("OnDemand", offer.path("terms").path("OnDemand").path(sku));
+        if (offer.path("terms").path("Reserved").has(sku)) {
+            terms.set("Reserved", offer.path("terms").path("Reserved").path(sku));
+        }
+        return MAPPER.writeValueAsString(document);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceListIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fileShorterThanHeaderIsIgnored() throws Exception {
+        Path file = tempDir.resolve("price-index.bin");
+        Files.write(file, new byte[]{0x4E, 0x43, 0x50});
+
+        PriceListIndex index = new PriceListIndex(file.toString());
+        assertFalse(index.isLoaded());
+        assertTrue(Double.isNaN(index.ebsPrice("gp3", "us-east-1")));
+    }
+
+    @Test
+    void entriesPastTheEndOfTheFileAreIgnored() throws Exception {
+        Path file = tempDir.resolve("price-index.bin");
+        // Valid header claiming 100 entries, with none following it
+        Files.write(file, ByteBuffer.allocate(16).putInt(0x4E435058).putInt(1).putInt(100).putInt(0).array());
+
+        PriceListIndex index = new PriceListIndex(file.toString());
+        assertFalse(index.isLoaded());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void unknownFormatIsIgnored() throws Exception {
+        Path file = tempDir.resolve("price-index.bin");
+        Files.write(file, new byte[64]);
+        assertFalse(new PriceListIndex(file.toString()).isLoaded());
+    }
+
+    @Test
+    void unreadableIndexDoesNotFailConstruction() throws Exception {
+        // A directory where the file should be cannot be mapped
+        Path directory = Files.createDirectories(tempDir.resolve("price-index.bin"));
+
+        PriceListIndex index = new PriceListIndex(directory.toString());
+        assertFalse(index.isLoaded());
+        assertTrue(Double.isNaN(index.ec2Price("m5.large", "us-east-1", "Linux", "Shared")));
+    }
+
+    @Test
+    void validIndexLoads() throws Exception {
+        Path file = tempDir.resolve("price-index.bin");
+        PriceListIndex.write(Map.of(PriceListIndex.ebsKey("gp3", "us-east-1"), 0.08), file);
+
+        PriceListIndex index = new PriceListIndex(file.toString());
+        assertTrue(index.isLoaded());
+        assertEquals(0.08, index.ebsPrice("gp3", "us-east-1"), 1e-9);
+    }
+}
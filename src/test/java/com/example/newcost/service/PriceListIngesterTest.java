@@ -0,0 +1,71 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceListIngesterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void indexesSampleOfferFiles() throws Exception {
+        PriceListIndex index = new PriceListIndex(tempDir.resolve("price-index.bin").toString());
+        assertFalse(index.isLoaded());
+
+        PriceListIngester ingester = new PriceListIngester(index, List.of(), Runnable::run);
+        int count = ingester.ingest(List.of(
+                sample("AmazonEC2-sample.json"),
+                sample("AmazonRDS-sample.json"),
+                sample("AmazonS3-sample.json")));
+
+        // m5.large, t3.micro, gp3, gp2, two MySQL deployments, Standard, Standard-IA
+        assertEquals(8, count);
+        assertTrue(index.isLoaded());
+        assertEquals(8, index.size());
+
+        assertEquals(0.096, index.ec2Price("m5.large", "us-east-1", "Linux", "Shared"), 1e-9);
+        assertEquals(0.0204, index.ec2Price("t3.micro", "ap-south-1", "Windows", "Shared"), 1e-9);
+        assertEquals(0.08, index.ebsPrice("gp3", "us-east-1"), 1e-9);
+        assertEquals(0.114, index.ebsPrice("gp2", "ap-south-1"), 1e-9);
+
+        // Availability zones resolve to their region
+        assertEquals(0.068, index.rdsPrice("db.t3.medium", "us-east-1b", "MySQL", "Single-AZ"), 1e-9);
+        assertEquals(0.136, index.rdsPrice("db.t3.medium", "us-east-1", "MySQL", "Multi-AZ"), 1e-9);
+
+        // First tier wins even when it is not listed first
+        assertEquals(0.023, index.s3Price("Standard", "us-east-1"), 1e-9);
+        assertEquals(0.0125, index.s3Price("Standard - Infrequent Access", "us-east-1"), 1e-9);
+    }
+
+    @Test
+    void missingProductsAreNaN() throws Exception {
+        PriceListIndex index = new PriceListIndex(tempDir.resolve("price-index.bin").toString());
+        assertTrue(Double.isNaN(index.ec2Price("m5.large", "us-east-1", "Linux", "Shared")));
+
+        new PriceListIngester(index, List.of(), Runnable::run).ingest(List.of(sample("AmazonEC2-sample.json")));
+
+        assertTrue(Double.isNaN(index.ec2Price("m5.large", "eu-west-1", "Linux", "Shared")));
+        assertTrue(Double.isNaN(index.ec2Price("t3.micro", "ap-south-1", "Linux", "Shared")));
+        assertTrue(Double.isNaN(index.ebsPrice("io2", "us-east-1")));
+        // BYOL products and other offers are not indexed
+        assertTrue(Double.isNaN(index.rdsPrice("db.m5.large", "us-east-1", "Oracle", "Single-AZ")));
+
+        // A fresh instance maps the file written by the first one
+        PriceListIndex reopened = new PriceListIndex(tempDir.resolve("price-index.bin").toString());
+        assertEquals(0.096, reopened.ec2Price("m5.large", "us-east-1", "Linux", "Shared"), 1e-9);
+    }
+
+    private static String sample(String name) throws URISyntaxException {
+        return Paths.get(PriceListIngesterTest.class.getResource("/pricing/" + name).toURI()).toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.pricing.PricingAsyncClient;
+import software.amazon.awssdk.services.pricing.model.GetProductsRequest;
+import software.amazon.awssdk.services.pricing.model.GetProductsResponse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PricingCatalogTest {
+
+    private static final AwsAccount ACCOUNT = new AwsAccount("test", "AKIATEST", "secret", "us-east-1");
+    private static final String M5_LARGE = "{\"product\":{\"sku\":\"ABC\"},\"terms\":{\"OnDemand\":{\"ABC.JRTCKXETXF\":"
+            + "{\"priceDimensions\":{\"ABC.JRTCKXETXF.6YS6EN2CT7\":{\"unit\":\"Hrs\",\"pricePerUnit\":{\"USD\":\"0.0960000000\"}}}}}}}";
+
+    @TempDir
+    Path tempDir;
+
+    // Answers GetProducts from a queue of futures, one per call, and counts the calls
+    private final List<CompletableFuture<GetProductsResponse>> answers = new ArrayList<>();
+    private int calls;
+
+    private synchronized CompletableFuture<GetProductsResponse> nextAnswer() {
+        return answers.get(calls++);
+    }
+
+    private PricingCatalog catalog(long negativeTtlMinutes) {
+        PricingAsyncClient pricing = new PricingAsyncClient() {
+            @Override
+            public CompletableFuture<GetProductsResponse> getProducts(GetProductsRequest request) {
+                return nextAnswer();
+            }
+
+            @Override
+            public String serviceName() {
+                return "pricing";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AwsClientRegistry registry = new AwsClientRegistry(null, null, Runnable::run, null, null, 16, 30, 10) {
+            @Override
+            public PricingAsyncClient pricingAsyncClient(AwsAccount account) {
+                return pricing;
+            }
+        };
+        // No index on disk, so every lookup goes to the API
+        PriceListIndex index = new PriceListIndex(tempDir.resolve("missing.bin").toString());
+        return new PricingCatalog(registry, index, 24, negativeTtlMinutes);
+    }
+
+    private static CompletableFuture<GetProductsResponse> found() {
+        return CompletableFuture.completedFuture(GetProductsResponse.builder().priceList(List.of(M5_LARGE)).build());
+    }
+
+    private static CompletableFuture<GetProductsResponse> notFound() {
+        return CompletableFuture.completedFuture(GetProductsResponse.builder().priceList(List.of()).build());
+    }
+
+    @Test
+    void concurrentCallersShareOneRequest() throws Exception {
+        CompletableFuture<GetProductsResponse> slow = new CompletableFuture<>();
+        answers.add(slow);
+        PricingCatalog catalog = catalog(60);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CompletableFuture<Double>>> prices = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                prices.add(callers.submit(() -> catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1")));
+            }
+            List<CompletableFuture<Double>> pending = new ArrayList<>();
+            for (Future<CompletableFuture<Double>> price : prices) {
+                pending.add(price.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls);
+            pending.forEach(price -> assertFalse(price.isDone()));
+
+            slow.complete(GetProductsResponse.builder().priceList(List.of(M5_LARGE)).build());
+            for (CompletableFuture<Double> price : pending) {
+                assertEquals(0.096, price.get(10, TimeUnit.SECONDS), 1e-9);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        // Served from the cache afterwards
+        assertEquals(0.096, catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1").join(), 1e-9);
+        assertEquals(1, calls);
+    }
+
+    @Test
+    void missingProductIsCachedForTheNegativeTtl() {
+        answers.add(notFound());
+        answers.add(notFound());
+        PricingCatalog catalog = catalog(60);
+
+        assertEquals(0.0, catalog.getRdsPrice(ACCOUNT, "db.x9.huge", "MYSQL", "us-east-1a").join(), 1e-9);
+        assertEquals(0.0, catalog.getRdsPrice(ACCOUNT, "db.x9.huge", "MYSQL", "us-east-1b").join(), 1e-9);
+        assertEquals(1, calls);
+    }
+
+    @Test
+    void missingProductExpiresAfterTheNegativeTtlWhileFoundPricesStay() {
+        answers.add(notFound());
+        answers.add(found());
+        answers.add(found());
+        PricingCatalog catalog = catalog(0);
+
+        assertEquals(0.0, catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1").join(), 1e-9);
+        // The 0.0 has already expired, so the next call asks again and gets a price
+        assertEquals(0.096, catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1").join(), 1e-9);
+        assertEquals(2, calls);
+        // A found price lives for the positive TTL
+        assertEquals(0.096, catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1").join(), 1e-9);
+        assertEquals(2, calls);
+    }
+
+    @Test
+    void failedLookupIsNotCached() {
+        answers.add(CompletableFuture.failedFuture(new IllegalStateException("Rate exceeded")));
+        answers.add(found());
+        PricingCatalog catalog = catalog(60);
+
+        assertEquals(0.0, catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1").join(), 1e-9);
+        assertEquals(0.096, catalog.getEc2Price(ACCOUNT, "m5.large", "us-east-1").join(), 1e-9);
+        assertEquals(2, calls);
+    }
+
+    @Test
+    void unknownRegionIsPricedAtZeroWithoutALookup() {
+        PricingCatalog catalog = catalog(60);
+
+        assertEquals(0.0, catalog.getRdsPrice(ACCOUNT, "db.t3.medium", "MYSQL", null).join(), 1e-9);
+        assertEquals(0.0, catalog.getEc2Price(ACCOUNT, "m5.large", null).join(), 1e-9);
+        assertEquals(0, calls);
+    }
+}
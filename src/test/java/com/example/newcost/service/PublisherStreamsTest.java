@@ -0,0 +1,120 @@
+package com.example.newcost.service;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublisherStreamsTest {
+
+    @Test
+    void subscribesOnTerminalOperation() {
+        RangePublisher publisher = new RangePublisher(5, null);
+        Stream<Integer> stream = PublisherStreams.toStream(publisher, 2);
+        assertEquals(0, publisher.subscriptions);
+
+        assertEquals(List.of(0, 1, 2, 3, 4), stream.collect(Collectors.toList()));
+        assertEquals(1, publisher.subscriptions);
+    }
+
+    @Test
+    void closingAnUnconsumedStreamNeverSubscribes() {
+        RangePublisher publisher = new RangePublisher(5, null);
+        PublisherStreams.toStream(publisher, 2).close();
+        assertEquals(0, publisher.subscriptions);
+    }
+
+    @Test
+    void requestsAtMostTheBufferAheadOfTheConsumer() {
+        int bufferSize = 4;
+        RangePublisher publisher = new RangePublisher(100, null);
+        AtomicInteger consumed = new AtomicInteger();
+        int[] maxAhead = {0};
+
+        PublisherStreams.toStream(publisher, bufferSize).forEach(item -> {
+            consumed.incrementAndGet();
+            maxAhead[0] = Math.max(maxAhead[0], (int) (publisher.requested - consumed.get()));
+        });
+
+        assertEquals(100, consumed.get());
+        assertTrue(maxAhead[0] <= bufferSize, "requested " + maxAhead[0] + " items ahead");
+    }
+
+    @Test
+    void errorsSurfaceAfterTheItemsBeforeThem() {
+        RuntimeException failure = new RuntimeException("page 3 failed");
+        RangePublisher publisher = new RangePublisher(2, failure);
+        List<Integer> seen = new ArrayList<>();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> PublisherStreams.toStream(publisher, 8).forEach(seen::add));
+        assertEquals(List.of(0, 1), seen);
+        assertEquals("page 3 failed", thrown.getMessage());
+        assertEquals(failure, thrown.getCause());
+    }
+
+    @Test
+    void closingEarlyCancelsTheSubscription() {
+        RangePublisher publisher = new RangePublisher(1_000, null);
+        try (Stream<Integer> stream = PublisherStreams.toStream(publisher, 4)) {
+            assertEquals(List.of(0, 1, 2), stream.limit(3).collect(Collectors.toList()));
+        }
+        assertTrue(publisher.cancelled);
+        assertTrue(publisher.requested < 1_000);
+    }
+
+    /**
+     * Emits 0..count-1 synchronously as they are requested, then completes or fails.
+     */
+    private static final class RangePublisher implements Publisher<Integer> {
+        private final int count;
+        private final RuntimeException failure;
+        private int subscriptions;
+        private long requested;
+        private int emitted;
+        private boolean done;
+        private boolean cancelled;
+
+        RangePublisher(int count, RuntimeException failure) {
+            this.count = count;
+            this.failure = failure;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> subscriber) {
+            subscriptions++;
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    requested += n;
+                    while (!cancelled && emitted < requested && emitted < count) {
+                        subscriber.onNext(emitted++);
+                    }
+                    if (!cancelled && !done && emitted == count) {
+                        done = true;
+                        if (failure != null) {
+                            subscriber.onError(failure);
+                        } else {
+                            subscriber.onComplete();
+                        }
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.newcost.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3InventoryLoaderTest {
+
+    private static final String MANIFEST = "source/config/2026-10-01T01-00Z/manifest.json";
+
+    @TempDir
+    Path tempDir;
+
+    private InventoryAggregator load(String schema, String csv) throws Exception {
+        Path manifest = tempDir.resolve(MANIFEST);
+        Files.createDirectories(manifest.getParent());
+        Files.writeString(manifest, "{\"sourceBucket\":\"source\",\"fileFormat\":\"CSV\",\"fileSchema\":\"" + schema
+                + "\",\"files\":[{\"key\":\"config/data/part-0.csv.gz\"}]}");
+        Path data = tempDir.resolve("source/config/data/part-0.csv.gz");
+        Files.createDirectories(data.getParent());
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(data))) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        S3InventoryLoader loader = new S3InventoryLoader(null, new ObjectMapper(), Runnable::run,
+                tempDir.toString(), 4, 1_000);
+        return loader.load(null, MANIFEST).join();
+    }
+
+    private static String daysAgo(int days) {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(days) + "T08:00:00.000Z";
+    }
+
+    @Test
+    void datedRowsFillTheAgeHistogram() throws Exception {
+        InventoryAggregator aggregator = load("Bucket, Key, Size, LastModifiedDate, StorageClass",
+                "\"source\",\"logs/a\",\"100\",\"" + daysAgo(200) + "\",\"STANDARD\"\n"
+                        + "\"source\",\"logs/b\",\"50\",\"" + daysAgo(10) + "\",\"STANDARD\"\n");
+
+        BucketStorage storage = aggregator.storage();
+        assertTrue(storage.hasAges());
+        assertEquals(100L, storage.bytesOlderThan(S3StorageClass.STANDARD, 90));
+        assertEquals(150L, storage.bytesOlderThan(S3StorageClass.STANDARD, 0));
+    }
+
+    @Test
+    void malformedDatesAreUnknownNotNew() throws Exception {
+        InventoryAggregator aggregator = load("Bucket, Key, Size, LastModifiedDate, StorageClass",
+                "\"source\",\"logs/a\",\"100\",\"" + daysAgo(200) + "\",\"STANDARD\"\n"
+                        + "\"source\",\"logs/b\",\"50\",\"not-a-date\",\"STANDARD\"\n"
+                        + "\"source\",\"logs/c\",\"25\",\"\",\"STANDARD\"\n");
+
+        BucketStorage storage = aggregator.storage();
+        assertFalse(storage.hasAges());
+        assertEquals(2L, storage.unknownAgeObjects());
+        assertEquals(175L, storage.bytes(S3StorageClass.STANDARD));
+        assertEquals(3L, aggregator.rows());
+    }
+
+    @Test
+    void missingDateColumnLeavesEveryAgeUnknown() throws Exception {
+        InventoryAggregator aggregator = load("Bucket, Key, Size, StorageClass",
+                "\"source\",\"logs/a\",\"100\",\"STANDARD_IA\"\n");
+
+        BucketStorage storage = aggregator.storage();
+        assertFalse(storage.hasAges());
+        assertEquals(1L, storage.unknownAgeObjects());
+        assertEquals(100L, storage.bytes(S3StorageClass.STANDARD_IA));
+    }
+}
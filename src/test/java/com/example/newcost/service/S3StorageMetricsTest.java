@@ -0,0 +1,128 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.CloudWatchException;
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.paginators.GetMetricDataPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class S3StorageMetricsTest {
+
+    private static final AwsAccount ACCOUNT = new AwsAccount("test", "AKIATEST", "secret", "us-east-1");
+
+    @Test
+    void bucketsWithSeriesInAFailedBatchAreLeftOut() {
+        // 22 queries per bucket: the first 500-query call fails and ends inside bucket 22's storage
+        // types, so bucket 22 still gets its object count from the second call
+        List<String> bucketNames = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            bucketNames.add("bucket-" + i);
+        }
+
+        Map<String, BucketStorage> storage = metrics(new StorageCloudWatch(0)).fetch(ACCOUNT, bucketNames).join();
+
+        assertEquals(7, storage.size());
+        for (int i = 0; i <= 22; i++) {
+            assertNull(storage.get("bucket-" + i), "bucket-" + i);
+        }
+        for (int i = 23; i < 30; i++) {
+            BucketStorage bucket = storage.get("bucket-" + i);
+            assertEquals(1_000L, bucket.bytes(S3StorageClass.STANDARD));
+            assertEquals(300L, bucket.bytes(S3StorageClass.DEEP_ARCHIVE));
+            assertEquals(1_300L, bucket.totalBytes());
+            assertEquals(7L, bucket.objectCount());
+        }
+    }
+
+    @Test
+    void bucketsWithoutDatapointsHaveZeroBytes() {
+        CloudWatchAsyncClient empty = new StorageCloudWatch(-1) {
+            @Override
+            List<Double> values(String storageType) {
+                return List.of();
+            }
+        };
+
+        BucketStorage bucket = metrics(empty).fetch(ACCOUNT, List.of("new-bucket")).join().get("new-bucket");
+
+        assertEquals(0L, bucket.totalBytes());
+        assertEquals(0L, bucket.objectCount());
+    }
+
+    private S3StorageMetrics metrics(CloudWatchAsyncClient cloudWatch) {
+        AwsClientRegistry registry = new AwsClientRegistry(null, null, Runnable::run, null, null, 16, 30, 10) {
+            @Override
+            public CloudWatchAsyncClient cloudWatchAsyncClient(AwsAccount account) {
+                return cloudWatch;
+            }
+        };
+        return new S3StorageMetrics(registry, new MetricDataBatcher(1));
+    }
+
+    /**
+     * Reports 1000 bytes of StandardStorage, 100 bytes of each Deep Archive storage type and 7
+     * objects for every bucket, newest first, except that call number {@code failingCall}
+     * (zero-based) fails.
+     */
+    private static class StorageCloudWatch implements CloudWatchAsyncClient {
+        private final int failingCall;
+        private int calls;
+
+        StorageCloudWatch(int failingCall) {
+            this.failingCall = failingCall;
+        }
+
+        List<Double> values(String storageType) {
+            return switch (storageType) {
+                case "StandardStorage" -> List.of(1_000.0, 900.0);
+                case "DeepArchiveStorage", "DeepArchiveObjectOverhead", "DeepArchiveS3ObjectOverhead" -> List.of(100.0);
+                case "AllStorageTypes" -> List.of(7.0, 6.0);
+                default -> List.of();
+            };
+        }
+
+        @Override
+        public CompletableFuture<GetMetricDataResponse> getMetricData(GetMetricDataRequest request) {
+            if (calls++ == failingCall) {
+                return CompletableFuture.failedFuture(CloudWatchException.builder().message("Throttling").build());
+            }
+            List<MetricDataResult> results = new ArrayList<>();
+            for (MetricDataQuery query : request.metricDataQueries()) {
+                String storageType = query.metricStat().metric().dimensions().stream()
+                        .filter(dimension -> "StorageType".equals(dimension.name()))
+                        .map(Dimension::value)
+                        .findFirst().orElseThrow();
+                results.add(MetricDataResult.builder().id(query.id()).values(values(storageType)).build());
+            }
+            return CompletableFuture.completedFuture(GetMetricDataResponse.builder().metricDataResults(results).build());
+        }
+
+        @Override
+        public GetMetricDataPublisher getMetricDataPaginator(GetMetricDataRequest request) {
+            return new GetMetricDataPublisher(this, request);
+        }
+
+        @Override
+        public String serviceName() {
+            return "cloudwatch";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.newcost.service;
+
+import com.example.newcost.awscontext.AwsAccount;
+import com.example.newcost.config.AwsClientRegistry;
+import com.example.newcost.model.VolumeSavingsDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.cloudwatch.CloudWatchAsyncClient;
+import software.amazon.awssdk.services.cloudwatch.model.CloudWatchException;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataRequest;
+import software.amazon.awssdk.services.cloudwatch.model.GetMetricDataResponse;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataQuery;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDataResult;
+import software.amazon.awssdk.services.cloudwatch.paginators.GetMetricDataPublisher;
+import software.amazon.awssdk.services.ec2.model.Volume;
+import software.amazon.awssdk.services.ec2.model.VolumeAttachment;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VolumeSavingsEngineTest {
+
+    private static final AwsAccount ACCOUNT = new AwsAccount("test", "AKIATEST", "secret", "us-east-1");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void volumesWithSeriesInAFailedBatchGetNoUsageAdvice() {
+        // 7 queries per io1 volume: the second 500-query call covers volumes 71..142, and 71 and 142
+        // straddle its edges with only some of their series in it
+        List<Volume> volumes = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            volumes.add(Volume.builder().volumeId("vol-" + i).volumeType("io1").size(100).iops(20_000)
+                    .attachments(VolumeAttachment.builder().instanceId("i-" + i).build())
+                    .build());
+        }
+
+        List<VolumeSavingsDTO> suggestions = engine(new IdleCloudWatch(1)).evaluate(ACCOUNT, volumes).join();
+
+        assertEquals(150, suggestions.size());
+        for (int i = 0; i < suggestions.size(); i++) {
+            boolean lost = i >= 71 && i <= 142;
+            assertEquals(lost ? "none" : "idle-attached", suggestions.get(i).rule(), "volume " + i);
+        }
+    }
+
+    @Test
+    void volumesWithoutDatapointsGetNoUsageAdvice() {
+        Volume gp3 = Volume.builder().volumeId("vol-1").volumeType("gp3").size(100).iops(6_000).throughput(500)
+                .attachments(VolumeAttachment.builder().instanceId("i-1").build())
+                .build();
+        CloudWatchAsyncClient empty = new IdleCloudWatch(-1) {
+            @Override
+            List<Double> values(String id) {
+                return List.of();
+            }
+        };
+
+        assertEquals("none", engine(empty).evaluate(ACCOUNT, List.of(gp3)).join().get(0).rule());
+    }
+
+    private VolumeSavingsEngine engine(CloudWatchAsyncClient cloudWatch) {
+        AwsClientRegistry registry = new AwsClientRegistry(null, null, Runnable::run, null, null, 16, 30, 10) {
+            @Override
+            public CloudWatchAsyncClient cloudWatchAsyncClient(AwsAccount account) {
+                return cloudWatch;
+            }
+        };
+        EbsPricing pricing = new EbsPricing(new PriceListIndex(tempDir.resolve("missing.bin").toString()));
+        List<VolumeSavingsRule> rules = List.of(
+                new EbsSavingsRules.Unattached(),
+                new EbsSavingsRules.IdleAttached(0.99),
+                new EbsSavingsRules.ProvisionedIopsRightsizing(pricing, 1.2, 0.5),
+                new EbsSavingsRules.Gp3PerformanceRightsizing(pricing, 1.2, 0.5));
+        return new VolumeSavingsEngine(registry, new MetricDataBatcher(1), pricing, rules, 14);
+    }
+
+    /**
+     * Answers every query with two days without I/O, except that call number {@code failingCall}
+     * (zero-based) fails.
+     */
+    private static class IdleCloudWatch implements CloudWatchAsyncClient {
+        private final int failingCall;
+        private int calls;
+
+        IdleCloudWatch(int failingCall) {
+            this.failingCall = failingCall;
+        }
+
+        List<Double> values(String id) {
+            return id.endsWith("i") ? List.of(86400.0, 86400.0) : List.of(0.0, 0.0);
+        }
+
+        @Override
+        public CompletableFuture<GetMetricDataResponse> getMetricData(GetMetricDataRequest request) {
+            if (calls++ == failingCall) {
+                return CompletableFuture.failedFuture(CloudWatchException.builder().message("Throttling").build());
+            }
+            List<MetricDataResult> results = new ArrayList<>();
+            for (MetricDataQuery query : request.metricDataQueries()) {
+                results.add(MetricDataResult.builder().id(query.id()).values(values(query.id())).build());
+            }
+            return CompletableFuture.completedFuture(GetMetricDataResponse.builder().metricDataResults(results).build());
+        }
+
+        @Override
+        public GetMetricDataPublisher getMetricDataPaginator(GetMetricDataRequest request) {
+            return new GetMetricDataPublisher(this, request);
+        }
+
+        @Override
+        public String serviceName() {
+            return "cloudwatch";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}